@@ -0,0 +1,166 @@
+package dev.foxxie911;
+
+import org.picocontainer.DefaultPicoContainer;
+import org.picocontainer.MutablePicoContainer;
+
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.repository.ArticleRepository;
+import dev.foxxie911.repository.FileSystemArticleRepository;
+import dev.foxxie911.service.ArticleBuildServices;
+import dev.foxxie911.service.ArticleParsingService;
+import dev.foxxie911.service.AssetCache;
+import dev.foxxie911.service.AssetManagementService;
+import dev.foxxie911.service.BuildFingerprintService;
+import dev.foxxie911.service.BuildPipeline;
+import dev.foxxie911.service.ChangeSetService;
+import dev.foxxie911.service.DependencyGraphService;
+import dev.foxxie911.service.DiagnosticsCollector;
+import dev.foxxie911.service.IncrementalBuildServices;
+import dev.foxxie911.service.LinkValidationService;
+import dev.foxxie911.service.MarkdownParsingService;
+import dev.foxxie911.service.OutputPruningService;
+import dev.foxxie911.service.PageGenerationService;
+import dev.foxxie911.service.PublishingServices;
+import dev.foxxie911.service.RelatedArticlesService;
+import dev.foxxie911.service.ShardManifestService;
+import dev.foxxie911.service.SiteOutputService;
+import dev.foxxie911.service.TemplateRenderingService;
+import dev.foxxie911.service.WorkerPool;
+
+/**
+ * Builds fully wired {@link BlogGeneratorApplication} instances.
+ * Offers the PicoContainer wiring used by default and an explicit, reflection-free
+ * wiring for fast startup, where container setup would dominate short builds.
+ */
+public final class ApplicationFactory {
+    
+    /** System property that selects the reflection-free wiring in {@link BlogGeneratorApplication#main()}. */
+    public static final String FAST_STARTUP_PROPERTY = "markblog.fastStartup";
+    
+    private ApplicationFactory() {
+    }
+    
+    /**
+     * Creates the application using the wiring selected by {@link #FAST_STARTUP_PROPERTY}.
+     * 
+     * @return the wired application
+     */
+    public static BlogGeneratorApplication create() {
+        if (Boolean.getBoolean(FAST_STARTUP_PROPERTY)) {
+            return create(new BlogConfiguration());
+        }
+        return ContainerWiring.create();
+    }
+    
+    /**
+     * Creates the application by calling constructors directly, without a container.
+     * Must be kept in step with the components registered in {@link ContainerWiring}.
+     * 
+     * @param configuration the blog configuration
+     * @return the wired application
+     */
+    public static BlogGeneratorApplication create(BlogConfiguration configuration) {
+        return create(configuration, SharedServices.create());
+    }
+    
+    /**
+     * Creates the application by calling constructors directly, reusing services shared with other sites.
+     * Everything that depends on the configuration is created for this site alone.
+     * 
+     * @param configuration the blog configuration
+     * @param shared the services shared by every site in the process
+     * @return the wired application
+     */
+    public static BlogGeneratorApplication create(BlogConfiguration configuration, SharedServices shared) {
+        DiagnosticsCollector diagnostics = new DiagnosticsCollector(configuration);
+        ArticleRepository articleRepository =
+            new FileSystemArticleRepository(configuration, shared.parsingService(), diagnostics);
+        SiteOutputService outputService = new SiteOutputService(configuration);
+        TemplateRenderingService templateService = shared.templateService();
+        RelatedArticlesService relatedArticlesService =
+            new RelatedArticlesService(configuration, articleRepository, diagnostics);
+        PageGenerationService pageGenerationService =
+            new PageGenerationService(configuration, templateService, outputService, relatedArticlesService,
+                shared.parsingService());
+        AssetManagementService assetManagementService =
+            new AssetManagementService(configuration, outputService, shared.assetCache(), diagnostics);
+        LinkValidationService linkValidationService =
+            new LinkValidationService(configuration, pageGenerationService, assetManagementService);
+        OutputPruningService pruningService = new OutputPruningService(configuration, outputService);
+        ShardManifestService shardManifestService = new ShardManifestService(configuration, pageGenerationService);
+        DependencyGraphService dependencyGraphService =
+            new DependencyGraphService(configuration, relatedArticlesService, templateService);
+        BuildFingerprintService fingerprintService = new BuildFingerprintService(configuration);
+        ChangeSetService changeSetService = new ChangeSetService(configuration, outputService);
+        BuildPipeline buildPipeline = new BuildPipeline(configuration, articleRepository, pageGenerationService,
+            shared.workerPool(), dependencyGraphService, diagnostics);
+        
+        return new BlogGeneratorApplication(
+            configuration,
+            new ArticleBuildServices(relatedArticlesService, buildPipeline, shardManifestService),
+            pageGenerationService,
+            assetManagementService,
+            new PublishingServices(outputService, linkValidationService, pruningService, changeSetService),
+            new IncrementalBuildServices(fingerprintService, dependencyGraphService),
+            diagnostics
+        );
+    }
+    
+    /**
+     * Creates the application through PicoContainer.
+     * 
+     * @return the wired application
+     */
+    public static BlogGeneratorApplication createWithContainer() {
+        return ContainerWiring.create();
+    }
+    
+    /**
+     * PicoContainer wiring, kept in its own class so the container classes are only
+     * loaded when this path is actually used.
+     */
+    private static final class ContainerWiring {
+        
+        static BlogGeneratorApplication create() {
+            // Set up dependency injection
+            MutablePicoContainer container = new DefaultPicoContainer();
+            
+            // Register components
+            container.addComponent(BlogConfiguration.class);
+            container.addComponent(ArticleRepository.class, FileSystemArticleRepository.class);
+            container.addComponent(ArticleParsingService.class, MarkdownParsingService.class);
+            container.addComponent(TemplateRenderingService.class);
+            container.addComponent(AssetManagementService.class);
+            container.addComponent(PageGenerationService.class);
+            container.addComponent(LinkValidationService.class);
+            container.addComponent(SiteOutputService.class);
+            container.addComponent(OutputPruningService.class);
+            container.addComponent(ShardManifestService.class);
+            container.addComponent(BuildPipeline.class);
+            container.addComponent(RelatedArticlesService.class);
+            container.addComponent(AssetCache.class);
+            container.addComponent(WorkerPool.class);
+            container.addComponent(BuildFingerprintService.class);
+            container.addComponent(DependencyGraphService.class);
+            container.addComponent(DiagnosticsCollector.class);
+            container.addComponent(ChangeSetService.class);
+            container.addComponent(ArticleBuildServices.class);
+            container.addComponent(PublishingServices.class);
+            container.addComponent(IncrementalBuildServices.class);
+            container.addComponent(MarkdownParsingService.class);
+            container.addComponent(FileSystemArticleRepository.class);
+            
+            // Get the main application instance
+            // Manually instantiate since PicoContainer doesn't auto-wire the main class
+            return new BlogGeneratorApplication(
+                container.getComponent(BlogConfiguration.class),
+                container.getComponent(ArticleBuildServices.class),
+                container.getComponent(PageGenerationService.class),
+                container.getComponent(AssetManagementService.class),
+                container.getComponent(PublishingServices.class),
+                container.getComponent(IncrementalBuildServices.class),
+                container.getComponent(DiagnosticsCollector.class)
+            );
+        }
+    }
+}
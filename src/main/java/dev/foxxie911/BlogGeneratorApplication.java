@@ -1,27 +1,39 @@
 package dev.foxxie911;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
-import org.picocontainer.DefaultPicoContainer;
-import org.picocontainer.MutablePicoContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.config.BuildMode;
 import dev.foxxie911.exception.ConfigurationException;
 import dev.foxxie911.exception.FileProcessingException;
 import dev.foxxie911.exception.MarkBlogException;
 import dev.foxxie911.models.Article;
-import dev.foxxie911.repository.ArticleRepository;
-import dev.foxxie911.repository.FileSystemArticleRepository;
-import dev.foxxie911.service.ArticleParsingService;
+import dev.foxxie911.models.BuildFingerprint;
+import dev.foxxie911.models.SiteBuildResult;
+import dev.foxxie911.service.ArticleBuildServices;
 import dev.foxxie911.service.AssetManagementService;
-import dev.foxxie911.service.MarkdownParsingService;
+import dev.foxxie911.service.BuildFingerprintService;
+import dev.foxxie911.service.BuildPipeline;
+import dev.foxxie911.service.ChangeSetService;
+import dev.foxxie911.service.DependencyGraphService;
+import dev.foxxie911.service.DiagnosticsCollector;
+import dev.foxxie911.service.IncrementalBuildServices;
+import dev.foxxie911.service.LinkValidationService;
+import dev.foxxie911.service.OutputPruningService;
 import dev.foxxie911.service.PageGenerationService;
-import dev.foxxie911.service.TemplateRenderingService;
+import dev.foxxie911.service.PublishingServices;
+import dev.foxxie911.service.RelatedArticlesService;
+import dev.foxxie911.service.ShardManifestService;
+import dev.foxxie911.service.SiteOutputService;
 
 /**
  * Main application class that orchestrates the blog generation process.
@@ -33,25 +45,47 @@ public class BlogGeneratorApplication {
     private static final Logger logger = LoggerFactory.getLogger(BlogGeneratorApplication.class);
     
     private final BlogConfiguration configuration;
-    private final ArticleRepository articleRepository;
     private final PageGenerationService pageGenerationService;
     private final AssetManagementService assetManagementService;
+    private final LinkValidationService linkValidationService;
+    private final SiteOutputService outputService;
+    private final OutputPruningService pruningService;
+    private final ShardManifestService shardManifestService;
+    private final BuildPipeline buildPipeline;
+    private final RelatedArticlesService relatedArticlesService;
+    private final BuildFingerprintService fingerprintService;
+    private final DependencyGraphService dependencyGraphService;
+    private final DiagnosticsCollector diagnostics;
+    private final ChangeSetService changeSetService;
     
     @Inject
     public BlogGeneratorApplication(
             BlogConfiguration configuration,
-            ArticleRepository articleRepository,
+            ArticleBuildServices articleBuild,
             PageGenerationService pageGenerationService,
-            AssetManagementService assetManagementService) {
+            AssetManagementService assetManagementService,
+            PublishingServices publishing,
+            IncrementalBuildServices incrementalBuild,
+            DiagnosticsCollector diagnostics) {
         
         this.configuration = configuration;
-        this.articleRepository = articleRepository;
         this.pageGenerationService = pageGenerationService;
         this.assetManagementService = assetManagementService;
+        this.linkValidationService = publishing.linkValidationService();
+        this.outputService = publishing.outputService();
+        this.pruningService = publishing.pruningService();
+        this.shardManifestService = articleBuild.shardManifestService();
+        this.buildPipeline = articleBuild.buildPipeline();
+        this.relatedArticlesService = articleBuild.relatedArticlesService();
+        this.fingerprintService = incrementalBuild.fingerprintService();
+        this.dependencyGraphService = incrementalBuild.dependencyGraphService();
+        this.diagnostics = diagnostics;
+        this.changeSetService = publishing.changeSetService();
     }
     
     /**
      * Runs the complete blog generation process.
+     * Returns right away when no input changed since the last successful build.
      * 
      * @throws MarkBlogException if any step of the process fails
      */
@@ -59,55 +93,100 @@ public class BlogGeneratorApplication {
         logger.info("Starting MarkBlog generation process");
         logger.info("Configuration: {}", configuration);
         
+        BuildFingerprint fingerprint = fingerprintService.computeFingerprint();
+        if (fingerprintService.matchesLastBuild(fingerprint)) {
+            logger.info("No input changed since the last build, the site is up to date");
+            changeSetService.exportUnchanged();
+            return;
+        }
+        
+        diagnostics.beginBuild();
         try {
-            // Step 1: Load and validate articles
-            List<Article> articles = loadArticles();
+            BuildMode buildMode = configuration.getBuildMode();
+            fingerprintService.invalidate();
+            outputService.beginBuild();
+            
+            // Step 1: Build article pages, or collect the ones built by the shards
+            List<Article> articles = buildMode == BuildMode.MERGE
+                ? shardManifestService.readAllShards()
+                : buildArticlePages();
             
             if (articles.isEmpty()) {
                 logger.warn("No articles found. Generation will create an empty blog.");
             } else {
-                logger.info("Loaded {} articles successfully", articles.size());
+                logger.info("Processed {} articles successfully", articles.size());
             }
             
-            // Step 2: Generate HTML pages
-            generatePages(articles);
+            if (buildMode == BuildMode.SHARD) {
+                // Shards only publish their metadata; the merge step does the rest
+                shardManifestService.writeManifest(articles);
+            } else {
+                // Step 2: Generate the homepage
+                generateHomePage(articles);
+                
+                // Step 3: Copy static assets
+                copyAssets();
+                
+                // Step 4: Validate internal links against the generated output
+                validateLinks(articles, buildMode);
+            }
             
-            // Step 3: Copy static assets
-            copyAssets();
+            // Step 5: Remove outputs of deleted or renamed articles
+            pruningService.pruneOrphans();
+            
+            // Step 6: Tell the deploy step which outputs changed
+            changeSetService.export();
+            
+            // Step 7: Make the new output visible
+            outputService.publish();
+            if (buildMode != BuildMode.MERGE) {
+                dependencyGraphService.save();
+            }
+            // Files that failed are retried by the next build even if nothing changed
+            if (diagnostics.getFailureCount() == 0) {
+                fingerprintService.record(fingerprint);
+            }
             
             logger.info("MarkBlog generation completed successfully!");
             
         } catch (Exception e) {
             logger.error("Blog generation failed", e);
+            outputService.abort();
+            if (configuration.getBuildMode() != BuildMode.MERGE) {
+                dependencyGraphService.saveInterrupted();
+            }
             if (e instanceof MarkBlogException) {
                 throw e;
             } else {
                 throw new MarkBlogException("Unexpected error during blog generation", e);
             }
+        } finally {
+            diagnostics.report();
         }
     }
     
     /**
-     * Loads all articles from the configured source.
+     * Builds the pages of all articles through the staged build pipeline.
+     * Related articles are computed first, since every page lists them.
      * 
-     * @return list of loaded articles
-     * @throws FileProcessingException if there are issues loading articles
+     * @return the built articles, in no particular order
+     * @throws FileProcessingException if there are issues building article pages
      */
-    private List<Article> loadArticles() throws FileProcessingException {
-        logger.info("Loading articles...");
-        return articleRepository.findAll();
+    private List<Article> buildArticlePages() throws FileProcessingException {
+        relatedArticlesService.computeRelated();
+        logger.info("Building article pages...");
+        return buildPipeline.buildArticlePages();
     }
     
     /**
-     * Generates all HTML pages from the loaded articles.
+     * Generates the homepage listing all articles.
      * 
-     * @param articles the articles to generate pages for
-     * @throws FileProcessingException if there are issues generating pages
+     * @param articles the articles to choose the listed ones from
+     * @throws FileProcessingException if there are issues generating the homepage
      */
-    private void generatePages(List<Article> articles) throws FileProcessingException {
-        logger.info("Generating pages...");
+    private void generateHomePage(List<Article> articles) throws FileProcessingException {
+        logger.info("Generating homepage...");
         pageGenerationService.generateHomePage(articles);
-        pageGenerationService.generateArticlePages(articles);
     }
     
     /**
@@ -120,33 +199,45 @@ public class BlogGeneratorApplication {
         assetManagementService.copyAllAssets();
     }
     
+    /**
+     * Validates internal links of all articles against the generated pages and assets.
+     * 
+     * When merging shards, the article pages rendered by the shard processes count as generated.
+     * 
+     * @param articles the articles whose links should be validated
+     * @param buildMode the role of this process in the build
+     * @throws MarkBlogException if broken links are found and the build is configured to fail on them
+     */
+    private void validateLinks(List<Article> articles, BuildMode buildMode) throws MarkBlogException {
+        logger.info("Validating internal links...");
+        Set<String> shardPages = buildMode == BuildMode.MERGE
+            ? articles.stream().map(pageGenerationService::articlePagePath).collect(Collectors.toSet())
+            : Set.of();
+        linkValidationService.validateLinks(articles, shardPages);
+    }
+    
     /**
      * Main entry point for the application.
      * Sets up dependency injection and runs the blog generation process.
+     * Run with {@code -Dmarkblog.fastStartup=true} to skip container reflection, or with
+     * {@code -Dmarkblog.sites=<directory>} to build every site configured in a directory.
      */
     public static void main() {
         try {
-            // Set up dependency injection
-            MutablePicoContainer container = new DefaultPicoContainer();
-            
-            // Register components
-            container.addComponent(BlogConfiguration.class);
-            container.addComponent(ArticleRepository.class, FileSystemArticleRepository.class);
-            container.addComponent(ArticleParsingService.class, MarkdownParsingService.class);
-            container.addComponent(TemplateRenderingService.class);
-            container.addComponent(AssetManagementService.class);
-            container.addComponent(PageGenerationService.class);
-            container.addComponent(MarkdownParsingService.class);
-            container.addComponent(FileSystemArticleRepository.class);
+            String sitesDirectory = System.getProperty(MultiSiteBuilder.SITES_PROPERTY);
+            if (sitesDirectory != null) {
+                int concurrency = Integer.getInteger(MultiSiteBuilder.CONCURRENCY_PROPERTY,
+                    Runtime.getRuntime().availableProcessors());
+                List<SiteBuildResult> results = new MultiSiteBuilder(SharedServices.create(), concurrency)
+                    .build(Path.of(sitesDirectory));
+                if (results.stream().anyMatch(result -> !result.succeeded())) {
+                    System.exit(1);
+                }
+                return;
+            }
             
-            // Get the main application instance
-            // Manually instantiate since PicoContainer doesn't auto-wire the main class
-            BlogGeneratorApplication application = new BlogGeneratorApplication(
-                container.getComponent(BlogConfiguration.class),
-                container.getComponent(ArticleRepository.class),
-                container.getComponent(PageGenerationService.class),
-                container.getComponent(AssetManagementService.class)
-            );
+            // Wire components, either through PicoContainer or the fast-startup factory
+            BlogGeneratorApplication application = ApplicationFactory.create();
             
             // Run the application
             application.run();
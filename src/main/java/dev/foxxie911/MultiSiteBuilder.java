@@ -0,0 +1,178 @@
+package dev.foxxie911;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.exception.ConfigurationException;
+import dev.foxxie911.models.SiteBuildResult;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * Builds several sites concurrently in one process.
+ * Every site has its own configuration, output and error handling, while the Markdown engine,
+ * template cache, asset listings and worker threads are shared, so a run over many blogs pays
+ * for JVM startup and warm-up once. A site that fails is reported without stopping the others.
+ * <p>
+ * The processors are divided among the sites built at the same time, so a site without its own
+ * {@code BUILD_CPU_THREADS} does not assume it has the whole machine to itself.
+ */
+public class MultiSiteBuilder {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MultiSiteBuilder.class);
+    private static final String SITE_FILE_SUFFIX = ".env";
+    
+    /** System property naming a directory of site configurations, which switches {@code main} to multi-site mode. */
+    public static final String SITES_PROPERTY = "markblog.sites";
+    
+    /** System property limiting how many sites are built at the same time. */
+    public static final String CONCURRENCY_PROPERTY = "markblog.siteConcurrency";
+    
+    private final SharedServices shared;
+    private final int concurrency;
+    
+    /**
+     * Constructs a new MultiSiteBuilder.
+     * 
+     * @param shared the services shared by every site
+     * @param concurrency the number of sites built at the same time
+     */
+    public MultiSiteBuilder(SharedServices shared, int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Site concurrency must be at least 1: " + concurrency);
+        }
+        this.shared = shared;
+        this.concurrency = concurrency;
+    }
+    
+    /**
+     * Builds every site configured in a directory. Each {@code *.env} file in the directory
+     * configures one site, named after the file, with the same settings as a single-site {@code .env}.
+     * 
+     * @param sitesDirectory the directory of site configurations
+     * @return the result of each site, in site name order
+     * @throws ConfigurationException if the directory cannot be read
+     */
+    public List<SiteBuildResult> build(Path sitesDirectory) throws ConfigurationException {
+        List<Path> siteFiles = findSiteFiles(sitesDirectory);
+        int processorsPerSite = Math.max(1,
+            Runtime.getRuntime().availableProcessors() / Math.min(concurrency, siteFiles.size()));
+        logger.info("Building {} sites from {}, {} at a time with {} processors each", siteFiles.size(),
+            sitesDirectory, concurrency, processorsPerSite);
+        
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "markblog-site-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        long startNanos = System.nanoTime();
+        List<SiteBuildResult> results = new ArrayList<>();
+        try {
+            List<Future<SiteBuildResult>> futures = new ArrayList<>();
+            for (Path siteFile : siteFiles) {
+                futures.add(executor.submit(() -> buildSite(siteFile, processorsPerSite)));
+            }
+            for (Future<SiteBuildResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConfigurationException("Interrupted while building sites", e);
+        } catch (ExecutionException e) {
+            // buildSite reports every failure as a result, so this is a bug rather than a site error
+            throw new IllegalStateException("Unexpected failure while building sites", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        logSummary(results, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return results;
+    }
+    
+    /**
+     * Builds a single site, turning any failure into a failed result.
+     * 
+     * @param siteFile the configuration file of the site
+     * @param processors the processors available to the site, its default CPU thread budget
+     * @return the result of the build
+     */
+    private SiteBuildResult buildSite(Path siteFile, int processors) {
+        String site = siteName(siteFile);
+        Thread thread = Thread.currentThread();
+        String poolName = thread.getName();
+        // Log lines of this site carry its name
+        thread.setName("markblog-site-" + site);
+        long startNanos = System.nanoTime();
+        try {
+            Dotenv dotenv = Dotenv.configure()
+                .directory(siteFile.getParent().toString())
+                .filename(siteFile.getFileName().toString())
+                .load();
+            ApplicationFactory.create(new BlogConfiguration(dotenv, processors), shared).run();
+            return new SiteBuildResult(site, true, elapsedMillis(startNanos), null);
+        } catch (Exception e) {
+            logger.error("Site {} failed: {}", site, e.getMessage(), e);
+            return new SiteBuildResult(site, false, elapsedMillis(startNanos), String.valueOf(e.getMessage()));
+        } finally {
+            thread.setName(poolName);
+        }
+    }
+    
+    /**
+     * Finds the site configuration files in a directory.
+     * 
+     * @param sitesDirectory the directory of site configurations
+     * @return the configuration files, sorted by name
+     * @throws ConfigurationException if the directory cannot be read or contains no site configurations
+     */
+    private static List<Path> findSiteFiles(Path sitesDirectory) throws ConfigurationException {
+        try (Stream<Path> files = Files.list(sitesDirectory)) {
+            List<Path> siteFiles = files
+                .filter(file -> file.getFileName().toString().endsWith(SITE_FILE_SUFFIX))
+                .filter(Files::isRegularFile)
+                .sorted()
+                .toList();
+            if (siteFiles.isEmpty()) {
+                throw new ConfigurationException("No *" + SITE_FILE_SUFFIX + " site configurations in "
+                    + sitesDirectory, null);
+            }
+            return siteFiles;
+        } catch (IOException e) {
+            throw new ConfigurationException("Failed to read site configurations from " + sitesDirectory, e);
+        }
+    }
+    
+    private static String siteName(Path siteFile) {
+        String fileName = siteFile.getFileName().toString();
+        return fileName.substring(0, fileName.length() - SITE_FILE_SUFFIX.length());
+    }
+    
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+    
+    private static void logSummary(List<SiteBuildResult> results, long totalMillis) {
+        long failed = results.stream().filter(result -> !result.succeeded()).count();
+        for (SiteBuildResult result : results) {
+            logger.info("  {} {} ({} ms){}", result.succeeded() ? "OK  " : "FAIL", result.site(),
+                result.durationMillis(), result.succeeded() ? "" : ": " + result.error());
+        }
+        logger.info("Built {} of {} sites in {} ms", results.size() - failed, results.size(), totalMillis);
+    }
+}
@@ -0,0 +1,33 @@
+package dev.foxxie911;
+
+import dev.foxxie911.service.ArticleParsingService;
+import dev.foxxie911.service.AssetCache;
+import dev.foxxie911.service.MarkdownParsingService;
+import dev.foxxie911.service.TemplateRenderingService;
+import dev.foxxie911.service.WorkerPool;
+
+/**
+ * Components that hold no per-site state and can be shared by every site built in one process:
+ * the Markdown engine, the compiled template cache, the asset listings and the worker threads.
+ * 
+ * @param parsingService the Markdown parser and renderer
+ * @param templateService the template renderer, which caches compiled templates
+ * @param assetCache the listings of the bundled asset directories
+ * @param workerPool the threads running build pipeline stages
+ */
+public record SharedServices(
+        ArticleParsingService parsingService,
+        TemplateRenderingService templateService,
+        AssetCache assetCache,
+        WorkerPool workerPool) {
+    
+    /**
+     * Creates a fresh set of shared services.
+     * 
+     * @return the shared services
+     */
+    public static SharedServices create() {
+        return new SharedServices(
+            new MarkdownParsingService(), new TemplateRenderingService(), new AssetCache(), new WorkerPool());
+    }
+}
@@ -3,8 +3,6 @@ package dev.foxxie911.config;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
-import org.apache.commons.lang3.StringUtils;
-
 import io.github.cdimascio.dotenv.Dotenv;
 
 /**
@@ -13,11 +11,25 @@ import io.github.cdimascio.dotenv.Dotenv;
  */
 public class BlogConfiguration {
     
-    private final Dotenv dotenv;
+    private final ConfigurationProperties properties;
     private final String blogName;
     private final String blogBio;
     private final Path sitePath;
     private final Path articlePath;
+    private final boolean failOnBrokenLinks;
+    private final PublishMode publishMode;
+    private final Path cachePath;
+    private final boolean pruneDryRun;
+    private final BuildMode buildMode;
+    private final int shardCount;
+    private final int shardIndex;
+    private final ShardStrategy shardStrategy;
+    private final PerformanceConfiguration performance;
+    private final int homePageSize;
+    private final int relatedArticles;
+    private final boolean skipUnchangedBuilds;
+    private final ChangeSetMode changeSetMode;
+    private final Path themePath;
     
     /**
      * Constructs a new BlogConfiguration instance.
@@ -26,11 +38,54 @@ public class BlogConfiguration {
      * @throws IllegalStateException if required configuration is missing or invalid
      */
     public BlogConfiguration() {
-        this.dotenv = Dotenv.configure().ignoreIfMissing().load();
-        this.blogName = loadRequiredProperty("BLOG_NAME");
-        this.blogBio = loadRequiredProperty("BLOG_BIO");
-        this.sitePath = resolvePath(loadRequiredProperty("SITE_PATH"));
-        this.articlePath = resolvePath(loadRequiredProperty("ARTICLE_PATH"));
+        this(Dotenv.configure().ignoreIfMissing().load());
+    }
+    
+    /**
+     * Constructs a new BlogConfiguration instance from the given environment.
+     * 
+     * @param dotenv the environment to read configuration values from
+     * @throws IllegalStateException if required configuration is missing or invalid
+     */
+    public BlogConfiguration(Dotenv dotenv) {
+        this(dotenv, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Constructs a new BlogConfiguration instance from the given environment, for a build that
+     * shares the machine with other builds in the same process.
+     * 
+     * @param dotenv the environment to read configuration values from
+     * @param processors the processors available to this build, the default CPU thread budget
+     * @throws IllegalStateException if required configuration is missing or invalid
+     */
+    public BlogConfiguration(Dotenv dotenv, int processors) {
+        this.properties = new ConfigurationProperties(dotenv);
+        this.blogName = properties.loadRequiredProperty("BLOG_NAME");
+        this.blogBio = properties.loadRequiredProperty("BLOG_BIO");
+        this.sitePath = resolvePath(properties.loadRequiredProperty("SITE_PATH"));
+        this.articlePath = resolvePath(properties.loadRequiredProperty("ARTICLE_PATH"));
+        this.failOnBrokenLinks = properties.loadBooleanProperty("FAIL_ON_BROKEN_LINKS", false);
+        this.publishMode = properties.loadEnumProperty("PUBLISH_MODE", PublishMode.class, PublishMode.IN_PLACE);
+        this.cachePath = resolvePath(properties.loadOptionalProperty("CACHE_PATH", sitePath + ".cache"));
+        this.pruneDryRun = properties.loadBooleanProperty("PRUNE_DRY_RUN", false);
+        this.buildMode = properties.loadEnumProperty("BUILD_MODE", BuildMode.class, BuildMode.FULL);
+        this.shardCount = properties.loadIntProperty("SHARD_COUNT", 1, 1, Integer.MAX_VALUE);
+        this.shardIndex = properties.loadIntProperty("SHARD_INDEX", 0, 0, shardCount - 1);
+        this.shardStrategy = properties.loadEnumProperty("SHARD_STRATEGY", ShardStrategy.class, ShardStrategy.HASH);
+        this.homePageSize = properties.loadIntProperty("HOME_PAGE_SIZE", 0, 0, Integer.MAX_VALUE);
+        this.relatedArticles = properties.loadIntProperty("RELATED_ARTICLES", 0, 0, 100);
+        this.skipUnchangedBuilds = properties.loadBooleanProperty("SKIP_UNCHANGED_BUILDS", true);
+        this.changeSetMode = properties.loadEnumProperty("CHANGE_SET_MODE", ChangeSetMode.class, ChangeSetMode.JSON);
+        String theme = properties.loadOptionalProperty("THEME_PATH", null);
+        this.themePath = theme == null ? null : resolvePath(theme);
+        this.performance = new PerformanceConfiguration(properties, processors);
+        
+        if (buildMode != BuildMode.FULL && publishMode == PublishMode.ATOMIC) {
+            throw new IllegalStateException(
+                "Sharded builds write into a shared site path and require PUBLISH_MODE=in-place"
+            );
+        }
     }
     
     /**
@@ -70,20 +125,133 @@ public class BlogConfiguration {
     }
     
     /**
-     * Loads a required property from environment variables.
+     * Checks whether broken internal links should fail the build.
      * 
-     * @param propertyName the name of the property to load
-     * @return the property value
-     * @throws IllegalStateException if the property is missing or empty
+     * @return true if the build should fail when broken links are found
      */
-    private String loadRequiredProperty(String propertyName) {
-        String value = dotenv.get(propertyName);
-        if (StringUtils.isBlank(value)) {
-            throw new IllegalStateException(
-                String.format("Required configuration property '%s' is missing or empty", propertyName)
-            );
-        }
-        return value.trim();
+    public boolean isFailOnBrokenLinks() {
+        return failOnBrokenLinks;
+    }
+    
+    /**
+     * Gets the strategy used to publish the generated site.
+     * 
+     * @return the publish mode
+     */
+    public PublishMode getPublishMode() {
+        return publishMode;
+    }
+    
+    /**
+     * Gets the directory for build state kept between runs, such as the output ledger.
+     * Defaults to a {@code .cache} sibling of the site path so it is never published.
+     * 
+     * @return the resolved cache path
+     */
+    public Path getCachePath() {
+        return cachePath;
+    }
+    
+    /**
+     * Gets the theme directory whose templates override the bundled ones.
+     * Templates the theme does not provide, such as a theme that only replaces the homepage, stay bundled.
+     * 
+     * @return the resolved theme path, or null to render with the bundled templates
+     */
+    public Path getThemePath() {
+        return themePath;
+    }
+    
+    /**
+     * Checks whether orphan pruning should only report the files it would delete.
+     * 
+     * @return true if pruning runs in dry-run mode
+     */
+    public boolean isPruneDryRun() {
+        return pruneDryRun;
+    }
+    
+    /**
+     * Gets the role of this process in the build.
+     * 
+     * @return the build mode
+     */
+    public BuildMode getBuildMode() {
+        return buildMode;
+    }
+    
+    /**
+     * Gets the total number of shards the article set is partitioned into.
+     * 
+     * @return the shard count, 1 for unsharded builds
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+    
+    /**
+     * Gets the shard built by this process.
+     * 
+     * @return the zero-based shard index
+     */
+    public int getShardIndex() {
+        return shardIndex;
+    }
+    
+    /**
+     * Gets the strategy used to assign articles to shards.
+     * 
+     * @return the shard strategy
+     */
+    public ShardStrategy getShardStrategy() {
+        return shardStrategy;
+    }
+    
+    /**
+     * Gets the settings controlling how the build uses the machine.
+     * 
+     * @return the performance configuration
+     */
+    public PerformanceConfiguration getPerformance() {
+        return performance;
+    }
+    
+    /**
+     * Gets the number of latest articles listed on the homepage.
+     * Only a positive size lets the homepage pick its articles with a bounded heap;
+     * with 0 every article is listed and therefore sorted.
+     * 
+     * @return the number of articles, or 0 to list all of them
+     */
+    public int getHomePageSize() {
+        return homePageSize;
+    }
+    
+    /**
+     * Gets the number of related articles listed on each article page.
+     * 
+     * @return the number of related articles, or 0 if related articles are disabled
+     */
+    public int getRelatedArticles() {
+        return relatedArticles;
+    }
+    
+    /**
+     * Checks whether a build whose inputs match those of the last successful build is skipped.
+     * 
+     * @return true if unchanged builds are skipped
+     */
+    public boolean isSkipUnchangedBuilds() {
+        return skipUnchangedBuilds;
+    }
+    
+    /**
+     * Gets what the build exports about the output files it changed.
+     * 
+     * @return the change set mode
+     */
+    public ChangeSetMode getChangeSetMode() {
+        return changeSetMode;
     }
     
     /**
@@ -100,11 +268,26 @@ public class BlogConfiguration {
         return Paths.get(resolvedPath).toAbsolutePath().normalize();
     }
     
-    @Override
-    public String toString() {
+    /**
+     * Describes the settings that decide what a build writes. The performance settings are left out,
+     * since they only decide how many threads and how much memory the build uses; a successful build
+     * writes the same site whatever they are, for example on a machine with another core count.
+     * 
+     * @return the output settings as text
+     */
+    public String describeOutputSettings() {
         return String.format(
-            "BlogConfiguration{blogName='%s', blogBio='%s', sitePath=%s, articlePath=%s}",
-            blogName, blogBio, sitePath, articlePath
+            "blogName='%s', blogBio='%s', sitePath=%s, articlePath=%s, failOnBrokenLinks=%s, "
+                + "publishMode=%s, cachePath=%s, pruneDryRun=%s, buildMode=%s, shard=%d/%d (%s), "
+                + "homePageSize=%d, relatedArticles=%d, skipUnchangedBuilds=%s, changeSetMode=%s, themePath=%s",
+            blogName, blogBio, sitePath, articlePath, failOnBrokenLinks, publishMode, cachePath, pruneDryRun,
+            buildMode, shardIndex, shardCount, shardStrategy, homePageSize, relatedArticles,
+            skipUnchangedBuilds, changeSetMode, themePath
         );
     }
+    
+    @Override
+    public String toString() {
+        return "BlogConfiguration{" + describeOutputSettings() + ", performance=" + performance + "}";
+    }
 }
@@ -0,0 +1,19 @@
+package dev.foxxie911.config;
+
+/**
+ * Role of this process in a build.
+ */
+public enum BuildMode {
+    
+    /** Builds the whole site in a single process. */
+    FULL,
+    
+    /**
+     * Builds the article pages of one shard and writes the shard's metadata file.
+     * The homepage, assets and link validation are left to the merge step.
+     */
+    SHARD,
+    
+    /** Builds the homepage and assets from the metadata files written by all shards. */
+    MERGE
+}
@@ -0,0 +1,17 @@
+package dev.foxxie911.config;
+
+/**
+ * What a build exports about the output files it changed, for deploy steps that
+ * upload and invalidate only those files.
+ */
+public enum ChangeSetMode {
+    
+    /** Nothing is exported. */
+    OFF,
+    
+    /** The added, modified and removed output paths are written as a JSON change set. */
+    JSON,
+    
+    /** The JSON change set is written along with a zip archive of the added and modified files. */
+    ARCHIVE
+}
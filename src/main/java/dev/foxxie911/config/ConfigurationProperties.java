@@ -0,0 +1,148 @@
+package dev.foxxie911.config;
+
+import java.util.Locale;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * Typed access to configuration properties, shared by the configuration sections.
+ * Every loader reports a missing or malformed value as an IllegalStateException naming the property.
+ */
+final class ConfigurationProperties {
+    
+    private final Dotenv dotenv;
+    
+    /**
+     * Constructs a new ConfigurationProperties reading from the given environment.
+     * 
+     * @param dotenv the environment to read configuration values from
+     */
+    ConfigurationProperties(Dotenv dotenv) {
+        this.dotenv = dotenv;
+    }
+    
+    /**
+     * Loads a required property from environment variables.
+     * 
+     * @param propertyName the name of the property to load
+     * @return the property value
+     * @throws IllegalStateException if the property is missing or empty
+     */
+    String loadRequiredProperty(String propertyName) {
+        String value = dotenv.get(propertyName);
+        if (StringUtils.isBlank(value)) {
+            throw new IllegalStateException(
+                String.format("Required configuration property '%s' is missing or empty", propertyName)
+            );
+        }
+        return value.trim();
+    }
+    
+    /**
+     * Loads an optional property from environment variables.
+     * 
+     * @param propertyName the name of the property to load
+     * @param defaultValue the value to use when the property is missing or empty
+     * @return the property value, or the default value
+     */
+    String loadOptionalProperty(String propertyName, String defaultValue) {
+        String value = dotenv.get(propertyName);
+        return StringUtils.isBlank(value) ? defaultValue : value.trim();
+    }
+    
+    /**
+     * Loads an optional integer property from environment variables.
+     * 
+     * @param propertyName the name of the property to load
+     * @param defaultValue the value to use when the property is missing or empty
+     * @param min the smallest allowed value
+     * @param max the largest allowed value
+     * @return the property value, or the default value
+     * @throws IllegalStateException if the property is not an integer within range
+     */
+    int loadIntProperty(String propertyName, int defaultValue, int min, int max) {
+        String value = loadOptionalProperty(propertyName, String.valueOf(defaultValue));
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= min && parsed <= max) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalStateException(
+            String.format("Configuration property '%s' must be an integer between %d and %d, was '%s'",
+                propertyName, min, max, value)
+        );
+    }
+    
+    /**
+     * Loads an optional enum property from environment variables.
+     * Values are matched case-insensitively, with dashes standing in for underscores.
+     * 
+     * @param propertyName the name of the property to load
+     * @param enumType the enum type of the property
+     * @param defaultValue the value to use when the property is missing or empty
+     * @return the property value, or the default value
+     * @throws IllegalStateException if the property does not name a constant of the enum
+     */
+    <E extends Enum<E>> E loadEnumProperty(String propertyName, Class<E> enumType, E defaultValue) {
+        String value = loadOptionalProperty(propertyName, defaultValue.name());
+        try {
+            return Enum.valueOf(enumType, value.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException(
+                String.format("Configuration property '%s' has invalid value '%s'", propertyName, value), e
+            );
+        }
+    }
+    
+    /**
+     * Loads an optional boolean property from environment variables.
+     * 
+     * @param propertyName the name of the property to load
+     * @param defaultValue the value to use when the property is missing or empty
+     * @return the property value, or the default value
+     */
+    boolean loadBooleanProperty(String propertyName, boolean defaultValue) {
+        return Boolean.parseBoolean(loadOptionalProperty(propertyName, String.valueOf(defaultValue)));
+    }
+    
+    /**
+     * Loads an optional size property from environment variables.
+     * Sizes are given in bytes, optionally followed by a {@code K}, {@code M} or {@code G} binary unit.
+     * 
+     * @param propertyName the name of the property to load
+     * @param defaultValue the value to use when the property is missing or empty, in bytes
+     * @param min the smallest allowed value, in bytes
+     * @return the property value in bytes, or the default value
+     * @throws IllegalStateException if the property is not a size of at least {@code min} bytes
+     */
+    long loadSizeProperty(String propertyName, long defaultValue, long min) {
+        String value = loadOptionalProperty(propertyName, String.valueOf(defaultValue));
+        String digits = value.toUpperCase(Locale.ROOT);
+        int shift = 0;
+        if (digits.endsWith("K") || digits.endsWith("M") || digits.endsWith("G")) {
+            shift = switch (digits.charAt(digits.length() - 1)) {
+                case 'K' -> 10;
+                case 'M' -> 20;
+                default -> 30;
+            };
+            digits = digits.substring(0, digits.length() - 1).trim();
+        }
+        try {
+            long parsed = Long.parseLong(digits);
+            if (parsed >= 0 && parsed <= (Long.MAX_VALUE >> shift) && (parsed << shift) >= min) {
+                return parsed << shift;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalStateException(
+            String.format("Configuration property '%s' must be a size of at least %d bytes, was '%s'",
+                propertyName, min, value)
+        );
+    }
+}
@@ -0,0 +1,17 @@
+package dev.foxxie911.config;
+
+/**
+ * How the build reacts to an article or asset that cannot be processed.
+ * Failures are recorded as build diagnostics under every policy.
+ */
+public enum ErrorPolicy {
+    
+    /** The failing file is skipped, and the build continues with the remaining files. */
+    COLLECT,
+    
+    /** The first failing file aborts the build. */
+    FAIL_FAST,
+    
+    /** Failing files are skipped until there are more failures than the configured threshold. */
+    THRESHOLD
+}
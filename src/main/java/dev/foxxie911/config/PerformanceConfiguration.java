@@ -0,0 +1,183 @@
+package dev.foxxie911.config;
+
+/**
+ * Settings that control how much of the machine a build may use: the CPU and I/O thread
+ * budgets, the worker counts of each pipeline stage, the memory held by articles in flight,
+ * the size of the build cache and the reaction to failing files.
+ * All settings are validated together when the configuration is loaded.
+ */
+public final class PerformanceConfiguration {
+    
+    private static final long KIB = 1024;
+    private static final long MIB = 1024 * KIB;
+    
+    private final int cpuThreads;
+    private final int ioThreads;
+    private final int parseThreads;
+    private final int renderThreads;
+    private final int writeThreads;
+    private final int queueCapacity;
+    private final long maxInFlightBytes;
+    private final long cacheMaxBytes;
+    private final long largeArticleBytes;
+    private final ErrorPolicy errorPolicy;
+    private final int errorThreshold;
+    
+    /**
+     * Constructs the performance settings from the given properties.
+     * 
+     * @param properties the configuration properties to read
+     * @param processors the processors available to this build, the default CPU thread budget
+     * @throws IllegalStateException if a setting is malformed, or a stage has more workers than its thread budget
+     */
+    PerformanceConfiguration(ConfigurationProperties properties, int processors) {
+        this.cpuThreads = properties.loadIntProperty("BUILD_CPU_THREADS", processors, 1, 1024);
+        this.ioThreads = properties.loadIntProperty("BUILD_IO_THREADS", 4, 1, 1024);
+        this.parseThreads = properties.loadIntProperty("PIPELINE_PARSE_THREADS", cpuThreads, 1, 1024);
+        this.renderThreads = properties.loadIntProperty("PIPELINE_RENDER_THREADS", cpuThreads, 1, 1024);
+        this.writeThreads = properties.loadIntProperty("PIPELINE_WRITE_THREADS", ioThreads, 1, 1024);
+        this.queueCapacity = properties.loadIntProperty("PIPELINE_QUEUE_CAPACITY", 128, 1, 1_000_000);
+        this.maxInFlightBytes = properties.loadSizeProperty("BUILD_MAX_IN_FLIGHT_BYTES", 64 * MIB, 64 * KIB);
+        this.cacheMaxBytes = properties.loadSizeProperty("CACHE_MAX_BYTES", 0, 0);
+        this.largeArticleBytes = properties.loadSizeProperty("LARGE_ARTICLE_BYTES", 16 * MIB, 0);
+        this.errorPolicy = properties.loadEnumProperty("BUILD_ERROR_POLICY", ErrorPolicy.class, ErrorPolicy.COLLECT);
+        this.errorThreshold = properties.loadIntProperty("BUILD_ERROR_THRESHOLD", 10, 0, Integer.MAX_VALUE);
+        
+        requireWithinBudget("PIPELINE_PARSE_THREADS", parseThreads, "BUILD_CPU_THREADS", cpuThreads);
+        requireWithinBudget("PIPELINE_RENDER_THREADS", renderThreads, "BUILD_CPU_THREADS", cpuThreads);
+        requireWithinBudget("PIPELINE_WRITE_THREADS", writeThreads, "BUILD_IO_THREADS", ioThreads);
+    }
+    
+    /**
+     * Gets the number of threads that may run CPU-bound work (parsing and rendering) at once.
+     * 
+     * @return the CPU thread budget
+     */
+    public int getCpuThreads() {
+        return cpuThreads;
+    }
+    
+    /**
+     * Gets the number of threads that may run I/O-bound work (walking sources and writing pages) at once.
+     * 
+     * @return the I/O thread budget
+     */
+    public int getIoThreads() {
+        return ioThreads;
+    }
+    
+    /**
+     * Gets the number of threads reading and parsing article sources in the build pipeline.
+     * 
+     * @return the parse thread count, at most the CPU thread budget
+     */
+    public int getParseThreads() {
+        return parseThreads;
+    }
+    
+    /**
+     * Gets the number of threads rendering article pages in the build pipeline.
+     * 
+     * @return the render thread count, at most the CPU thread budget
+     */
+    public int getRenderThreads() {
+        return renderThreads;
+    }
+    
+    /**
+     * Gets the number of threads writing rendered pages in the build pipeline.
+     * 
+     * @return the write thread count, at most the I/O thread budget
+     */
+    public int getWriteThreads() {
+        return writeThreads;
+    }
+    
+    /**
+     * Gets the number of items each pipeline queue holds before the stage feeding it blocks.
+     * 
+     * @return the queue capacity
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    /**
+     * Gets the approximate number of bytes that parsed and rendered articles may occupy at once.
+     * Articles are charged by their source size when they enter the parse stage.
+     * 
+     * @return the in-flight byte budget
+     */
+    public long getMaxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+    
+    /**
+     * Gets the largest size the related articles cache may reach before it is no longer written.
+     * The cap covers only that cache, which is an optimisation the build can do without; the dependency
+     * graph, parsed articles, output ledger and manifests are needed for correct incremental builds and
+     * are always kept.
+     * 
+     * @return the cache size cap in bytes, or 0 for no cap
+     */
+    public long getCacheMaxBytes() {
+        return cacheMaxBytes;
+    }
+    
+    /**
+     * Gets the source size from which an article is parsed from a stream and its body rendered
+     * straight into its page, instead of being held in memory as text.
+     * 
+     * @return the large article threshold in bytes, or 0 to hold every article in memory
+     */
+    public long getLargeArticleBytes() {
+        return largeArticleBytes;
+    }
+    
+    /**
+     * Checks whether an article is large enough to be read from a stream rather than held in memory.
+     * 
+     * @param sourceBytes the size of the article source
+     * @return true if the source is at least {@link #getLargeArticleBytes()} and streaming is enabled
+     */
+    public boolean isLargeArticle(long sourceBytes) {
+        return largeArticleBytes > 0 && sourceBytes >= largeArticleBytes;
+    }
+    
+    /**
+     * Gets how the build reacts to an article or asset that cannot be processed.
+     * 
+     * @return the error policy
+     */
+    public ErrorPolicy getErrorPolicy() {
+        return errorPolicy;
+    }
+    
+    /**
+     * Gets the number of failures tolerated under the {@link ErrorPolicy#THRESHOLD} policy.
+     * 
+     * @return the number of failures after which the next one aborts the build
+     */
+    public int getErrorThreshold() {
+        return errorThreshold;
+    }
+    
+    private static void requireWithinBudget(String propertyName, int threads, String budgetName, int budget) {
+        if (threads > budget) {
+            throw new IllegalStateException(
+                String.format("Configuration property '%s' (%d) must not exceed '%s' (%d)",
+                    propertyName, threads, budgetName, budget)
+            );
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return String.format(
+            "PerformanceConfiguration{cpuThreads=%d, ioThreads=%d, pipelineThreads=%d/%d/%d, queueCapacity=%d, "
+                + "maxInFlightBytes=%d, cacheMaxBytes=%d, largeArticleBytes=%d, errorPolicy=%s, errorThreshold=%d}",
+            cpuThreads, ioThreads, parseThreads, renderThreads, writeThreads, queueCapacity,
+            maxInFlightBytes, cacheMaxBytes, largeArticleBytes, errorPolicy, errorThreshold
+        );
+    }
+}
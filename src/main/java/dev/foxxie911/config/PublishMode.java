@@ -0,0 +1,16 @@
+package dev.foxxie911.config;
+
+/**
+ * Strategy used to publish the generated site into the configured site path.
+ */
+public enum PublishMode {
+    
+    /** Pages and assets are written directly into the live site directory. */
+    IN_PLACE,
+    
+    /**
+     * The site is written into a fresh release directory and swapped in with an atomic
+     * symlink rename once generation succeeds, so readers never see a partial site.
+     */
+    ATOMIC
+}
@@ -0,0 +1,14 @@
+package dev.foxxie911.config;
+
+/**
+ * How articles are assigned to shards. Both strategies are deterministic, so every
+ * process agrees on the partition without coordinating.
+ */
+public enum ShardStrategy {
+    
+    /** Assigns articles by a hash of their path relative to the article directory. */
+    HASH,
+    
+    /** Assigns articles by the publication year in their filename. */
+    YEAR
+}
@@ -1,6 +1,28 @@
 package dev.foxxie911.models;
 
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.List;
 
-public record Article(String title, LocalDate createdAt, String body) {
+public record Article(
+        String title,
+        LocalDate createdAt,
+        String body,
+        List<String> links,
+        ArticleStatistics statistics,
+        Path bodySource,
+        Path source) {
+    
+    public Article(String title, LocalDate createdAt, String body, List<String> links,
+            ArticleStatistics statistics) {
+        this(title, createdAt, body, links, statistics, null, null);
+    }
+    
+    public Article(String title, LocalDate createdAt, String body, List<String> links) {
+        this(title, createdAt, body, links, ArticleStatistics.EMPTY);
+    }
+    
+    public Article(String title, LocalDate createdAt, String body) {
+        this(title, createdAt, body, List.of());
+    }
 }
@@ -1,4 +1,4 @@
 package dev.foxxie911.models;
 
-public record ArticleList(String title, String link) {
+public record ArticleList(String title, String link, ArticleStatistics statistics) {
 }
@@ -0,0 +1,10 @@
+package dev.foxxie911.models;
+
+import java.util.List;
+
+public record ArticlePageContext(Article article, List<ArticleList> relatedArticles) {
+    
+    public boolean hasRelatedArticles() {
+        return !relatedArticles.isEmpty();
+    }
+}
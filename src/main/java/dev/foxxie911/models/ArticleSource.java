@@ -0,0 +1,7 @@
+package dev.foxxie911.models;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+public record ArticleSource(Path path, BasicFileAttributes attributes) {
+}
@@ -0,0 +1,6 @@
+package dev.foxxie911.models;
+
+public record ArticleStatistics(int wordCount, int readingMinutes, String excerpt) {
+    
+    public static final ArticleStatistics EMPTY = new ArticleStatistics(0, 0, "");
+}
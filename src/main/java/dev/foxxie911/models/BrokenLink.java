@@ -0,0 +1,4 @@
+package dev.foxxie911.models;
+
+public record BrokenLink(String sourcePage, String target) {
+}
@@ -0,0 +1,11 @@
+package dev.foxxie911.models;
+
+public record BuildFailure(
+        String stage,
+        String file,
+        String exception,
+        String message,
+        long durationMillis,
+        long elapsedMillis,
+        String thread) {
+}
@@ -0,0 +1,6 @@
+package dev.foxxie911.models;
+
+import java.util.Map;
+
+public record BuildFingerprint(String root, Map<String, String> components) {
+}
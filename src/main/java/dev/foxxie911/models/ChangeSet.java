@@ -0,0 +1,11 @@
+package dev.foxxie911.models;
+
+import java.util.List;
+
+public record ChangeSet(
+        String createdAt,
+        int unchangedCount,
+        List<ChangedFile> added,
+        List<ChangedFile> modified,
+        List<ChangedFile> removed) {
+}
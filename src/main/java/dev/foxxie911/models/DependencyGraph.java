@@ -0,0 +1,6 @@
+package dev.foxxie911.models;
+
+import java.util.Map;
+
+public record DependencyGraph(int version, String generator, Map<String, PageDependencies> pages) {
+}
@@ -0,0 +1,6 @@
+package dev.foxxie911.models;
+
+import java.util.List;
+
+public record DiagnosticsReport(String errorPolicy, boolean aborted, int failureCount, List<BuildFailure> failures) {
+}
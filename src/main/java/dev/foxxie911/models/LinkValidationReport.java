@@ -0,0 +1,10 @@
+package dev.foxxie911.models;
+
+import java.util.List;
+
+public record LinkValidationReport(int checkedLinks, List<BrokenLink> brokenLinks) {
+    
+    public boolean hasBrokenLinks() {
+        return !brokenLinks.isEmpty();
+    }
+}
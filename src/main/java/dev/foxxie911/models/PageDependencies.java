@@ -0,0 +1,14 @@
+package dev.foxxie911.models;
+
+import java.util.List;
+import java.util.Map;
+
+public record PageDependencies(
+        String source,
+        String title,
+        String createdAt,
+        List<String> links,
+        ArticleStatistics statistics,
+        String parsedBody,
+        Map<String, String> inputs) {
+}
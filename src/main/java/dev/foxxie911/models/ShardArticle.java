@@ -0,0 +1,11 @@
+package dev.foxxie911.models;
+
+import java.util.List;
+
+public record ShardArticle(
+        String title,
+        String createdAt,
+        String pagePath,
+        List<String> links,
+        ArticleStatistics statistics) {
+}
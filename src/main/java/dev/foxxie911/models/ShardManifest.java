@@ -0,0 +1,6 @@
+package dev.foxxie911.models;
+
+import java.util.List;
+
+public record ShardManifest(int shardIndex, int shardCount, List<ShardArticle> articles) {
+}
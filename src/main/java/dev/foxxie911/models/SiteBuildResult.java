@@ -0,0 +1,4 @@
+package dev.foxxie911.models;
+
+public record SiteBuildResult(String site, boolean succeeded, long durationMillis, String error) {
+}
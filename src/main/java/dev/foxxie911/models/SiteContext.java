@@ -0,0 +1,4 @@
+package dev.foxxie911.models;
+
+public record SiteContext(String blogName, String blogBio) {
+}
@@ -1,9 +1,11 @@
 package dev.foxxie911.repository;
 
 import java.util.List;
+import java.util.Optional;
 
 import dev.foxxie911.exception.FileProcessingException;
 import dev.foxxie911.models.Article;
+import dev.foxxie911.models.ArticleSource;
 
 /**
  * Repository interface for article data access operations.
@@ -26,4 +28,36 @@ public interface ArticleRepository {
      * @throws FileProcessingException if there are issues accessing the article source
      */
     boolean hasArticles() throws FileProcessingException;
+    
+    /**
+     * Walks the configured source and hands each candidate article file to the visitor
+     * as soon as it is found, without parsing it.
+     * 
+     * @param visitor the callback receiving each source
+     * @throws FileProcessingException if there are issues accessing the article source
+     * @throws InterruptedException if the walk was interrupted while the visitor was blocked
+     */
+    void walkArticleSources(ArticleSourceVisitor visitor) throws FileProcessingException, InterruptedException;
+    
+    /**
+     * Walks the configured source like {@link #walkArticleSources(ArticleSourceVisitor)}, but includes
+     * the sources of every shard rather than only those built by this process.
+     * 
+     * @param visitor the callback receiving each source
+     * @throws FileProcessingException if there are issues accessing the article source
+     * @throws InterruptedException if the walk was interrupted while the visitor was blocked
+     */
+    void walkAllArticleSources(ArticleSourceVisitor visitor) throws FileProcessingException, InterruptedException;
+    
+    /**
+     * Reads and parses a single article source found by {@link #walkArticleSources(ArticleSourceVisitor)}.
+     * Sources above the large article threshold keep their body out of memory, see
+     * {@link dev.foxxie911.service.ArticleParsingService#parseLargeArticle}.
+     * 
+     * @param source the article source
+     * @return Optional containing the parsed article, or empty if the source is not a valid article
+     *         or could not be parsed and the error policy lets the build go on
+     * @throws FileProcessingException if the source could not be parsed and the error policy aborts the build
+     */
+    Optional<Article> loadArticle(ArticleSource source) throws FileProcessingException;
 }
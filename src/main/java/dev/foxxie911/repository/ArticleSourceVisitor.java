@@ -0,0 +1,19 @@
+package dev.foxxie911.repository;
+
+import dev.foxxie911.models.ArticleSource;
+
+/**
+ * Callback receiving article sources as a repository walk discovers them.
+ * Implementations may block to apply backpressure to the walk.
+ */
+@FunctionalInterface
+public interface ArticleSourceVisitor {
+    
+    /**
+     * Handles a discovered article source.
+     * 
+     * @param source the article file and its attributes
+     * @throws InterruptedException if the visitor was interrupted while waiting to accept the source
+     */
+    void visit(ArticleSource source) throws InterruptedException;
+}
@@ -1,12 +1,14 @@
 package dev.foxxie911.repository;
 
 import java.io.IOException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -15,9 +17,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.config.BuildMode;
+import dev.foxxie911.config.ShardStrategy;
 import dev.foxxie911.exception.FileProcessingException;
 import dev.foxxie911.models.Article;
+import dev.foxxie911.models.ArticleSource;
+import dev.foxxie911.service.ArticleDates;
+import dev.foxxie911.service.ArticlePaths;
 import dev.foxxie911.service.ArticleParsingService;
+import dev.foxxie911.service.DiagnosticsCollector;
 
 /**
  * File system implementation of ArticleRepository.
@@ -30,49 +38,45 @@ public class FileSystemArticleRepository implements ArticleRepository {
     
     private final BlogConfiguration configuration;
     private final ArticleParsingService parsingService;
+    private final DiagnosticsCollector diagnostics;
     
     /**
      * Constructs a new FileSystemArticleRepository.
      * 
      * @param configuration the blog configuration
      * @param parsingService the service for parsing article files
+     * @param diagnostics the collector that records unreadable and unparsable files
      */
     @Inject
-    public FileSystemArticleRepository(BlogConfiguration configuration, ArticleParsingService parsingService) {
+    public FileSystemArticleRepository(
+            BlogConfiguration configuration,
+            ArticleParsingService parsingService,
+            DiagnosticsCollector diagnostics) {
+        
         this.configuration = configuration;
         this.parsingService = parsingService;
+        this.diagnostics = diagnostics;
     }
     
     @Override
     public List<Article> findAll() throws FileProcessingException {
-        Path articlePath = configuration.getArticlePath();
-        
-        logger.info("Searching for articles in: {}", articlePath);
-        
-        if (!Files.exists(articlePath)) {
-            logger.warn("Article directory does not exist: {}", articlePath);
-            return Collections.emptyList();
+        List<ArticleSource> sources = new ArrayList<>();
+        try {
+            walkArticleSources(sources::add);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileProcessingException("Interrupted while reading article directory", e,
+                configuration.getArticlePath());
         }
         
-        if (!Files.isDirectory(articlePath)) {
-            throw new FileProcessingException("Configured article path is not a directory: " + articlePath, articlePath);
+        List<Article> articles = new ArrayList<>();
+        for (ArticleSource source : sources) {
+            loadArticle(source).ifPresent(articles::add);
         }
+        articles.sort(ArticleDates.NEWEST_FIRST);
         
-        try (var stream = Files.walk(articlePath)) {
-            List<Article> articles = stream
-                .filter(Files::isRegularFile)
-                .map(this::parseArticleFile)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .sorted((a1, a2) -> a2.createdAt().compareTo(a1.createdAt())) // Newest first
-                .collect(Collectors.toList());
-            
-            logger.info("Found {} articles", articles.size());
-            return articles;
-            
-        } catch (IOException e) {
-            throw new FileProcessingException("Failed to read article directory: " + articlePath, e, articlePath);
-        }
+        logger.info("Found {} articles", articles.size());
+        return articles;
     }
     
     @Override
@@ -90,19 +94,132 @@ public class FileSystemArticleRepository implements ArticleRepository {
         }
     }
     
+    @Override
+    public void walkArticleSources(ArticleSourceVisitor visitor) throws FileProcessingException, InterruptedException {
+        walk(visitor, true);
+    }
+    
+    @Override
+    public void walkAllArticleSources(ArticleSourceVisitor visitor)
+            throws FileProcessingException, InterruptedException {
+        walk(visitor, false);
+    }
+    
     /**
-     * Parses a single article file.
+     * Walks the article directory and hands each regular file to the visitor.
      * 
-     * @param filePath the path to the article file
-     * @return Optional containing the parsed article, or empty if parsing failed
+     * @param visitor the callback receiving each source
+     * @param ownShardOnly whether to skip files that belong to other shards
+     * @throws FileProcessingException if there are issues accessing the article directory
+     * @throws InterruptedException if the walk was interrupted while the visitor was blocked
      */
-    private Optional<Article> parseArticleFile(Path filePath) {
+    private void walk(ArticleSourceVisitor visitor, boolean ownShardOnly)
+            throws FileProcessingException, InterruptedException {
+        Path articlePath = configuration.getArticlePath();
+        
+        logger.info("Searching for articles in: {}", articlePath);
+        
+        if (!Files.exists(articlePath)) {
+            logger.warn("Article directory does not exist: {}", articlePath);
+            return;
+        }
+        
+        if (!Files.isDirectory(articlePath)) {
+            throw new FileProcessingException("Configured article path is not a directory: " + articlePath,
+                articlePath);
+        }
+        
+        // The walk reports each file's attributes, which are passed on so parsing doesn't read them again
+        InterruptedException[] interruption = new InterruptedException[1];
+        try {
+            Files.walkFileTree(articlePath, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (!attributes.isRegularFile() || ownShardOnly && !belongsToShard(articlePath, file)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    try {
+                        visitor.visit(new ArticleSource(file, attributes));
+                        return FileVisitResult.CONTINUE;
+                    } catch (InterruptedException e) {
+                        interruption[0] = e;
+                        return FileVisitResult.TERMINATE;
+                    }
+                }
+                
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                    if (diagnostics.record("walk", file, exc, System.nanoTime())) {
+                        throw exc;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to read article directory: " + articlePath, e, articlePath);
+        }
+        
+        if (interruption[0] != null) {
+            throw interruption[0];
+        }
+    }
+    
+    @Override
+    public Optional<Article> loadArticle(ArticleSource source) throws FileProcessingException {
+        Path filePath = source.path();
+        long startNanos = System.nanoTime();
         try {
             logger.debug("Parsing article file: {}", filePath.getFileName());
-            return parsingService.parseArticle(filePath);
+            if (configuration.getPerformance().isLargeArticle(source.attributes().size())) {
+                return parsingService.parseLargeArticle(filePath, source.attributes());
+            }
+            return parsingService.parseArticle(filePath, source.attributes());
         } catch (Exception e) {
-            logger.error("Failed to parse article file: {}", filePath.getFileName(), e);
+            if (diagnostics.record("parse", filePath, e, startNanos)) {
+                throw e instanceof FileProcessingException fileError ? fileError
+                    : new FileProcessingException("Failed to parse article file", e, filePath);
+            }
             return Optional.empty();
         }
     }
+    
+    /**
+     * Checks whether an article file belongs to the shard built by this process.
+     * Every file belongs to the build unless it runs in {@link BuildMode#SHARD} mode.
+     * Articles are keyed by the page they produce rather than their source path, so an article
+     * moved to another directory stays with the shard whose ledger already tracks its page.
+     * 
+     * @param articlePath the article directory
+     * @param filePath the article file
+     * @return true if the file should be built by this process
+     */
+    private boolean belongsToShard(Path articlePath, Path filePath) {
+        if (configuration.getBuildMode() != BuildMode.SHARD || configuration.getShardCount() == 1) {
+            return true;
+        }
+        
+        String fileName = filePath.getFileName().toString();
+        int shardKey;
+        if (configuration.getShardStrategy() == ShardStrategy.YEAR && startsWithYear(filePath)) {
+            shardKey = Integer.parseInt(fileName.substring(0, 4));
+        } else {
+            String pagePath = ArticlePaths.pagePathOf(fileName);
+            // A file that is not an article produces no page, so any stable key will do
+            shardKey = (pagePath != null ? pagePath : articlePath.relativize(filePath).toString()).hashCode();
+        }
+        return Math.floorMod(shardKey, configuration.getShardCount()) == configuration.getShardIndex();
+    }
+    
+    private static boolean startsWithYear(Path filePath) {
+        String fileName = filePath.getFileName().toString();
+        if (fileName.length() < 4) {
+            return false;
+        }
+        for (int i = 0; i < 4; i++) {
+            if (!Character.isDigit(fileName.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
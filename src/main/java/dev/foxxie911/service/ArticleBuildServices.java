@@ -0,0 +1,16 @@
+package dev.foxxie911.service;
+
+/**
+ * Components that produce the articles of a build: related articles are ranked first, since
+ * every page lists them, then the pipeline builds the article pages, or the merge step reads
+ * the articles the shards built from their manifests.
+ * 
+ * @param relatedArticlesService the ranking of related articles
+ * @param buildPipeline the staged build of article pages
+ * @param shardManifestService the exchange of built articles between shards and the merge step
+ */
+public record ArticleBuildServices(
+        RelatedArticlesService relatedArticlesService,
+        BuildPipeline buildPipeline,
+        ShardManifestService shardManifestService) {
+}
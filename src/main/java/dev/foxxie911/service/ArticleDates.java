@@ -0,0 +1,69 @@
+package dev.foxxie911.service;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.Comparator;
+
+import dev.foxxie911.models.Article;
+
+/**
+ * Date handling shared by everything that orders articles.
+ * Article file names start with their {@code yyyy-MM-dd} publication date, which is
+ * parsed here by hand so ordering a large source tree allocates no parser state per file.
+ */
+public final class ArticleDates {
+    
+    /**
+     * Orders articles newest first, by title within the same day.
+     */
+    public static final Comparator<Article> NEWEST_FIRST = Comparator.comparing(Article::createdAt)
+        .thenComparing(Article::title, Comparator.reverseOrder())
+        .reversed();
+    
+    private ArticleDates() {
+    }
+    
+    /**
+     * Parses the {@code yyyy-MM-dd} date an article file name starts with.
+     * 
+     * @param fileName the article file name
+     * @return the publication date, or null if the name does not start with a valid date
+     */
+    public static LocalDate parseFileNameDate(CharSequence fileName) {
+        if (fileName.length() < 10 || fileName.charAt(4) != '-' || fileName.charAt(7) != '-') {
+            return null;
+        }
+        
+        int year = parseDigits(fileName, 0, 4);
+        int month = parseDigits(fileName, 5, 7);
+        int day = parseDigits(fileName, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1) {
+            return null;
+        }
+        if (day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+    
+    /**
+     * Parses a run of decimal digits.
+     * 
+     * @param text the text containing the digits
+     * @param start the index of the first digit
+     * @param end the index after the last digit
+     * @return the parsed value, or -1 if the range contains anything but digits
+     */
+    private static int parseDigits(CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -1,6 +1,9 @@
 package dev.foxxie911.service;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Optional;
 
 import dev.foxxie911.exception.FileProcessingException;
@@ -21,6 +24,50 @@ public interface ArticleParsingService {
      */
     Optional<Article> parseArticle(Path filePath) throws FileProcessingException;
     
+    /**
+     * Parses an article file using attributes already read during a directory walk.
+     * Implementations can use the attributes to avoid additional filesystem calls.
+     * 
+     * @param filePath the path to the article file
+     * @param attributes the file attributes reported by the directory walk
+     * @return Optional containing the parsed article, or empty if parsing failed
+     * @throws FileProcessingException if there are issues reading or parsing the file
+     */
+    default Optional<Article> parseArticle(Path filePath, BasicFileAttributes attributes)
+            throws FileProcessingException {
+        return parseArticle(filePath);
+    }
+    
+    /**
+     * Parses an article file too large to hold its text and rendered body in memory.
+     * The returned article has an empty body and names its source in {@link Article#bodySource()},
+     * so the body can be rendered straight into the page with {@link #renderBody(Path, Writer)}.
+     * 
+     * @param filePath the path to the article file
+     * @param attributes the file attributes reported by the directory walk
+     * @return Optional containing the parsed article, or empty if parsing failed
+     * @throws FileProcessingException if there are issues reading or parsing the file
+     */
+    default Optional<Article> parseLargeArticle(Path filePath, BasicFileAttributes attributes)
+            throws FileProcessingException {
+        return parseArticle(filePath, attributes);
+    }
+    
+    /**
+     * Renders the body of an article file as HTML to a writer.
+     * 
+     * @param filePath the path to the article file
+     * @param out the writer receiving the HTML
+     * @throws FileProcessingException if there are issues reading or parsing the file
+     * @throws IOException if the HTML cannot be written
+     */
+    default void renderBody(Path filePath, Writer out) throws FileProcessingException, IOException {
+        Optional<Article> article = parseArticle(filePath);
+        if (article.isPresent()) {
+            out.write(article.get().body());
+        }
+    }
+    
     /**
      * Validates if a file path represents a valid article file.
      * 
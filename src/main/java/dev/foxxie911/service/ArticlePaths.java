@@ -0,0 +1,50 @@
+package dev.foxxie911.service;
+
+import java.util.regex.Pattern;
+
+import dev.foxxie911.models.Article;
+
+/**
+ * Output locations of article pages, shared by page generation and shard assignment.
+ * A page path depends only on the date and title an article file name carries, so moving
+ * a source to another directory never moves its page.
+ */
+public final class ArticlePaths {
+    
+    private static final Pattern LINK_UNSAFE_CHARACTERS = Pattern.compile("[\\p{Punct}\\s]");
+    
+    private ArticlePaths() {
+    }
+    
+    /**
+     * Builds the link of an article page relative to the articles directory.
+     * 
+     * @param article the article to link to
+     * @return the link in {@code year/MONTH/Title.html} form
+     */
+    public static String articleLink(Article article) {
+        int year = article.createdAt().getYear();
+        String month = article.createdAt().getMonth().toString();
+        return year + "/" + month + "/" + LINK_UNSAFE_CHARACTERS.matcher(article.title()).replaceAll("") + ".html";
+    }
+    
+    /**
+     * Gets the site-relative output path of an article page.
+     * 
+     * @param article the article to locate
+     * @return the page path relative to the site root, using forward slashes
+     */
+    public static String pagePath(Article article) {
+        return "articles/" + articleLink(article);
+    }
+    
+    /**
+     * Gets the site-relative output path of the page an article file produces, without reading the file.
+     * 
+     * @param fileName the article file name
+     * @return the page path, or null if the name is not a valid article name
+     */
+    public static String pagePathOf(String fileName) {
+        return MarkdownParsingService.articleHeader(fileName).map(ArticlePaths::pagePath).orElse(null);
+    }
+}
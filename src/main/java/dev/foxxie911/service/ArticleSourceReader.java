@@ -0,0 +1,136 @@
+package dev.foxxie911.service;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads article sources into per-thread reusable character buffers.
+ * Large files are memory-mapped instead of copied onto the heap, and the decoded
+ * characters are handed to CommonMark through a {@link Reader} without building a String.
+ */
+public class ArticleSourceReader {
+    
+    /** Files at or above this size are memory-mapped rather than read into a heap buffer. */
+    static final long MAP_THRESHOLD_BYTES = 64 * 1024;
+    
+    /** Buffers that grew beyond this size are released after use instead of being kept per thread. */
+    private static final int MAX_RETAINED_CHARS = 4 * 1024 * 1024;
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+    
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+    
+    /**
+     * Reads and decodes a UTF-8 file.
+     * The returned buffer belongs to the calling thread and is only valid until its next read.
+     * 
+     * @param filePath the file to read
+     * @param size the file size, as reported by the directory walk
+     * @return a flipped buffer holding the decoded characters
+     * @throws IOException if the file cannot be read or is not valid UTF-8
+     */
+    public CharBuffer read(Path filePath, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Article file is too large to read: " + filePath);
+        }
+        
+        Buffers threadBuffers = buffers.get();
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            ByteBuffer bytes = size >= MAP_THRESHOLD_BYTES
+                ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+                : threadBuffers.readFully(channel, (int) size);
+            return threadBuffers.decode(bytes);
+        }
+    }
+    
+    /**
+     * Wraps a buffer returned by {@link #read(Path, long)} in a reader without copying it.
+     * 
+     * @param content the decoded content
+     * @return a reader over the buffer's remaining characters
+     */
+    public Reader asReader(CharBuffer content) {
+        return new CharArrayReader(content.array(), content.arrayOffset() + content.position(), content.remaining());
+    }
+    
+    /**
+     * Checks whether a buffer contains only whitespace.
+     * 
+     * @param content the decoded content
+     * @return true if there are no non-whitespace characters
+     */
+    public boolean isBlank(CharBuffer content) {
+        for (int i = content.position(); i < content.limit(); i++) {
+            if (!Character.isWhitespace(content.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Releases oversized buffers held by the calling thread.
+     */
+    public void trim() {
+        buffers.get().trim();
+    }
+    
+    /**
+     * Per-thread decoder state and reusable buffers.
+     */
+    private static final class Buffers {
+        
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        private ByteBuffer byteBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        private CharBuffer charBuffer = CharBuffer.allocate(INITIAL_BUFFER_SIZE);
+        
+        ByteBuffer readFully(FileChannel channel, int size) throws IOException {
+            if (byteBuffer.capacity() < size) {
+                byteBuffer = ByteBuffer.allocate(size);
+            }
+            byteBuffer.clear().limit(size);
+            while (byteBuffer.hasRemaining() && channel.read(byteBuffer) >= 0) {
+                // keep reading until the buffer is full or the file ends early
+            }
+            return byteBuffer.flip();
+        }
+        
+        CharBuffer decode(ByteBuffer bytes) throws IOException {
+            // UTF-8 never decodes to more chars than bytes
+            if (charBuffer.capacity() < bytes.remaining()) {
+                charBuffer = CharBuffer.allocate(bytes.remaining());
+            }
+            charBuffer.clear();
+            decoder.reset();
+            
+            CoderResult result = decoder.decode(bytes, charBuffer, true);
+            if (result.isUnderflow()) {
+                result = decoder.flush(charBuffer);
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            return charBuffer.flip();
+        }
+        
+        void trim() {
+            if (charBuffer.capacity() > MAX_RETAINED_CHARS) {
+                charBuffer = CharBuffer.allocate(INITIAL_BUFFER_SIZE);
+            }
+            if (byteBuffer.capacity() > MAX_RETAINED_CHARS) {
+                byteBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package dev.foxxie911.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import javax.inject.Singleton;
+
+/**
+ * Listings of the bundled asset directories, shared by every build running in the process.
+ * Assets are the same for every site, so the directories are walked once and each later
+ * build only copies the files.
+ */
+@Singleton
+public class AssetCache {
+    
+    private final Map<Path, List<Path>> listings = new ConcurrentHashMap<>();
+    
+    /**
+     * Lists the regular files below an asset directory, walking it on first use only.
+     * 
+     * @param directory the asset directory
+     * @return the files, as absolute paths in walk order
+     * @throws IOException if the directory cannot be walked
+     */
+    public List<Path> listFiles(Path directory) throws IOException {
+        try {
+            return listings.computeIfAbsent(directory.toAbsolutePath(), AssetCache::walk);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    private static List<Path> walk(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package dev.foxxie911.service;
 
 import java.io.IOException;
-import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -16,18 +26,33 @@ import dev.foxxie911.exception.FileProcessingException;
 
 /**
  * Service for managing static assets like CSS files and fonts.
- * Handles copying and organizing asset files for the generated blog.
+ * Handles copying and organizing asset files for the generated blog. The assets are bundled
+ * resources, found on the classpath like the page templates.
  */
 @Singleton
 public class AssetManagementService {
     
     private static final Logger logger = LoggerFactory.getLogger(AssetManagementService.class);
+    private static final String STYLES_DIRECTORY = "styles";
+    private static final String FONTS_DIRECTORY = "fonts";
     
     private final BlogConfiguration configuration;
+    private final SiteOutputService outputService;
+    private final AssetCache assetCache;
+    private final DiagnosticsCollector diagnostics;
+    private final Set<String> assetManifest = ConcurrentHashMap.newKeySet();
     
     @Inject
-    public AssetManagementService(BlogConfiguration configuration) {
+    public AssetManagementService(
+            BlogConfiguration configuration,
+            SiteOutputService outputService,
+            AssetCache assetCache,
+            DiagnosticsCollector diagnostics) {
+        
         this.configuration = configuration;
+        this.outputService = outputService;
+        this.assetCache = assetCache;
+        this.diagnostics = diagnostics;
     }
     
     /**
@@ -36,36 +61,7 @@ public class AssetManagementService {
      * @throws FileProcessingException if there are issues copying stylesheet files
      */
     public void copyStylesheets() throws FileProcessingException {
-        Path sourceStylesPath = Paths.get("src/main/resources/styles").toAbsolutePath();
-        Path targetStylesPath = configuration.getSitePath().resolve("styles");
-        
-        logger.info("Copying stylesheets from {} to {}", sourceStylesPath, targetStylesPath);
-        
-        if (!Files.exists(sourceStylesPath)) {
-            logger.warn("Stylesheet directory does not exist: {}", sourceStylesPath);
-            return;
-        }
-        
-        try {
-            Files.createDirectories(targetStylesPath);
-            Files.walk(sourceStylesPath)
-                .filter(Files::isRegularFile)
-                .forEach(sourceFile -> {
-                    try {
-                        Path relativePath = sourceStylesPath.relativize(sourceFile);
-                        Path targetFile = targetStylesPath.resolve(relativePath);
-                        Files.createDirectories(targetFile.getParent());
-                        Files.copy(sourceFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
-                        logger.debug("Copied stylesheet: {}", relativePath);
-                    } catch (IOException e) {
-                        logger.error("Failed to copy stylesheet: {}", sourceFile.getFileName(), e);
-                    }
-                });
-                
-            logger.info("Successfully copied stylesheet files");
-        } catch (IOException e) {
-            throw new FileProcessingException("Failed to copy stylesheet files");
-        }
+        copyAssetDirectory(STYLES_DIRECTORY, "stylesheet");
     }
     
     /**
@@ -74,40 +70,7 @@ public class AssetManagementService {
      * @throws FileProcessingException if there are issues copying font files
      */
     public void copyFonts() throws FileProcessingException {
-        Path sourceFontsPath = Paths.get("src/main/resources/fonts").toAbsolutePath();
-        Path targetFontsPath = configuration.getSitePath().resolve("fonts");
-        
-        logger.info("Copying fonts from {} to {}", sourceFontsPath, targetFontsPath);
-        
-        if (!Files.exists(sourceFontsPath)) {
-            logger.warn("Fonts directory does not exist: {}", sourceFontsPath);
-            return;
-        }
-        
-        try {
-            Files.createDirectories(targetFontsPath);
-            Files.walkFileTree(sourceFontsPath, new SimpleFileVisitor<Path>() {
-                @Override
-                public @Nonnull FileVisitResult visitFile(@Nonnull Path file, @Nonnull BasicFileAttributes attrs) throws IOException {
-                    Path relativePath = sourceFontsPath.relativize(file);
-                    Path targetFile = targetFontsPath.resolve(relativePath);
-                    Files.createDirectories(targetFile.getParent());
-                    Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
-                    logger.debug("Copied font: {}", relativePath);
-                    return FileVisitResult.CONTINUE;
-                }
-                
-                @Override
-                public FileVisitResult visitFileFailed(Path file, IOException exc) {
-                    logger.error("Failed to copy font file: {}", file.getFileName(), exc);
-                    return FileVisitResult.CONTINUE;
-                }
-            });
-            
-            logger.info("Successfully copied font files");
-        } catch (IOException e) {
-            throw new FileProcessingException("Failed to copy font files");
-        }
+        copyAssetDirectory(FONTS_DIRECTORY, "font");
     }
     
     /**
@@ -119,4 +82,134 @@ public class AssetManagementService {
         copyStylesheets();
         copyFonts();
     }
+    
+    /**
+     * Gets the paths of all assets copied so far, relative to the site root.
+     * 
+     * @return an unmodifiable view of the copied asset paths
+     */
+    public Set<String> getAssetManifest() {
+        return Collections.unmodifiableSet(assetManifest);
+    }
+    
+    /**
+     * Gets the bundled directories whose files are copied into the site.
+     * 
+     * @return the paths of the asset directories
+     * @throws FileProcessingException if a directory inside the generator's jar cannot be opened
+     */
+    static List<Path> sourceDirectories() throws FileProcessingException {
+        List<Path> directories = new ArrayList<>();
+        for (String directoryName : List.of(STYLES_DIRECTORY, FONTS_DIRECTORY)) {
+            Path directory = sourceDirectory(directoryName);
+            if (directory != null) {
+                directories.add(directory);
+            }
+        }
+        return directories;
+    }
+    
+    /**
+     * Finds a bundled asset directory on the classpath. Inside a jar the directory is read
+     * through the jar's file system, which stays open for the life of the process.
+     * 
+     * @param directoryName the asset directory name, relative to the classpath root
+     * @return the path of the directory, or null if nothing is bundled under that name
+     * @throws FileProcessingException if the jar cannot be opened
+     */
+    static Path sourceDirectory(String directoryName) throws FileProcessingException {
+        URL resource = AssetManagementService.class.getClassLoader().getResource(directoryName);
+        if (resource == null) {
+            return null;
+        }
+        try {
+            URI uri = resource.toURI();
+            if ("jar".equals(uri.getScheme())) {
+                try {
+                    FileSystems.newFileSystem(uri, Map.of());
+                } catch (FileSystemAlreadyExistsException e) {
+                    // opened by an earlier lookup
+                }
+            }
+            return Path.of(uri);
+        } catch (URISyntaxException | IOException e) {
+            throw new FileProcessingException("Failed to open asset directory: " + resource, e,
+                Path.of(directoryName));
+        }
+    }
+    
+    /**
+     * Records a copied asset in the manifest.
+     * 
+     * @param targetFile the absolute path of the copied asset
+     */
+    private void recordAsset(Path targetFile) {
+        assetManifest.add(outputService.toSitePath(targetFile));
+    }
+    
+    /**
+     * Copies every file of a bundled asset directory into the same-named directory of the site.
+     * A file that fails to copy is recorded as a build failure and, unless the error policy
+     * aborts the build, skipped so the remaining assets are still copied.
+     * 
+     * @param directoryName the asset directory name, relative to the classpath root
+     * @param assetKind the kind of asset, for log messages
+     * @throws FileProcessingException if the asset directory cannot be read, or a file cannot be copied
+     *         and the error policy aborts the build
+     */
+    private void copyAssetDirectory(String directoryName, String assetKind) throws FileProcessingException {
+        Path sourcePath = sourceDirectory(directoryName);
+        Path targetPath = outputService.getOutputRoot().resolve(directoryName);
+        
+        if (sourcePath == null) {
+            logger.warn("Asset directory is not on the classpath: {}", directoryName);
+            return;
+        }
+        
+        logger.info("Copying {}s from {} to {}", assetKind, sourcePath, targetPath);
+        
+        if (!Files.exists(sourcePath)) {
+            logger.warn("Asset directory does not exist: {}", sourcePath);
+            return;
+        }
+        
+        List<Path> sourceFiles;
+        try {
+            sourceFiles = assetCache.listFiles(sourcePath);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to list " + assetKind + " files", e, sourcePath);
+        }
+        
+        List<String> targetPaths = new ArrayList<>(sourceFiles.size());
+        for (Path sourceFile : sourceFiles) {
+            targetPaths.add(directoryName + "/" + toUnixPath(sourcePath.relativize(sourceFile)));
+        }
+        try {
+            outputService.prepareDirectories(targetPaths);
+        } catch (FileProcessingException e) {
+            // Each copy creates its directories again, so the files that fail are recorded on their own
+            logger.warn("Failed to prepare {} directories in {}", assetKind, targetPath, e);
+        }
+        
+        for (int i = 0; i < sourceFiles.size(); i++) {
+            Path sourceFile = sourceFiles.get(i);
+            long startNanos = System.nanoTime();
+            try {
+                Path relativePath = sourcePath.relativize(sourceFile);
+                Path targetFile = outputService.copyFile(sourceFile, targetPaths.get(i));
+                recordAsset(targetFile);
+                logger.debug("Copied {}: {}", assetKind, relativePath);
+            } catch (IOException e) {
+                if (diagnostics.record("assets", sourceFile, e, startNanos)) {
+                    throw new FileProcessingException("Failed to copy " + assetKind, e, sourceFile);
+                }
+            }
+        }
+        
+        logger.info("Successfully copied {} files", assetKind);
+    }
+    
+    private static String toUnixPath(Path relativePath) {
+        return relativePath.toString().replace('\\', '/');
+    }
 }
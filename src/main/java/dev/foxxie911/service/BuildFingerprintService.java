@@ -0,0 +1,308 @@
+package dev.foxxie911.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.config.BuildMode;
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.BuildFingerprint;
+
+/**
+ * Fingerprints everything a build reads, so a build whose inputs are unchanged can be skipped.
+ * Each input (articles, templates, theme, assets, configuration and the generator itself) is summarised
+ * by its own digest, and the fingerprint is the digest of those. Directories are summarised from
+ * the paths, sizes and modification times of their files, so no file content is read except the
+ * templates. Templates and assets are both fingerprinted where the build reads them from, the classpath.
+ * The fingerprint of the last successful build is kept under the cache path.
+ */
+@Singleton
+public class BuildFingerprintService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BuildFingerprintService.class);
+    private static final HexFormat HEX = HexFormat.of();
+    private static final String ROOT = "root";
+    
+    private final BlogConfiguration configuration;
+    
+    @Inject
+    public BuildFingerprintService(BlogConfiguration configuration) {
+        this.configuration = configuration;
+    }
+    
+    /**
+     * Computes the fingerprint of the current build inputs.
+     * 
+     * @return the fingerprint
+     * @throws FileProcessingException if an input directory cannot be walked
+     */
+    public BuildFingerprint computeFingerprint() throws FileProcessingException {
+        long startNanos = System.nanoTime();
+        Map<String, String> components = new LinkedHashMap<>();
+        components.put("generator", generatorVersion());
+        String settings = configuration.describeOutputSettings();
+        components.put("configuration", digest(settings.getBytes(StandardCharsets.UTF_8)));
+        components.put("templates", templatesDigest());
+        if (configuration.getThemePath() != null) {
+            components.put("theme", treeDigest(List.of(configuration.getThemePath())));
+        }
+        components.put("assets", treeDigest(AssetManagementService.sourceDirectories()));
+        components.put("articles", treeDigest(List.of(configuration.getArticlePath())));
+        if (configuration.getBuildMode() == BuildMode.MERGE) {
+            components.put("shards", treeDigest(List.of(
+                configuration.getCachePath().resolve(ShardManifestService.MANIFEST_DIRECTORY))));
+        }
+        
+        MessageDigest root = newDigest();
+        components.forEach((name, value) -> root.update((name + "=" + value + "\n").getBytes(StandardCharsets.UTF_8)));
+        BuildFingerprint fingerprint = new BuildFingerprint(HEX.formatHex(root.digest()), components);
+        
+        logger.debug("Computed build fingerprint {} in {} ms", fingerprint.root(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return fingerprint;
+    }
+    
+    /**
+     * Checks whether a fingerprint matches the last successful build, whose output is still in place.
+     * Always false when skipping unchanged builds is disabled.
+     * 
+     * @param fingerprint the fingerprint of the current inputs
+     * @return true if the build can be skipped
+     * @throws FileProcessingException if the stored fingerprint exists but cannot be read
+     */
+    public boolean matchesLastBuild(BuildFingerprint fingerprint) throws FileProcessingException {
+        if (!configuration.isSkipUnchangedBuilds() || !Files.exists(configuration.getSitePath())) {
+            return false;
+        }
+        
+        Map<String, String> previous = load();
+        if (fingerprint.root().equals(previous.get(ROOT))) {
+            return true;
+        }
+        
+        if (!previous.isEmpty()) {
+            List<String> changed = fingerprint.components().keySet().stream()
+                .filter(name -> !fingerprint.components().get(name).equals(previous.get(name)))
+                .toList();
+            logger.info("Build inputs changed since the last build: {}", String.join(", ", changed));
+        }
+        return false;
+    }
+    
+    /**
+     * Forgets the fingerprint of the last build. Called before the output is touched, so a build
+     * that fails halfway is never mistaken for a complete one.
+     * 
+     * @throws FileProcessingException if the stored fingerprint cannot be deleted
+     */
+    public void invalidate() throws FileProcessingException {
+        Path fingerprintFile = fingerprintFile();
+        try {
+            Files.deleteIfExists(fingerprintFile);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to delete build fingerprint", e, fingerprintFile);
+        }
+    }
+    
+    /**
+     * Stores the fingerprint of a successful build, replacing any previous one atomically.
+     * 
+     * @param fingerprint the fingerprint of the inputs the build used
+     * @throws FileProcessingException if the fingerprint cannot be written
+     */
+    public void record(BuildFingerprint fingerprint) throws FileProcessingException {
+        Path fingerprintFile = fingerprintFile();
+        Path temporaryFile = fingerprintFile.resolveSibling(fingerprintFile.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(fingerprintFile.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+                writer.write(ROOT + "=" + fingerprint.root());
+                writer.newLine();
+                for (Map.Entry<String, String> component : fingerprint.components().entrySet()) {
+                    writer.write(component.getKey() + "=" + component.getValue());
+                    writer.newLine();
+                }
+            }
+            Files.move(temporaryFile, fingerprintFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write build fingerprint", e, fingerprintFile);
+        }
+    }
+    
+    /**
+     * Reads the stored fingerprint.
+     * 
+     * @return the stored digests by component name, or an empty map if there is no stored fingerprint
+     * @throws FileProcessingException if the stored fingerprint exists but cannot be read
+     */
+    private Map<String, String> load() throws FileProcessingException {
+        Path fingerprintFile = fingerprintFile();
+        Map<String, String> stored = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(fingerprintFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('=');
+                if (separator > 0) {
+                    stored.put(line.substring(0, separator), line.substring(separator + 1));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return Map.of();
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to read build fingerprint", e, fingerprintFile);
+        }
+        return stored;
+    }
+    
+    /**
+     * Gets the fingerprint file of this process. Shards and the merge step read different
+     * inputs, so each keeps its own fingerprint.
+     * 
+     * @return the fingerprint file
+     */
+    private Path fingerprintFile() {
+        String fileName = switch (configuration.getBuildMode()) {
+            case FULL -> "build-fingerprint.txt";
+            case SHARD -> String.format("build-fingerprint-shard-%d-of-%d.txt",
+                configuration.getShardIndex(), configuration.getShardCount());
+            case MERGE -> "build-fingerprint-merge.txt";
+        };
+        return configuration.getCachePath().resolve(fileName);
+    }
+    
+    /**
+     * Identifies the generator by a digest of its classes, prefixed with the packaged version if
+     * there is one. A version alone would not do: a SNAPSHOT jar keeps its version across rebuilds.
+     * 
+     * @return the generator version and class digest
+     * @throws FileProcessingException if the classes cannot be walked
+     */
+    static String generatorVersion() throws FileProcessingException {
+        String classes;
+        CodeSource codeSource = BuildFingerprintService.class.getProtectionDomain().getCodeSource();
+        try {
+            classes = codeSource == null ? "unknown" : treeDigest(List.of(Path.of(codeSource.getLocation().toURI())));
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            classes = "unknown";
+        }
+        String version = BuildFingerprintService.class.getPackage().getImplementationVersion();
+        return version == null ? classes : version + "+" + classes;
+    }
+    
+    /**
+     * Digests the content of the page templates.
+     * 
+     * @return the templates digest
+     * @throws FileProcessingException if a template cannot be read
+     */
+    private String templatesDigest() throws FileProcessingException {
+        return digest((templateDigest(PageGenerationService.HOME_TEMPLATE)
+            + templateDigest(PageGenerationService.ARTICLE_TEMPLATE)).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Digests the content of a single template resource.
+     * 
+     * @param template the template resource path
+     * @return the template digest, or the digest of its name alone if the template does not exist
+     * @throws FileProcessingException if the template cannot be read
+     */
+    static String templateDigest(String template) throws FileProcessingException {
+        MessageDigest digest = newDigest();
+        digest.update(template.getBytes(StandardCharsets.UTF_8));
+        try (InputStream in = BuildFingerprintService.class.getClassLoader().getResourceAsStream(template)) {
+            if (in != null) {
+                digest.update(in.readAllBytes());
+            }
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to read template: " + template, e, Path.of(template));
+        }
+        return HEX.formatHex(digest.digest());
+    }
+    
+    /**
+     * Digests the file tree below each of the given roots from the paths, sizes and modification
+     * times of its files, in a fixed order. Missing roots and unreadable files are part of the digest.
+     * 
+     * @param roots the directories or files to digest
+     * @return the tree digest
+     * @throws FileProcessingException if a root cannot be walked
+     */
+    private static String treeDigest(List<Path> roots) throws FileProcessingException {
+        List<String> entries = new ArrayList<>();
+        for (Path root : roots) {
+            if (!Files.exists(root)) {
+                entries.add(root + "\0missing");
+                continue;
+            }
+            try {
+                Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                        if (attributes.isRegularFile()) {
+                            entries.add(file + "\0" + attributes.size() + "\0"
+                                + attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                    
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        entries.add(file + "\0unreadable");
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                throw new FileProcessingException("Failed to fingerprint build inputs in: " + root, e, root);
+            }
+        }
+        
+        Collections.sort(entries);
+        MessageDigest digest = newDigest();
+        for (String entry : entries) {
+            digest.update(entry.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return HEX.formatHex(digest.digest());
+    }
+    
+    static String digest(byte[] bytes) {
+        return HEX.formatHex(newDigest().digest(bytes));
+    }
+    
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
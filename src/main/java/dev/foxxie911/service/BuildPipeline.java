@@ -0,0 +1,456 @@
+package dev.foxxie911.service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToIntFunction;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.config.PerformanceConfiguration;
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.Article;
+import dev.foxxie911.models.ArticleSource;
+import dev.foxxie911.models.RenderedFile;
+import dev.foxxie911.repository.ArticleRepository;
+import dev.foxxie911.service.DependencyGraphService.Work;
+
+/**
+ * Staged build pipeline for article pages: walk, read and parse, render, write.
+ * Stages run concurrently with their own thread counts and are connected by bounded
+ * queues, so a full queue blocks the stage feeding it. The first pages reach disk
+ * while the walk is still running, and at most a queue's worth of parsed or rendered
+ * articles is held in memory per stage.
+ * <p>
+ * Parsing and rendering share the CPU thread budget and writing uses the I/O thread budget,
+ * so the stages never run more work at once than the configuration allows. Articles are
+ * charged against the in-flight byte budget when they enter the parse stage and release
+ * their charge once written; only the parse stage waits for budget, so later stages can
+ * always drain and the budget cannot deadlock the pipeline.
+ * <p>
+ * The parse stage consults the dependency graph first: pages whose inputs are unchanged
+ * are kept without parsing or rendering, and unchanged sources are rendered from their
+ * cached parse.
+ */
+@Singleton
+public class BuildPipeline {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BuildPipeline.class);
+    private static final long POLL_MILLIS = 50;
+    
+    /**
+     * The parsed form of an article is held as a string and its rendered page as UTF-8 bytes,
+     * together about four times the source size.
+     */
+    private static final int IN_FLIGHT_BYTES_PER_SOURCE_BYTE = 4;
+    
+    /**
+     * A large article is streamed from its source into its page, so until the page is written
+     * it holds little more than its metadata and the buffers of the two streams.
+     */
+    private static final long STREAMED_ARTICLE_BYTES = 256 * 1024;
+    private static final int BUDGET_UNIT_BYTES = 1024;
+    
+    private final BlogConfiguration configuration;
+    private final ArticleRepository articleRepository;
+    private final PageGenerationService pageGenerationService;
+    private final WorkerPool workerPool;
+    private final DependencyGraphService dependencyGraph;
+    private final DiagnosticsCollector diagnostics;
+    
+    @Inject
+    public BuildPipeline(
+            BlogConfiguration configuration,
+            ArticleRepository articleRepository,
+            PageGenerationService pageGenerationService,
+            WorkerPool workerPool,
+            DependencyGraphService dependencyGraph,
+            DiagnosticsCollector diagnostics) {
+        
+        this.configuration = configuration;
+        this.articleRepository = articleRepository;
+        this.pageGenerationService = pageGenerationService;
+        this.workerPool = workerPool;
+        this.dependencyGraph = dependencyGraph;
+        this.diagnostics = diagnostics;
+    }
+    
+    /**
+     * Builds the pages of all articles in the configured source.
+     * The dependency graph of the build is recorded, but only saved once the build is published.
+     * 
+     * @return the articles that were built or kept, in completion order, with their bodies dropped
+     * @throws FileProcessingException if any stage fails
+     */
+    public List<Article> buildArticlePages() throws FileProcessingException {
+        dependencyGraph.load();
+        return new Execution().run();
+    }
+    
+    /**
+     * State of a single pipeline run.
+     */
+    private final class Execution {
+        
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final ConcurrentLinkedQueue<Article> built = new ConcurrentLinkedQueue<>();
+        private final List<CountDownLatch> stages = new ArrayList<>();
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong firstWriteNanos = new AtomicLong();
+        private final PerformanceConfiguration performance = configuration.getPerformance();
+        private final Semaphore cpuPermits = new Semaphore(performance.getCpuThreads());
+        private final Semaphore ioPermits = new Semaphore(performance.getIoThreads());
+        private final int budgetUnits = (int) Math.min(Integer.MAX_VALUE,
+            performance.getMaxInFlightBytes() / BUDGET_UNIT_BYTES);
+        private final Semaphore inFlightBudget = new Semaphore(budgetUnits);
+        
+        List<Article> run() throws FileProcessingException {
+            int capacity = performance.getQueueCapacity();
+            int parseThreads = performance.getParseThreads();
+            int renderThreads = performance.getRenderThreads();
+            int writeThreads = performance.getWriteThreads();
+            
+            BlockingQueue<Envelope<ArticleSource>> sources = new ArrayBlockingQueue<>(capacity);
+            BlockingQueue<Envelope<Article>> parsed = new ArrayBlockingQueue<>(capacity);
+            BlockingQueue<Envelope<RenderedPage>> rendered = new ArrayBlockingQueue<>(capacity);
+            
+            logger.info("Starting build pipeline: {} parse, {} render, {} write threads, queue capacity {}, "
+                + "{} KiB in flight", parseThreads, renderThreads, writeThreads, capacity, budgetUnits);
+            
+            startStage(new Stage<>("write", writeThreads, ioPermits, null, rendered, null), 0,
+                page -> attempt("write", page.article(), () -> {
+                    pageGenerationService.writeArticlePage(page.article(), page.html());
+                    firstWriteNanos.compareAndSet(0, System.nanoTime());
+                    Article article = page.article();
+                    built.add(new Article(article.title(), article.createdAt(), "", article.links(),
+                        article.statistics(), null, article.source()));
+                    return null;
+                }));
+            startStage(new Stage<>("render", renderThreads, cpuPermits, null, parsed, rendered), writeThreads,
+                article -> attempt("render", article,
+                    () -> new RenderedPage(article, pageGenerationService.renderArticlePage(article))));
+            startStage(new Stage<>("parse", parseThreads, cpuPermits, this::inFlightCharge, sources, parsed),
+                renderThreads, this::parseOrKeep);
+            startWalk(sources, parseThreads);
+            
+            awaitCompletion();
+            
+            Throwable cause = failure.get();
+            if (cause instanceof FileProcessingException e) {
+                throw e;
+            } else if (cause != null) {
+                throw new FileProcessingException("Build pipeline failed", cause, configuration.getArticlePath());
+            }
+            
+            List<Article> articles = new ArrayList<>(built);
+            logPipelineTimings(articles.size());
+            return articles;
+        }
+        
+        private void startWalk(BlockingQueue<Envelope<ArticleSource>> sources, int parseThreads) {
+            CountDownLatch finished = newStage(1);
+            runWorker("walk", 1, finished, () -> {
+                try {
+                    articleRepository.walkArticleSources(source -> transfer(sources, new Envelope<>(source, 0)));
+                    for (int i = 0; i < parseThreads; i++) {
+                        transfer(sources, Envelope.end());
+                    }
+                } catch (Throwable t) {
+                    fail(t);
+                }
+            });
+        }
+        
+        /**
+         * Starts the workers of one stage.
+         * 
+         * @param stage the threads and queues of the stage
+         * @param downstreamThreads the number of workers of the next stage, each of which is sent the end of input
+         * @param function the work done on each item
+         */
+        private <I, O> void startStage(Stage<I, O> stage, int downstreamThreads, StageFunction<I, O> function) {
+            int threads = stage.threads();
+            BlockingQueue<Envelope<I>> input = stage.input();
+            BlockingQueue<Envelope<O>> output = stage.output();
+            CountDownLatch finished = newStage(threads);
+            AtomicInteger activeWorkers = new AtomicInteger(threads);
+            for (int i = 0; i < threads; i++) {
+                runWorker(stage.name(), i + 1, finished, () -> {
+                    try {
+                        for (Envelope<I> item = receive(input); !item.isEnd(); item = receive(input)) {
+                            int charge = item.charge();
+                            if (stage.admission() != null) {
+                                charge = stage.admission().applyAsInt(item.value());
+                                acquire(inFlightBudget, charge);
+                            }
+                            O result = process(stage.permits(), function, item.value());
+                            if (result != null && output != null) {
+                                transfer(output, new Envelope<>(result, charge));
+                            } else {
+                                inFlightBudget.release(charge);
+                            }
+                        }
+                        // The last worker of a stage signals the end of input to every downstream worker
+                        if (activeWorkers.decrementAndGet() == 0 && output != null) {
+                            for (int j = 0; j < downstreamThreads; j++) {
+                                transfer(output, Envelope.end());
+                            }
+                        }
+                    } catch (Throwable t) {
+                        fail(t);
+                    }
+                });
+            }
+        }
+        
+        private <I, O> O process(Semaphore permits, StageFunction<I, O> function, I input) throws Exception {
+            acquire(permits, 1);
+            try {
+                return function.apply(input);
+            } finally {
+                permits.release();
+            }
+        }
+        
+        /**
+         * Decides how much work an article source needs. A page whose inputs are unchanged is kept
+         * and goes straight to the result; otherwise the article is taken from the parse cache or parsed.
+         * 
+         * @return the article to render, or null if the page was kept or the source is not an article
+         */
+        private Article parseOrKeep(ArticleSource source) throws FileProcessingException {
+            Optional<Article> header = MarkdownParsingService.articleHeader(source.path().getFileName().toString());
+            if (header.isEmpty()) {
+                return null;
+            }
+            
+            Map<String, String> inputs = dependencyGraph.pageInputs(source);
+            Optional<Article> unchanged = dependencyGraph.unchangedPage(source, inputs);
+            if (unchanged.isPresent() && pageGenerationService.retainArticlePage(unchanged.get())) {
+                dependencyGraph.recordPage(source, unchanged.get(), inputs, Work.KEPT);
+                built.add(unchanged.get());
+                return null;
+            }
+            
+            Optional<Article> article = dependencyGraph.cachedArticle(source);
+            Work work = Work.RENDERED;
+            if (article.isEmpty()) {
+                article = articleRepository.loadArticle(source);
+                work = Work.PARSED;
+            }
+            if (article.isEmpty()) {
+                if (diagnostics.hasFailed(source.path())) {
+                    keepPreviousPage(source.path());
+                }
+                return null;
+            }
+            dependencyGraph.recordPage(source, article.get(), inputs, work);
+            return article.get();
+        }
+        
+        /**
+         * Runs the work of a stage on one article. A failure is recorded in the build diagnostics
+         * against the article's source, the file the user has to fix, and the page of the last build
+         * kept in place of the new one, unless the error policy aborts the build.
+         * 
+         * @return the result of the work, or null if it failed
+         */
+        private <T> T attempt(String stage, Article article, Callable<T> work) throws Exception {
+            long workStartNanos = System.nanoTime();
+            try {
+                return work.call();
+            } catch (Exception e) {
+                if (diagnostics.record(stage, article.source(), e, workStartNanos)) {
+                    throw e;
+                }
+                keepPreviousPage(article.source());
+                return null;
+            }
+        }
+        
+        /**
+         * Keeps the page the last build produced for a source that failed, so a collected failure
+         * leaves the published page as it was instead of pruning it and reporting it removed.
+         */
+        private void keepPreviousPage(Path source) {
+            Optional<Article> previous = dependencyGraph.keepPreviousPage(source);
+            if (previous.isPresent() && pageGenerationService.retainArticlePage(previous.get())) {
+                built.add(previous.get());
+            }
+        }
+        
+        /**
+         * Estimates the in-flight budget units an article source needs until its page is written.
+         * A single article larger than the whole budget is charged the whole budget, so it still runs alone.
+         * Large articles are streamed and charged the same whatever their size.
+         */
+        private int inFlightCharge(ArticleSource source) {
+            long size = source.attributes().size();
+            long bytes = performance.isLargeArticle(size) ? STREAMED_ARTICLE_BYTES
+                : size * IN_FLIGHT_BYTES_PER_SOURCE_BYTE;
+            return (int) Math.min(budgetUnits, Math.max(1, bytes / BUDGET_UNIT_BYTES));
+        }
+        
+        private void acquire(Semaphore semaphore, int permits) throws InterruptedException {
+            while (!semaphore.tryAcquire(permits, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkNotFailed();
+            }
+        }
+        
+        private <T> void transfer(BlockingQueue<Envelope<T>> queue, Envelope<T> item) throws InterruptedException {
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkNotFailed();
+            }
+        }
+        
+        private <T> Envelope<T> receive(BlockingQueue<Envelope<T>> queue) throws InterruptedException {
+            Envelope<T> item;
+            while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                checkNotFailed();
+            }
+            return item;
+        }
+        
+        private void checkNotFailed() throws InterruptedException {
+            if (failure.get() != null) {
+                throw new InterruptedException("Build pipeline aborted");
+            }
+        }
+        
+        private void fail(Throwable t) {
+            if (failure.compareAndSet(null, t)) {
+                logger.error("Build pipeline stage failed, aborting", t);
+            }
+        }
+        
+        private CountDownLatch newStage(int threads) {
+            CountDownLatch finished = new CountDownLatch(threads);
+            stages.add(finished);
+            return finished;
+        }
+        
+        /**
+         * Runs one stage worker on the shared pool, named after its stage while it runs.
+         */
+        private void runWorker(String stage, int number, CountDownLatch finished, Runnable worker) {
+            workerPool.execute(() -> {
+                Thread thread = Thread.currentThread();
+                String poolName = thread.getName();
+                thread.setName("markblog-" + stage + "-" + number);
+                try {
+                    worker.run();
+                } finally {
+                    thread.setName(poolName);
+                    finished.countDown();
+                }
+            });
+        }
+        
+        private void awaitCompletion() throws FileProcessingException {
+            try {
+                for (CountDownLatch stage : stages) {
+                    while (!stage.await(1, TimeUnit.SECONDS)) {
+                        logger.debug("Waiting for build pipeline to finish");
+                    }
+                }
+            } catch (InterruptedException e) {
+                fail(e);
+                Thread.currentThread().interrupt();
+                throw new FileProcessingException("Interrupted while building article pages", e,
+                    configuration.getArticlePath());
+            }
+        }
+        
+        private void logPipelineTimings(int articleCount) {
+            long finished = System.nanoTime();
+            long firstWrite = firstWriteNanos.get();
+            logger.info("Built {} article pages in {} ms (first page written after {} ms)",
+                articleCount,
+                TimeUnit.NANOSECONDS.toMillis(finished - startNanos),
+                firstWrite == 0 ? "-" : TimeUnit.NANOSECONDS.toMillis(firstWrite - startNanos));
+        }
+    }
+    
+    /**
+     * The threads and queues of one pipeline stage.
+     * 
+     * @param <I> the input item type
+     * @param <O> the output item type
+     * @param name the stage name, used for its worker threads
+     * @param threads the number of workers
+     * @param permits the thread budget each item is processed under
+     * @param admission the in-flight budget units to charge for each item, or null if items are already charged
+     * @param input the queue the stage takes items from
+     * @param output the queue the stage passes items on to, or null for the last stage
+     */
+    private record Stage<I, O>(
+            String name,
+            int threads,
+            Semaphore permits,
+            ToIntFunction<I> admission,
+            BlockingQueue<Envelope<I>> input,
+            BlockingQueue<Envelope<O>> output) {
+    }
+    
+    /**
+     * Work done by one pipeline stage on a single item.
+     * 
+     * @param <I> the input item type
+     * @param <O> the output item type
+     */
+    @FunctionalInterface
+    private interface StageFunction<I, O> {
+        
+        /**
+         * Processes an item.
+         * 
+         * @param input the item to process
+         * @return the item for the next stage, or null to drop it
+         * @throws Exception if processing fails, which aborts the pipeline
+         */
+        O apply(I input) throws Exception;
+    }
+    
+    /**
+     * Queue item wrapper, so the end of a stream can be signalled with a marker.
+     * Carries the in-flight budget units the item holds until it is written or dropped.
+     * 
+     * @param <T> the wrapped item type
+     */
+    private record Envelope<T>(T value, int charge) {
+        
+        private static final Envelope<?> END = new Envelope<>(null, 0);
+        
+        @SuppressWarnings("unchecked")
+        static <T> Envelope<T> end() {
+            return (Envelope<T>) END;
+        }
+        
+        boolean isEnd() {
+            return this == END;
+        }
+    }
+    
+    /**
+     * An article together with its rendered page.
+     */
+    private record RenderedPage(Article article, RenderedFile html) {
+    }
+}
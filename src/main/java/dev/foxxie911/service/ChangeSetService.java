@@ -0,0 +1,165 @@
+package dev.foxxie911.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.config.ChangeSetMode;
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.ChangeSet;
+import dev.foxxie911.models.ChangedFile;
+
+/**
+ * Service that exports the output files a build added, modified and removed, for deploy steps
+ * that upload and invalidate only what changed. The change set is taken from the output ledgers
+ * kept by {@link SiteOutputService} while writing, never from a scan of the output tree.
+ * In {@link ChangeSetMode#ARCHIVE} mode the added and modified files are also packed into a zip.
+ */
+@Singleton
+public class ChangeSetService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ChangeSetService.class);
+    
+    private final BlogConfiguration configuration;
+    private final SiteOutputService outputService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Inject
+    public ChangeSetService(BlogConfiguration configuration, SiteOutputService outputService) {
+        this.configuration = configuration;
+        this.outputService = outputService;
+    }
+    
+    /**
+     * Exports the changes of the current build. Must run after orphans were pruned, so removed
+     * files are known, and before publishing, so a failed export leaves the live site untouched.
+     * 
+     * @return the exported change set, or null if change sets are disabled
+     * @throws FileProcessingException if the change set or archive cannot be written
+     */
+    public ChangeSet export() throws FileProcessingException {
+        if (configuration.getChangeSetMode() == ChangeSetMode.OFF) {
+            return null;
+        }
+        
+        OutputLedger ledger = outputService.getLedger();
+        OutputLedger previousLedger = outputService.getPreviousLedger();
+        List<ChangedFile> added = new ArrayList<>();
+        List<ChangedFile> modified = new ArrayList<>();
+        for (String path : ledger.writtenPaths()) {
+            ChangedFile file = new ChangedFile(path, ledger.hashOf(path));
+            (previousLedger.paths().contains(path) ? modified : added).add(file);
+        }
+        List<ChangedFile> removed = new ArrayList<>();
+        for (String path : ledger.deletedPaths()) {
+            removed.add(new ChangedFile(path, previousLedger.hashOf(path)));
+        }
+        
+        ChangeSet changeSet = new ChangeSet(OffsetDateTime.now().toString(), ledger.getSkippedCount(),
+            sorted(added), sorted(modified), sorted(removed));
+        write(changeSet);
+        return changeSet;
+    }
+    
+    /**
+     * Exports an empty change set for a build that was skipped because nothing changed,
+     * so a deploy step never acts on the changes of an earlier build twice.
+     * 
+     * @throws FileProcessingException if the change set cannot be written
+     */
+    public void exportUnchanged() throws FileProcessingException {
+        if (configuration.getChangeSetMode() == ChangeSetMode.OFF) {
+            return;
+        }
+        write(new ChangeSet(OffsetDateTime.now().toString(), 0, List.of(), List.of(), List.of()));
+    }
+    
+    private void write(ChangeSet changeSet) throws FileProcessingException {
+        Path changeSetFile = changeSetFile(".json");
+        try {
+            Files.createDirectories(changeSetFile.getParent());
+            Path temporaryFile = changeSetFile.resolveSibling(changeSetFile.getFileName() + ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temporaryFile.toFile(), changeSet);
+            Files.move(temporaryFile, changeSetFile,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write change set", e, changeSetFile);
+        }
+        
+        if (configuration.getChangeSetMode() == ChangeSetMode.ARCHIVE) {
+            writeArchive(changeSet);
+        }
+        logger.info("Change set: {} added, {} modified, {} removed, written to {}", changeSet.added().size(),
+            changeSet.modified().size(), changeSet.removed().size(), changeSetFile);
+    }
+    
+    /**
+     * Packs the added and modified files into a zip archive, streaming each file from the output.
+     * 
+     * @param changeSet the change set to pack
+     * @throws FileProcessingException if the archive cannot be written
+     */
+    private void writeArchive(ChangeSet changeSet) throws FileProcessingException {
+        Path archiveFile = changeSetFile(".zip");
+        Path temporaryFile = archiveFile.resolveSibling(archiveFile.getFileName() + ".tmp");
+        Path outputRoot = outputService.getOutputRoot();
+        try {
+            try (OutputStream out = Files.newOutputStream(temporaryFile);
+                    ZipOutputStream zip = new ZipOutputStream(out)) {
+                for (List<ChangedFile> files : List.of(changeSet.added(), changeSet.modified())) {
+                    for (ChangedFile file : files) {
+                        zip.putNextEntry(new ZipEntry(file.path()));
+                        Files.copy(outputRoot.resolve(file.path()), zip);
+                        zip.closeEntry();
+                    }
+                }
+            }
+            Files.move(temporaryFile, archiveFile,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write change set archive", e, archiveFile);
+        }
+        logger.info("Packed {} changed files into {}", changeSet.added().size() + changeSet.modified().size(),
+            archiveFile);
+    }
+    
+    private static List<ChangedFile> sorted(Collection<ChangedFile> files) {
+        List<ChangedFile> list = new ArrayList<>(files);
+        list.sort(Comparator.comparing(ChangedFile::path));
+        return list;
+    }
+    
+    /**
+     * Gets a change set file of this process; shards and the merge step each export their own.
+     * 
+     * @param extension the file extension, including the dot
+     * @return the change set file in the cache directory
+     */
+    private Path changeSetFile(String extension) {
+        String fileName = switch (configuration.getBuildMode()) {
+            case FULL -> "change-set";
+            case SHARD -> String.format("change-set-shard-%d-of-%d",
+                configuration.getShardIndex(), configuration.getShardCount());
+            case MERGE -> "change-set-merge";
+        };
+        return configuration.getCachePath().resolve(fileName + extension);
+    }
+}
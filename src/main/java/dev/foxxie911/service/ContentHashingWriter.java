@@ -0,0 +1,164 @@
+package dev.foxxie911.service;
+
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import dev.foxxie911.models.RenderedFile;
+
+/**
+ * Writer that encodes text to UTF-8 and hashes the bytes as they are produced.
+ * Each chunk is digested right after it is encoded, so the content hash is ready
+ * when rendering ends without another pass over the output. Instances are reused
+ * by a single thread through {@link #reset()}.
+ */
+public final class ContentHashingWriter extends Writer {
+    
+    private static final HexFormat HEX = HexFormat.of();
+    private static final byte REPLACEMENT = '?';
+    
+    private final MessageDigest digest;
+    private byte[] buffer;
+    private int count;
+    private char pendingHighSurrogate;
+    
+    /**
+     * Constructs a writer with the given initial buffer size.
+     * 
+     * @param initialCapacity the initial buffer size in bytes
+     */
+    public ContentHashingWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    /**
+     * Encodes and hashes a string in one go.
+     * 
+     * @param content the text content
+     * @return the encoded content with its hash
+     */
+    public static RenderedFile hash(String content) {
+        ContentHashingWriter writer = new ContentHashingWriter(content.length() + 16);
+        writer.write(content, 0, content.length());
+        return writer.finish();
+    }
+    
+    @Override
+    public void write(char[] chars, int offset, int length) {
+        int start = count;
+        ensureCapacity(count + length * 3 + 4);
+        for (int i = offset; i < offset + length; i++) {
+            encode(chars[i]);
+        }
+        digest.update(buffer, start, count - start);
+    }
+    
+    @Override
+    public void write(String text, int offset, int length) {
+        int start = count;
+        ensureCapacity(count + length * 3 + 4);
+        for (int i = offset; i < offset + length; i++) {
+            encode(text.charAt(i));
+        }
+        digest.update(buffer, start, count - start);
+    }
+    
+    @Override
+    public void write(int c) {
+        int start = count;
+        ensureCapacity(count + 4);
+        encode((char) c);
+        digest.update(buffer, start, count - start);
+    }
+    
+    @Override
+    public void flush() {
+        // everything is kept in memory until finish()
+    }
+    
+    @Override
+    public void close() {
+        // nothing to release
+    }
+    
+    /**
+     * Gets the encoded content and its hash, and resets the hash for the next use.
+     * 
+     * @return the rendered file
+     */
+    public RenderedFile finish() {
+        if (pendingHighSurrogate != 0) {
+            pendingHighSurrogate = 0;
+            ensureCapacity(count + 1);
+            buffer[count++] = REPLACEMENT;
+            digest.update(REPLACEMENT);
+        }
+        return new RenderedFile(Arrays.copyOf(buffer, count), HEX.formatHex(digest.digest()));
+    }
+    
+    /**
+     * Clears the content and hash so the writer can render another file.
+     */
+    public void reset() {
+        count = 0;
+        pendingHighSurrogate = 0;
+        digest.reset();
+    }
+    
+    /**
+     * Gets the current buffer size, so oversized writers can be dropped instead of reused.
+     * 
+     * @return the buffer capacity in bytes
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+    
+    /**
+     * Appends the UTF-8 encoding of a char, pairing surrogates across writes.
+     * Unpaired surrogates become '?', as in {@link String#getBytes(java.nio.charset.Charset)}.
+     */
+    private void encode(char c) {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                buffer[count++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[count++] = (byte) (0x80 | codePoint & 0x3F);
+                return;
+            }
+            buffer[count++] = REPLACEMENT;
+        }
+        
+        if (c < 0x80) {
+            buffer[count++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[count++] = (byte) (0xC0 | c >> 6);
+            buffer[count++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer[count++] = REPLACEMENT;
+        } else {
+            buffer[count++] = (byte) (0xE0 | c >> 12);
+            buffer[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+            buffer[count++] = (byte) (0x80 | c & 0x3F);
+        }
+    }
+    
+    private void ensureCapacity(int required) {
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
+    }
+}
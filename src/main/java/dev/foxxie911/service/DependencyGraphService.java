@@ -0,0 +1,348 @@
+package dev.foxxie911.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.config.PublishMode;
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.Article;
+import dev.foxxie911.models.ArticleSource;
+import dev.foxxie911.models.DependencyGraph;
+import dev.foxxie911.models.PageDependencies;
+
+/**
+ * Records what each article page was built from, so a build only redoes the work its changes require.
+ * A page depends on its Markdown source, the article template and its partials, the settings the
+ * template shows and the list of related articles; parsing depends on the source alone. A page whose
+ * inputs are all unchanged is kept as it is, and a page whose source is unchanged is rendered again from the parsed
+ * body kept in the cache. The graph of the last successful build is stored as JSON under the cache
+ * path, where the inputs of every page can be inspected.
+ */
+@Singleton
+public class DependencyGraphService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DependencyGraphService.class);
+    private static final int VERSION = 1;
+    private static final String SOURCE_INPUT = "source";
+    private static final String RELATED_INPUT = "related";
+    private static final String TEMPLATE_INPUT = "template:" + PageGenerationService.ARTICLE_TEMPLATE;
+    private static final String BLOG_NAME_INPUT = "config:BLOG_NAME";
+    
+    private final BlogConfiguration configuration;
+    private final RelatedArticlesService relatedArticlesService;
+    private final TemplateRenderingService templateService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, PageDependencies> current = new ConcurrentHashMap<>();
+    private final Set<String> rebuilt = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger keptPages = new AtomicInteger();
+    private final AtomicInteger renderedPages = new AtomicInteger();
+    private final AtomicInteger parsedPages = new AtomicInteger();
+    private volatile Map<String, PageDependencies> previous = Map.of();
+    private volatile Map<String, String> sharedInputs = Map.of();
+    private volatile String generator;
+    
+    @Inject
+    public DependencyGraphService(BlogConfiguration configuration, RelatedArticlesService relatedArticlesService,
+            TemplateRenderingService templateService) {
+        this.configuration = configuration;
+        this.relatedArticlesService = relatedArticlesService;
+        this.templateService = templateService;
+    }
+    
+    /**
+     * How much work a page needed in the current build.
+     */
+    public enum Work {
+        
+        /** All inputs were unchanged and the existing page was kept. */
+        KEPT,
+        
+        /** The source was unchanged and the page was rendered from the cached parse. */
+        RENDERED,
+        
+        /** The source was parsed and the page rendered. */
+        PARSED
+    }
+    
+    /**
+     * Loads the graph of the last successful build and captures the inputs shared by every page.
+     * A graph written by another generator version is ignored, so every article is parsed again.
+     * 
+     * @throws FileProcessingException if the template or generator cannot be read
+     */
+    public void load() throws FileProcessingException {
+        current.clear();
+        rebuilt.clear();
+        keptPages.set(0);
+        renderedPages.set(0);
+        parsedPages.set(0);
+        generator = BuildFingerprintService.generatorVersion();
+        sharedInputs = Map.of(
+            TEMPLATE_INPUT, templateService.templateDigest(configuration.getThemePath(),
+                PageGenerationService.ARTICLE_TEMPLATE),
+            BLOG_NAME_INPUT, digest(configuration.getBlogName()));
+        
+        Path graphFile = graphFile();
+        previous = Map.of();
+        if (!Files.isRegularFile(graphFile)) {
+            return;
+        }
+        try {
+            DependencyGraph graph = objectMapper.readValue(graphFile.toFile(), DependencyGraph.class);
+            if (graph.version() == VERSION && generator.equals(graph.generator()) && graph.pages() != null) {
+                previous = graph.pages();
+            } else {
+                logger.info("Dependency graph was written by another generator version, rebuilding every page");
+            }
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable dependency graph: {}", graphFile, e);
+        }
+    }
+    
+    /**
+     * Computes the current inputs of an article's page.
+     * 
+     * @param source the article source
+     * @return the digest of each input by input name
+     */
+    public Map<String, String> pageInputs(ArticleSource source) {
+        Map<String, String> inputs = new TreeMap<>(sharedInputs);
+        inputs.put(SOURCE_INPUT, sourceDigest(source));
+        inputs.put(RELATED_INPUT, digest(relatedArticlesService.relatedTo(source.path()).stream()
+            .map(related -> related.createdAt() + "_" + related.title())
+            .collect(Collectors.joining("\n"))));
+        return inputs;
+    }
+    
+    /**
+     * Gets the metadata of an article whose page inputs are unchanged since the last build.
+     * 
+     * @param source the article source
+     * @param inputs the current inputs of the article's page
+     * @return the article with an empty body, or empty if the page must be rendered again
+     */
+    public Optional<Article> unchangedPage(ArticleSource source, Map<String, String> inputs) {
+        PageDependencies node = previous.get(relativePath(source));
+        if (node == null) {
+            return Optional.empty();
+        }
+        if (!node.inputs().equals(inputs)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Rebuilding page of {}, changed inputs: {}", node.source(), inputs.keySet().stream()
+                    .filter(input -> !inputs.get(input).equals(node.inputs().get(input)))
+                    .collect(Collectors.joining(", ")));
+            }
+            return Optional.empty();
+        }
+        return Optional.of(toArticle(node, ""));
+    }
+    
+    /**
+     * Gets a parsed article from the cache when its source is unchanged since the last build.
+     * 
+     * @param source the article source
+     * @return the parsed article, or empty if the source must be parsed again
+     */
+    public Optional<Article> cachedArticle(ArticleSource source) {
+        PageDependencies node = previous.get(relativePath(source));
+        if (node == null || !sourceDigest(source).equals(node.inputs().get(SOURCE_INPUT))) {
+            return Optional.empty();
+        }
+        
+        Path bodyFile = parsedDirectory().resolve(node.parsedBody());
+        try {
+            return Optional.of(toArticle(node, Files.readString(bodyFile, StandardCharsets.UTF_8)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable parsed article: {}", bodyFile, e);
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * Records the page of an article built or kept by the current build.
+     * A freshly parsed body is stored in the cache, so a later build can render it without parsing.
+     * Large articles render their body from the source, so they have no body to cache.
+     * 
+     * @param source the article source
+     * @param article the article, with its body unless the page was kept
+     * @param inputs the inputs the page was built from
+     * @param work how much work the page needed
+     * @throws FileProcessingException if a parsed body cannot be stored
+     */
+    public void recordPage(ArticleSource source, Article article, Map<String, String> inputs, Work work)
+            throws FileProcessingException {
+        String relativePath = relativePath(source);
+        String parsedBody = digest(relativePath + "\0" + inputs.get(SOURCE_INPUT)) + ".html";
+        if (work == Work.PARSED && article.bodySource() == null) {
+            Path bodyFile = parsedDirectory().resolve(parsedBody);
+            try {
+                Files.createDirectories(bodyFile.getParent());
+                Files.writeString(bodyFile, article.body(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new FileProcessingException("Failed to cache parsed article", e, bodyFile);
+            }
+        }
+        
+        current.put(relativePath, new PageDependencies(relativePath, article.title(), article.createdAt().toString(),
+            article.links(), article.statistics(), parsedBody, inputs));
+        if (work != Work.KEPT) {
+            rebuilt.add(relativePath);
+        }
+        AtomicInteger pages = switch (work) {
+            case KEPT -> keptPages;
+            case RENDERED -> renderedPages;
+            case PARSED -> parsedPages;
+        };
+        pages.incrementAndGet();
+    }
+    
+    /**
+     * Carries the page of a source that failed in the current build over from the last build,
+     * so its published page stays part of the site until the source builds again. Whatever the
+     * current build had already recorded for the source is dropped.
+     * 
+     * @param source the path of the article source
+     * @return the article of the previous page with an empty body, or empty if the source had no page
+     */
+    public Optional<Article> keepPreviousPage(Path source) {
+        String relativePath = relativePath(source);
+        PageDependencies node = previous.get(relativePath);
+        if (node == null) {
+            current.remove(relativePath);
+            return Optional.empty();
+        }
+        current.put(relativePath, node);
+        return Optional.of(toArticle(node, ""));
+    }
+    
+    /**
+     * Stores the graph of the current build, replacing the previous one atomically, and removes
+     * cached parses no page refers to any more. Called once the build has been published.
+     * 
+     * @throws FileProcessingException if the graph cannot be written
+     */
+    public void save() throws FileProcessingException {
+        Path graphFile = graphFile();
+        try {
+            write(graphFile, current);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write dependency graph", e, graphFile);
+        }
+        
+        removeUnusedParses();
+        logger.info("Article pages: {} parsed, {} rendered from cached parses, {} unchanged",
+            parsedPages.get(), renderedPages.get(), keptPages.get());
+    }
+    
+    /**
+     * Stores the graph of the last build without the pages a failed in-place build started to rebuild.
+     * Those pages may already hold the failed build's output, so once their inputs match the last
+     * build again they must be rendered rather than kept. Atomic builds never touch the live pages,
+     * so the graph of the last build stays valid and is left as it is.
+     */
+    public void saveInterrupted() {
+        if (configuration.getPublishMode() != PublishMode.IN_PLACE || rebuilt.isEmpty()) {
+            return;
+        }
+        Map<String, PageDependencies> untouched = new TreeMap<>(previous);
+        untouched.keySet().removeAll(rebuilt);
+        Path graphFile = graphFile();
+        try {
+            write(graphFile, untouched);
+        } catch (IOException e) {
+            logger.warn("Failed to write dependency graph: {}", graphFile, e);
+        }
+    }
+    
+    private void write(Path graphFile, Map<String, PageDependencies> pages) throws IOException {
+        Path temporaryFile = graphFile.resolveSibling(graphFile.getFileName() + ".tmp");
+        Files.createDirectories(graphFile.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter()
+            .writeValue(temporaryFile.toFile(), new DependencyGraph(VERSION, generator, new TreeMap<>(pages)));
+        Files.move(temporaryFile, graphFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private void removeUnusedParses() {
+        Path parsedDirectory = parsedDirectory();
+        if (!Files.isDirectory(parsedDirectory)) {
+            return;
+        }
+        
+        Set<String> used = current.values().stream().map(PageDependencies::parsedBody).collect(Collectors.toSet());
+        try (Stream<Path> files = Files.list(parsedDirectory)) {
+            for (Path file : files.filter(file -> !used.contains(file.getFileName().toString())).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to remove unused parsed articles in {}", parsedDirectory, e);
+        }
+    }
+    
+    private Article toArticle(PageDependencies node, String body) {
+        return new Article(node.title(), LocalDate.parse(node.createdAt()), body, List.copyOf(node.links()),
+            node.statistics(), null, configuration.getArticlePath().resolve(node.source()));
+    }
+    
+    private String relativePath(ArticleSource source) {
+        return relativePath(source.path());
+    }
+    
+    private String relativePath(Path source) {
+        return configuration.getArticlePath().relativize(source).toString().replace('\\', '/');
+    }
+    
+    private static String sourceDigest(ArticleSource source) {
+        return source.attributes().size() + ":" + source.attributes().lastModifiedTime().toMillis();
+    }
+    
+    private static String digest(String value) {
+        return BuildFingerprintService.digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Gets the graph file of this process. Shards keep separate graphs and parse caches,
+     * so they never remove each other's cached parses.
+     * 
+     * @return the graph file
+     */
+    private Path graphFile() {
+        return configuration.getCachePath().resolve(cacheName("dependency-graph") + ".json");
+    }
+    
+    private Path parsedDirectory() {
+        return configuration.getCachePath().resolve(cacheName("parsed"));
+    }
+    
+    private String cacheName(String baseName) {
+        return switch (configuration.getBuildMode()) {
+            case SHARD -> String.format("%s-shard-%d-of-%d", baseName,
+                configuration.getShardIndex(), configuration.getShardCount());
+            case FULL, MERGE -> baseName;
+        };
+    }
+}
@@ -0,0 +1,208 @@
+package dev.foxxie911.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.config.PerformanceConfiguration;
+import dev.foxxie911.models.BuildFailure;
+import dev.foxxie911.models.DiagnosticsReport;
+
+/**
+ * Collects the failures of a build from any number of worker threads and applies the error policy.
+ * Recording a failure only appends to a lock-free queue, so workers never wait on each other or on
+ * the log; the failures are reported once, when the build ends, as a summary table in the log and
+ * as a JSON file under the cache path.
+ */
+@Singleton
+public class DiagnosticsCollector {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DiagnosticsCollector.class);
+    
+    /** Failures listed in the log summary; the JSON file always lists all of them. */
+    private static final int SUMMARY_ROWS = 20;
+    
+    private final BlogConfiguration configuration;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentLinkedQueue<BuildFailure> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger failureCount = new AtomicInteger();
+    private final Set<Path> failedFiles = ConcurrentHashMap.newKeySet();
+    private volatile long buildStartNanos = System.nanoTime();
+    private volatile boolean aborted;
+    
+    @Inject
+    public DiagnosticsCollector(BlogConfiguration configuration) {
+        this.configuration = configuration;
+    }
+    
+    /**
+     * Forgets the failures of any previous build and starts timing a new one.
+     */
+    public void beginBuild() {
+        failures.clear();
+        failureCount.set(0);
+        failedFiles.clear();
+        aborted = false;
+        buildStartNanos = System.nanoTime();
+    }
+    
+    /**
+     * Records a failure and decides whether the build can go on. Safe to call from any thread.
+     * 
+     * @param stage the build stage the failure happened in
+     * @param file the file being processed, relative to its source directory where possible
+     * @param cause the failure
+     * @param startNanos when the failed work started, from {@link System#nanoTime()}
+     * @return true if the error policy requires the build to abort
+     */
+    public boolean record(String stage, Path file, Throwable cause, long startNanos) {
+        long now = System.nanoTime();
+        failures.add(new BuildFailure(
+            stage,
+            file == null ? null : displayPath(file),
+            cause.getClass().getSimpleName(),
+            cause.getMessage(),
+            TimeUnit.NANOSECONDS.toMillis(now - startNanos),
+            TimeUnit.NANOSECONDS.toMillis(now - buildStartNanos),
+            Thread.currentThread().getName()));
+        if (file != null) {
+            failedFiles.add(file);
+        }
+        int count = failureCount.incrementAndGet();
+        
+        PerformanceConfiguration performance = configuration.getPerformance();
+        boolean abort = switch (performance.getErrorPolicy()) {
+            case COLLECT -> false;
+            case FAIL_FAST -> true;
+            case THRESHOLD -> count > performance.getErrorThreshold();
+        };
+        if (abort) {
+            aborted = true;
+        }
+        return abort;
+    }
+    
+    /**
+     * Gets the number of failures recorded in the current build.
+     * 
+     * @return the failure count
+     */
+    public int getFailureCount() {
+        return failureCount.get();
+    }
+    
+    /**
+     * Checks whether a failure was recorded against a file in the current build.
+     * 
+     * @param file the file, as it was passed to {@link #record}
+     * @return true if the file failed
+     */
+    public boolean hasFailed(Path file) {
+        return failedFiles.contains(file);
+    }
+    
+    /**
+     * Gets the failures recorded in the current build, in the order they were recorded.
+     * 
+     * @return a snapshot of the failures
+     */
+    public List<BuildFailure> getFailures() {
+        return List.copyOf(failures);
+    }
+    
+    /**
+     * Logs a summary table of the failures and writes all of them to the diagnostics file.
+     * Called once when the build ends, whether it succeeded or not. A diagnostics file that
+     * cannot be written is logged, so it never hides the outcome of the build.
+     */
+    public void report() {
+        List<BuildFailure> recorded = new ArrayList<>(failures);
+        recorded.sort(Comparator.comparingLong(BuildFailure::elapsedMillis));
+        DiagnosticsReport report = new DiagnosticsReport(
+            configuration.getPerformance().getErrorPolicy().name().toLowerCase(Locale.ROOT).replace('_', '-'),
+            aborted, recorded.size(), recorded);
+        
+        Path diagnosticsFile = diagnosticsFile();
+        Path temporaryFile = diagnosticsFile.resolveSibling(diagnosticsFile.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(diagnosticsFile.getParent());
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temporaryFile.toFile(), report);
+            Files.move(temporaryFile, diagnosticsFile,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to write build diagnostics: {}", diagnosticsFile, e);
+        }
+        
+        if (recorded.isEmpty()) {
+            return;
+        }
+        logger.warn("{}", summaryTable(report));
+        logger.warn("All build diagnostics were written to {}", diagnosticsFile);
+    }
+    
+    private String summaryTable(DiagnosticsReport report) {
+        List<BuildFailure> rows = report.failures().subList(0, Math.min(SUMMARY_ROWS, report.failureCount()));
+        int stageWidth = "STAGE".length();
+        int fileWidth = "FILE".length();
+        for (BuildFailure failure : rows) {
+            stageWidth = Math.max(stageWidth, failure.stage().length());
+            fileWidth = Math.max(fileWidth, String.valueOf(failure.file()).length());
+        }
+        
+        String rowFormat = "%n  %-" + stageWidth + "s  %-" + fileWidth + "s  %8s  %s";
+        StringBuilder table = new StringBuilder(String.format("Build %s with %d failures (error policy %s):",
+            report.aborted() ? "aborted" : "finished", report.failureCount(), report.errorPolicy()));
+        table.append(String.format(rowFormat, "STAGE", "FILE", "AT (MS)", "ERROR"));
+        for (BuildFailure failure : rows) {
+            table.append(String.format(rowFormat, failure.stage(), failure.file(), failure.elapsedMillis(),
+                failure.exception() + ": " + failure.message()));
+        }
+        if (report.failureCount() > rows.size()) {
+            table.append(String.format("%n  ... and %d more", report.failureCount() - rows.size()));
+        }
+        return table.toString();
+    }
+    
+    /**
+     * Shows article files relative to the article directory, and other files as they are.
+     */
+    private String displayPath(Path file) {
+        Path articlePath = configuration.getArticlePath();
+        Path shown = file.isAbsolute() && file.startsWith(articlePath) ? articlePath.relativize(file) : file;
+        return shown.toString().replace('\\', '/');
+    }
+    
+    /**
+     * Gets the diagnostics file of this process; shards and the merge step each write their own.
+     * 
+     * @return the diagnostics file
+     */
+    private Path diagnosticsFile() {
+        String fileName = switch (configuration.getBuildMode()) {
+            case FULL -> "build-diagnostics.json";
+            case SHARD -> String.format("build-diagnostics-shard-%d-of-%d.json",
+                configuration.getShardIndex(), configuration.getShardCount());
+            case MERGE -> "build-diagnostics-merge.json";
+        };
+        return configuration.getCachePath().resolve(fileName);
+    }
+}
@@ -0,0 +1,14 @@
+package dev.foxxie911.service;
+
+/**
+ * Components that keep what a build was made from, so the next build can skip work:
+ * the fingerprint that lets an unchanged build be skipped as a whole, and the dependency
+ * graph that keeps the article pages whose inputs did not change.
+ * 
+ * @param fingerprintService the fingerprint of the build inputs
+ * @param dependencyGraphService the inputs each article page was built from
+ */
+public record IncrementalBuildServices(
+        BuildFingerprintService fingerprintService,
+        DependencyGraphService dependencyGraphService) {
+}
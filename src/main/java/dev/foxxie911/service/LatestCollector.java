@@ -0,0 +1,82 @@
+package dev.foxxie911.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the newest items of a stream without sorting or keeping all of them.
+ * With a limit, a bounded heap holds only the current newest items, so offering
+ * n items costs O(n log limit) and the rest are dropped as they arrive. Without a
+ * limit every item is kept and sorted once when the result is taken.
+ * 
+ * @param <T> the item type
+ */
+public final class LatestCollector<T> {
+    
+    private final int limit;
+    private final Comparator<? super T> newestFirst;
+    private final PriorityQueue<T> heap;
+    private final List<T> unbounded;
+    
+    /**
+     * Constructs a new LatestCollector.
+     * 
+     * @param limit the number of items to keep, or 0 to keep all of them
+     * @param newestFirst the order of the result, newest item first
+     */
+    public LatestCollector(int limit, Comparator<? super T> newestFirst) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative: " + limit);
+        }
+        this.limit = limit;
+        this.newestFirst = newestFirst;
+        // The heap's head is the oldest item kept, the first to be displaced by a newer one
+        this.heap = limit > 0 ? new PriorityQueue<>(limit, newestFirst.reversed()) : null;
+        this.unbounded = limit > 0 ? null : new ArrayList<>();
+    }
+    
+    /**
+     * Collects the newest items of a collection.
+     * 
+     * @param items the items to select from
+     * @param limit the number of items to keep, or 0 to keep all of them
+     * @param newestFirst the order of the result, newest item first
+     * @param <T> the item type
+     * @return the selected items, newest first
+     */
+    public static <T> List<T> latest(Collection<? extends T> items, int limit, Comparator<? super T> newestFirst) {
+        LatestCollector<T> collector = new LatestCollector<>(limit, newestFirst);
+        items.forEach(collector::offer);
+        return collector.toList();
+    }
+    
+    /**
+     * Offers an item, keeping it only if it is among the newest seen so far.
+     * 
+     * @param item the item to offer
+     */
+    public void offer(T item) {
+        if (heap == null) {
+            unbounded.add(item);
+        } else if (heap.size() < limit) {
+            heap.add(item);
+        } else if (newestFirst.compare(item, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+    
+    /**
+     * Gets the collected items.
+     * 
+     * @return the newest items offered, newest first
+     */
+    public List<T> toList() {
+        List<T> items = new ArrayList<>(heap == null ? unbounded : heap);
+        items.sort(newestFirst);
+        return items;
+    }
+}
@@ -0,0 +1,44 @@
+package dev.foxxie911.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.commonmark.node.AbstractVisitor;
+import org.commonmark.node.Image;
+import org.commonmark.node.Link;
+
+/**
+ * CommonMark visitor that collects every link and image destination in a document.
+ * Destinations are gathered from the parsed AST, so no HTML re-parsing is needed.
+ */
+public class LinkCollectingVisitor extends AbstractVisitor {
+    
+    private final List<String> destinations = new ArrayList<>();
+    
+    @Override
+    public void visit(Link link) {
+        addDestination(link.getDestination());
+        visitChildren(link);
+    }
+    
+    @Override
+    public void visit(Image image) {
+        addDestination(image.getDestination());
+        visitChildren(image);
+    }
+    
+    /**
+     * Gets the destinations collected so far, in document order.
+     * 
+     * @return the collected link and image destinations
+     */
+    public List<String> getDestinations() {
+        return destinations;
+    }
+    
+    private void addDestination(String destination) {
+        if (destination != null && !destination.isEmpty()) {
+            destinations.add(destination);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package dev.foxxie911.service;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.exception.MarkBlogException;
+import dev.foxxie911.models.Article;
+import dev.foxxie911.models.BrokenLink;
+import dev.foxxie911.models.LinkValidationReport;
+
+/**
+ * Service for validating internal links between generated pages.
+ * Resolves every link collected while parsing articles against the set of generated
+ * pages and copied assets, and reports the ones that point nowhere.
+ */
+@Singleton
+public class LinkValidationService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LinkValidationService.class);
+    private static final String INDEX_PAGE = "index.html";
+    
+    private final BlogConfiguration configuration;
+    private final PageGenerationService pageGenerationService;
+    private final AssetManagementService assetManagementService;
+    
+    @Inject
+    public LinkValidationService(
+            BlogConfiguration configuration,
+            PageGenerationService pageGenerationService,
+            AssetManagementService assetManagementService) {
+        
+        this.configuration = configuration;
+        this.pageGenerationService = pageGenerationService;
+        this.assetManagementService = assetManagementService;
+    }
+    
+    /**
+     * Validates the links of all articles against the generated site.
+     * Must be called after pages have been generated and assets copied.
+     * 
+     * @param articles the articles whose links should be validated
+     * @return the validation report
+     * @throws MarkBlogException if broken links are found and the build is configured to fail on them
+     */
+    public LinkValidationReport validateLinks(List<Article> articles) throws MarkBlogException {
+        return validateLinks(articles, Set.of());
+    }
+    
+    /**
+     * Validates the links of all articles against the generated site plus pages produced elsewhere,
+     * such as article pages rendered by other shard processes.
+     * 
+     * @param articles the articles whose links should be validated
+     * @param additionalPaths site-relative paths that exist but were not generated by this process
+     * @return the validation report
+     * @throws MarkBlogException if broken links are found and the build is configured to fail on them
+     */
+    public LinkValidationReport validateLinks(List<Article> articles, Set<String> additionalPaths)
+            throws MarkBlogException {
+        Set<String> generatedPaths = pageGenerationService.getGeneratedPaths();
+        Set<String> assetPaths = assetManagementService.getAssetManifest();
+        int expectedSize = generatedPaths.size() + assetPaths.size() + additionalPaths.size();
+        Set<String> knownPaths = new HashSet<>((int) (expectedSize / 0.75f) + 1);
+        knownPaths.addAll(generatedPaths);
+        knownPaths.addAll(assetPaths);
+        knownPaths.addAll(additionalPaths);
+        
+        LinkValidationReport report = checkLinks(articles, knownPaths);
+        logReport(report);
+        
+        if (report.hasBrokenLinks() && configuration.isFailOnBrokenLinks()) {
+            throw new MarkBlogException(
+                String.format("Found %d broken internal links", report.brokenLinks().size())
+            );
+        }
+        return report;
+    }
+    
+    /**
+     * Checks the links of all articles against a set of known site paths.
+     * 
+     * @param articles the articles whose links should be validated
+     * @param knownPaths the site-relative paths of every generated output
+     * @return the validation report
+     */
+    LinkValidationReport checkLinks(List<Article> articles, Set<String> knownPaths) {
+        List<BrokenLink> brokenLinks = new ArrayList<>();
+        int checkedLinks = 0;
+        
+        for (Article article : articles) {
+            if (article.links().isEmpty()) {
+                continue;
+            }
+            
+            String pagePath = pageGenerationService.articlePagePath(article);
+            String pageDirectory = pagePath.substring(0, pagePath.lastIndexOf('/') + 1);
+            
+            for (String destination : article.links()) {
+                String target = resolveLink(pageDirectory, destination);
+                if (target == null) {
+                    continue;
+                }
+                checkedLinks++;
+                if (!knownPaths.contains(target)) {
+                    brokenLinks.add(new BrokenLink(pagePath, destination));
+                }
+            }
+        }
+        
+        return new LinkValidationReport(checkedLinks, brokenLinks);
+    }
+    
+    /**
+     * Resolves a link destination to a normalized site-relative path.
+     * 
+     * @param pageDirectory the directory of the linking page, ending with a slash
+     * @param destination the raw link destination
+     * @return the normalized target path, or null if the link is external or a same-page anchor
+     */
+    static String resolveLink(String pageDirectory, String destination) {
+        if (destination.startsWith("//") || hasScheme(destination)) {
+            return null;
+        }
+        
+        int end = destination.length();
+        for (int i = 0; i < destination.length(); i++) {
+            char c = destination.charAt(i);
+            if (c == '#' || c == '?') {
+                end = i;
+                break;
+            }
+        }
+        if (end == 0) {
+            return null;
+        }
+        
+        String path = destination.substring(0, end);
+        if (path.indexOf('%') >= 0) {
+            path = URLDecoder.decode(path.replace("+", "%2B"), StandardCharsets.UTF_8);
+        }
+        
+        String fullPath = path.startsWith("/") ? path.substring(1) : pageDirectory + path;
+        String normalized = normalize(fullPath);
+        if (normalized.isEmpty() || path.endsWith("/")) {
+            return normalized.isEmpty() ? INDEX_PAGE : normalized + "/" + INDEX_PAGE;
+        }
+        return normalized;
+    }
+    
+    /**
+     * Removes empty, "." and ".." segments from a slash-separated path.
+     * Segments that would climb above the site root are kept so the link stays unresolvable.
+     * 
+     * @param path the path to normalize
+     * @return the normalized path without leading or trailing slashes
+     */
+    private static String normalize(String path) {
+        String[] segments = path.split("/");
+        String[] stack = new String[segments.length];
+        int depth = 0;
+        
+        for (String segment : segments) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if ("..".equals(segment) && depth > 0 && !"..".equals(stack[depth - 1])) {
+                depth--;
+            } else {
+                stack[depth++] = segment;
+            }
+        }
+        
+        return String.join("/", Arrays.asList(stack).subList(0, depth));
+    }
+    
+    /**
+     * Checks whether a destination starts with a URI scheme such as {@code https:} or {@code mailto:}.
+     * 
+     * @param destination the link destination
+     * @return true if the destination has a scheme
+     */
+    private static boolean hasScheme(String destination) {
+        for (int i = 0; i < destination.length(); i++) {
+            char c = destination.charAt(i);
+            if (c == ':') {
+                return i > 0;
+            }
+            boolean schemeChar = Character.isLetter(c)
+                || (i > 0 && (Character.isDigit(c) || c == '+' || c == '-' || c == '.'));
+            if (!schemeChar) {
+                return false;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Logs the outcome of a validation run.
+     * 
+     * @param report the report to log
+     */
+    private void logReport(LinkValidationReport report) {
+        if (!report.hasBrokenLinks()) {
+            logger.info("Checked {} internal links, no broken links found", report.checkedLinks());
+            return;
+        }
+        
+        logger.warn("Checked {} internal links, found {} broken",
+            report.checkedLinks(), report.brokenLinks().size());
+        for (BrokenLink brokenLink : report.brokenLinks()) {
+            logger.warn("Broken link in {}: {}", brokenLink.sourcePage(), brokenLink.target());
+        }
+    }
+}
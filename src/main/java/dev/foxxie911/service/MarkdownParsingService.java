@@ -1,17 +1,21 @@
 package dev.foxxie911.service;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 import javax.inject.Singleton;
 
-import org.apache.commons.lang3.StringUtils;
+import org.commonmark.node.Document;
 import org.commonmark.node.Node;
 import org.commonmark.parser.Parser;
 import org.commonmark.renderer.html.HtmlRenderer;
@@ -20,6 +24,7 @@ import org.slf4j.LoggerFactory;
 
 import dev.foxxie911.exception.FileProcessingException;
 import dev.foxxie911.models.Article;
+import dev.foxxie911.models.ArticleStatistics;
 
 /**
  * Service implementation for parsing Markdown article files.
@@ -29,10 +34,11 @@ import dev.foxxie911.models.Article;
 public class MarkdownParsingService implements ArticleParsingService {
     
     private static final Logger logger = LoggerFactory.getLogger(MarkdownParsingService.class);
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final Pattern ARTICLE_FILE_NAME = Pattern.compile("\\d{4}-\\d{2}-\\d{2}_[^_]+\\.md");
     
     private final Parser markdownParser;
     private final HtmlRenderer htmlRenderer;
+    private final ArticleSourceReader sourceReader = new ArticleSourceReader();
     
     /**
      * Constructs a new MarkdownParsingService with default parser and renderer.
@@ -55,7 +61,60 @@ public class MarkdownParsingService implements ArticleParsingService {
     
     @Override
     public Optional<Article> parseArticle(Path filePath) throws FileProcessingException {
-        if (!isValidArticleFile(filePath)) {
+        BasicFileAttributes attributes = readAttributes(filePath);
+        if (attributes == null) {
+            logger.debug("Skipping invalid article file: {}", filePath);
+            return Optional.empty();
+        }
+        return parseArticle(filePath, attributes);
+    }
+    
+    @Override
+    public Optional<Article> parseArticle(Path filePath, BasicFileAttributes attributes)
+            throws FileProcessingException {
+        return parse(filePath, attributes, false);
+    }
+    
+    @Override
+    public Optional<Article> parseLargeArticle(Path filePath, BasicFileAttributes attributes)
+            throws FileProcessingException {
+        return parse(filePath, attributes, true);
+    }
+    
+    /**
+     * Renders the body of an article file as HTML, parsing it from a buffered stream.
+     * Neither the Markdown text nor the HTML is held in memory, only the document tree.
+     */
+    @Override
+    public void renderBody(Path filePath, Writer out) throws FileProcessingException, IOException {
+        Node document;
+        try {
+            document = parseMarkdownStream(filePath);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to read article file", e, filePath);
+        }
+        try {
+            htmlRenderer.render(document, out);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException writeError) {
+                throw writeError;
+            }
+            throw new FileProcessingException("Failed to render article file", e, filePath);
+        }
+    }
+    
+    /**
+     * Parses an article file.
+     * 
+     * @param filePath the path to the article file
+     * @param attributes the file attributes
+     * @param large whether to parse from a stream and leave the body to {@link #renderBody(Path, Writer)}
+     * @return Optional containing the parsed article, or empty if the file is not a valid article
+     * @throws FileProcessingException if there are issues reading or parsing the file
+     */
+    private Optional<Article> parse(Path filePath, BasicFileAttributes attributes, boolean large)
+            throws FileProcessingException {
+        if (!isValidArticleFile(filePath, attributes)) {
             logger.debug("Skipping invalid article file: {}", filePath.getFileName());
             return Optional.empty();
         }
@@ -69,42 +128,84 @@ public class MarkdownParsingService implements ArticleParsingService {
                 return Optional.empty();
             }
             
-            LocalDate createdAt = parseDateFromFileName(fileNameParts[0]);
+            LocalDate createdAt = ArticleDates.parseFileNameDate(fileNameParts[0]);
+            if (createdAt == null) {
+                logger.error("Failed to parse date from filename: {}", fileName);
+                return Optional.empty();
+            }
+            
             String title = extractTitleFromFileName(fileNameParts[1]);
-            String body = convertMarkdownToHtml(filePath);
+            if (large) {
+                logger.info("Parsing large article {} ({} KiB) from a stream", fileName, attributes.size() / 1024);
+                Node document = parseMarkdownStream(filePath);
+                return Optional.of(new Article(title, createdAt, "", collectLinks(document),
+                    collectStatistics(document), filePath, filePath));
+            }
             
-            return Optional.of(new Article(title, createdAt, body));
+            Node document = parseMarkdown(filePath, attributes.size());
+            String body = htmlRenderer.render(document);
+            
+            return Optional.of(new Article(title, createdAt, body, collectLinks(document),
+                collectStatistics(document), null, filePath));
             
-        } catch (DateTimeParseException e) {
-            logger.error("Failed to parse date from filename: {}", filePath.getFileName(), e);
-            return Optional.empty();
         } catch (IOException e) {
             throw new FileProcessingException("Failed to read article file", e, filePath);
-        } catch (Exception e) {
-            logger.error("Unexpected error parsing article: {}", filePath.getFileName(), e);
-            return Optional.empty();
+        } catch (RuntimeException e) {
+            throw new FileProcessingException("Failed to parse article file", e, filePath);
         }
     }
     
     @Override
     public boolean isValidArticleFile(Path filePath) {
-        if (filePath == null || !Files.exists(filePath) || !Files.isRegularFile(filePath)) {
+        return filePath != null && isValidArticleFile(filePath, readAttributes(filePath));
+    }
+    
+    /**
+     * Validates an article file using attributes that have already been read.
+     * 
+     * @param filePath the path to validate
+     * @param attributes the file attributes, or null if they could not be read
+     * @return true if the file is a valid article, false otherwise
+     */
+    private boolean isValidArticleFile(Path filePath, BasicFileAttributes attributes) {
+        if (attributes == null || !attributes.isRegularFile()) {
             return false;
         }
         
         String fileName = filePath.getFileName().toString();
-        return fileName.matches("\\d{4}-\\d{2}-\\d{2}_[^_]+\\.md");
+        return ARTICLE_FILE_NAME.matcher(fileName).matches();
     }
     
     /**
-     * Parses the date portion from a filename.
+     * Builds the header of an article from its file name alone, without reading the file.
      * 
-     * @param dateString the date string in yyyy-MM-dd format
-     * @return the parsed LocalDate
-     * @throws DateTimeParseException if the date string is invalid
+     * @param fileName the article file name
+     * @return Optional containing the article with an empty body, or empty if the name is not a valid article name
      */
-    private LocalDate parseDateFromFileName(String dateString) throws DateTimeParseException {
-        return LocalDate.parse(dateString, DATE_FORMATTER);
+    static Optional<Article> articleHeader(String fileName) {
+        if (!ARTICLE_FILE_NAME.matcher(fileName).matches()) {
+            return Optional.empty();
+        }
+        
+        LocalDate createdAt = ArticleDates.parseFileNameDate(fileName);
+        if (createdAt == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Article(extractTitleFromFileName(fileName.substring(11)), createdAt, ""));
+    }
+    
+    /**
+     * Reads the basic attributes of a file with a single filesystem call.
+     * 
+     * @param filePath the file to inspect
+     * @return the attributes, or null if the file does not exist or cannot be read
+     */
+    private BasicFileAttributes readAttributes(Path filePath) {
+        try {
+            return Files.readAttributes(filePath, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
     }
     
     /**
@@ -113,7 +214,7 @@ public class MarkdownParsingService implements ArticleParsingService {
      * @param fileNamePart the filename part containing the title
      * @return the extracted title
      */
-    private String extractTitleFromFileName(String fileNamePart) {
+    private static String extractTitleFromFileName(String fileNamePart) {
         int extensionIndex = fileNamePart.lastIndexOf('.');
         if (extensionIndex > 0) {
             return fileNamePart.substring(0, extensionIndex);
@@ -122,21 +223,62 @@ public class MarkdownParsingService implements ArticleParsingService {
     }
     
     /**
-     * Converts Markdown content to HTML.
+     * Parses Markdown content into a CommonMark document.
      * 
      * @param filePath the path to the Markdown file
-     * @return the HTML representation of the content
+     * @param size the size of the file in bytes
+     * @return the parsed document, empty if the file has no content
      * @throws IOException if there are issues reading the file
      */
-    private String convertMarkdownToHtml(Path filePath) throws IOException {
-        String markdownContent = Files.readString(filePath, StandardCharsets.UTF_8);
-        
-        if (StringUtils.isBlank(markdownContent)) {
-            logger.warn("Empty markdown content in file: {}", filePath.getFileName());
-            return "";
+    private Node parseMarkdown(Path filePath, long size) throws IOException {
+        try {
+            CharBuffer markdownContent = sourceReader.read(filePath, size);
+            
+            if (sourceReader.isBlank(markdownContent)) {
+                logger.warn("Empty markdown content in file: {}", filePath.getFileName());
+                return new Document();
+            }
+            
+            return markdownParser.parseReader(sourceReader.asReader(markdownContent));
+        } finally {
+            sourceReader.trim();
         }
-        
-        Node document = markdownParser.parse(markdownContent);
-        return htmlRenderer.render(document);
+    }
+    
+    /**
+     * Parses Markdown content from a buffered stream, so the text is never held in memory as a whole.
+     * 
+     * @param filePath the path to the Markdown file
+     * @return the parsed document
+     * @throws IOException if there are issues reading the file
+     */
+    private Node parseMarkdownStream(Path filePath) throws IOException {
+        try (Reader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+            return markdownParser.parseReader(reader);
+        }
+    }
+    
+    /**
+     * Collects all link and image destinations from a parsed document.
+     * 
+     * @param document the parsed Markdown document
+     * @return the destinations in document order
+     */
+    private List<String> collectLinks(Node document) {
+        LinkCollectingVisitor linkCollector = new LinkCollectingVisitor();
+        document.accept(linkCollector);
+        return List.copyOf(linkCollector.getDestinations());
+    }
+    
+    /**
+     * Counts the words of a parsed document and captures its excerpt.
+     * 
+     * @param document the parsed Markdown document
+     * @return the statistics of the document
+     */
+    private ArticleStatistics collectStatistics(Node document) {
+        StatisticsCollectingVisitor statisticsCollector = new StatisticsCollectingVisitor();
+        document.accept(statisticsCollector);
+        return statisticsCollector.getStatistics();
     }
 }
@@ -0,0 +1,175 @@
+package dev.foxxie911.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * MinHash signatures over word shingles, with the banding used for locality-sensitive hashing.
+ * Two signatures agree in a position with probability equal to the Jaccard similarity of the
+ * shingle sets they were built from, so similarity can be estimated without comparing texts.
+ * Signatures whose rows match within any band land in the same bucket, which finds similar
+ * pairs without comparing every pair.
+ */
+public final class MinHash {
+    
+    /** Number of hash functions, and so the length of a signature. */
+    public static final int SIGNATURE_LENGTH = 128;
+    
+    /** Number of bands a signature is split into for bucketing. */
+    public static final int BANDS = 32;
+    
+    private static final int ROWS_PER_BAND = SIGNATURE_LENGTH / BANDS;
+    private static final int SHINGLE_WORDS = 3;
+    private static final int READ_CHUNK_CHARS = 8 * 1024;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long[] SEEDS = new long[SIGNATURE_LENGTH];
+    
+    static {
+        long state = 0x6d61726b626c6f67L;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            state += 0x9e3779b97f4a7c15L;
+            SEEDS[i] = mix(state);
+        }
+    }
+    
+    private MinHash() {
+    }
+    
+    /**
+     * Computes the signature of a text from its lowercased three-word shingles.
+     * Texts with fewer words are represented by a single shingle of all of them.
+     * 
+     * @param text the text to sign; its position is not changed
+     * @return the signature, or null if the text contains no words
+     */
+    public static long[] signature(CharBuffer text) {
+        Shingler shingler = new Shingler();
+        for (int i = text.position(); i < text.limit(); i++) {
+            shingler.accept(text.get(i));
+        }
+        return shingler.finish();
+    }
+    
+    /**
+     * Computes the same signature as {@link #signature(CharBuffer)} from a stream of text,
+     * reading it in small chunks so the text is never held in memory as a whole.
+     * 
+     * @param text the text to sign; it is read to the end but not closed
+     * @return the signature, or null if the text contains no words
+     * @throws IOException if the text cannot be read
+     */
+    public static long[] signature(Reader text) throws IOException {
+        Shingler shingler = new Shingler();
+        char[] chunk = new char[READ_CHUNK_CHARS];
+        int read;
+        while ((read = text.read(chunk)) != -1) {
+            for (int i = 0; i < read; i++) {
+                shingler.accept(chunk[i]);
+            }
+        }
+        return shingler.finish();
+    }
+    
+    /**
+     * Estimates the Jaccard similarity of the texts two signatures were built from.
+     * 
+     * @param a the first signature
+     * @param b the second signature
+     * @return the fraction of positions in which the signatures agree
+     */
+    public static double similarity(long[] a, long[] b) {
+        int matches = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            if (a[i] == b[i]) {
+                matches++;
+            }
+        }
+        return (double) matches / SIGNATURE_LENGTH;
+    }
+    
+    /**
+     * Hashes one band of a signature into a bucket key.
+     * Keys of different bands differ even when their rows are equal.
+     * 
+     * @param signature the signature
+     * @param band the band index, below {@link #BANDS}
+     * @return the bucket key
+     */
+    public static long bandKey(long[] signature, int band) {
+        long key = FNV_OFFSET + band;
+        for (int i = band * ROWS_PER_BAND; i < (band + 1) * ROWS_PER_BAND; i++) {
+            key = mix(key ^ signature[i]);
+        }
+        return key;
+    }
+    
+    /**
+     * Splits text into words one character at a time and adds each three-word shingle to a signature.
+     */
+    private static final class Shingler {
+        
+        private final long[] signature = new long[SIGNATURE_LENGTH];
+        private long first;
+        private long second;
+        private int words;
+        private long word = FNV_OFFSET;
+        private boolean inWord;
+        
+        Shingler() {
+            Arrays.fill(signature, Long.MAX_VALUE);
+        }
+        
+        void accept(char c) {
+            if (Character.isLetterOrDigit(c)) {
+                word = (word ^ Character.toLowerCase(c)) * FNV_PRIME;
+                inWord = true;
+            } else if (inWord) {
+                words++;
+                if (words >= SHINGLE_WORDS) {
+                    addShingle(signature, shingle(first, second, word));
+                }
+                first = second;
+                second = word;
+                word = FNV_OFFSET;
+                inWord = false;
+            }
+        }
+        
+        long[] finish() {
+            // A word running up to the end of the text ends there
+            accept(' ');
+            if (words == 0) {
+                return null;
+            }
+            if (words < SHINGLE_WORDS) {
+                addShingle(signature, shingle(0, first, second));
+            }
+            return signature;
+        }
+    }
+    
+    private static long shingle(long first, long second, long third) {
+        return mix(first) ^ Long.rotateLeft(mix(second), 21) ^ Long.rotateLeft(third, 42);
+    }
+    
+    private static void addShingle(long[] signature, long shingle) {
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            long hash = mix(shingle ^ SEEDS[i]);
+            if (hash < signature[i]) {
+                signature[i] = hash;
+            }
+        }
+    }
+    
+    /**
+     * SplitMix64 finalizer, spreading every input bit over the whole output.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,191 @@
+package dev.foxxie911.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe record of every file produced by a build, relative to the site root.
+ * The ledger of the previous build is what allows orphaned outputs to be found
+ * without scanning the whole site directory, and the content hashes it keeps for
+ * rendered files allow unchanged pages to be skipped without reading them back.
+ * It also tracks which files the build wrote, skipped and deleted, so deploy steps
+ * can be told exactly what changed without scanning the output.
+ */
+public class OutputLedger {
+    
+    private static final String NO_HASH = "";
+    
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+    private final Set<String> written = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Records a produced file whose content hash is not known.
+     * 
+     * @param relativePath the site-relative path of the file
+     */
+    public void record(String relativePath) {
+        record(relativePath, null);
+    }
+    
+    /**
+     * Records a produced file with the hash of its content.
+     * 
+     * @param relativePath the site-relative path of the file
+     * @param hash the content hash, or null if it is not known
+     */
+    public void record(String relativePath, String hash) {
+        hashes.put(relativePath, hash == null ? NO_HASH : hash);
+    }
+    
+    /**
+     * Gets the recorded content hash of a file.
+     * 
+     * @param relativePath the site-relative path of the file
+     * @return the content hash, or null if the file was not recorded with one
+     */
+    public String hashOf(String relativePath) {
+        String hash = hashes.get(relativePath);
+        return hash == null || hash.isEmpty() ? null : hash;
+    }
+    
+    /**
+     * Gets all recorded paths.
+     * 
+     * @return an unmodifiable view of the recorded paths
+     */
+    public Set<String> paths() {
+        return Collections.unmodifiableSet(hashes.keySet());
+    }
+    
+    /**
+     * Records that a file's content was written.
+     * 
+     * @param relativePath the site-relative path of the file
+     */
+    public void recordWritten(String relativePath) {
+        written.add(relativePath);
+    }
+    
+    /**
+     * Counts a file that was left as it was, or linked, because its content did not change.
+     */
+    public void countSkipped() {
+        skipped.incrementAndGet();
+    }
+    
+    /**
+     * Records files of the previous build that are no longer part of the site.
+     * 
+     * @param relativePaths the site-relative paths of the removed files
+     */
+    public void recordDeleted(Collection<String> relativePaths) {
+        deleted.addAll(relativePaths);
+    }
+    
+    /**
+     * Gets the files whose content was written by the build.
+     * 
+     * @return an unmodifiable view of the written paths
+     */
+    public Set<String> writtenPaths() {
+        return Collections.unmodifiableSet(written);
+    }
+    
+    /**
+     * Gets the files of the previous build that are no longer part of the site.
+     * 
+     * @return an unmodifiable view of the deleted paths
+     */
+    public Set<String> deletedPaths() {
+        return Collections.unmodifiableSet(deleted);
+    }
+    
+    /**
+     * Gets the number of files written by the build.
+     * 
+     * @return the count
+     */
+    public int getWrittenCount() {
+        return written.size();
+    }
+    
+    /**
+     * Gets the number of files left unchanged by the build.
+     * 
+     * @return the count
+     */
+    public int getSkippedCount() {
+        return skipped.get();
+    }
+    
+    /**
+     * Gets the number of files deleted by the build.
+     * 
+     * @return the count
+     */
+    public int getDeletedCount() {
+        return deleted.size();
+    }
+    
+    /**
+     * Loads a ledger written by {@link #save(Path)}.
+     * 
+     * @param ledgerFile the ledger file
+     * @return the loaded ledger, or an empty ledger if the file does not exist
+     * @throws IOException if the file exists but cannot be read
+     */
+    public static OutputLedger load(Path ledgerFile) throws IOException {
+        OutputLedger ledger = new OutputLedger();
+        try (BufferedReader reader = Files.newBufferedReader(ledgerFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('\t');
+                if (separator >= 0) {
+                    ledger.record(line.substring(0, separator), line.substring(separator + 1));
+                } else if (!line.isEmpty()) {
+                    ledger.record(line);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return ledger;
+        }
+        return ledger;
+    }
+    
+    /**
+     * Writes the ledger, one path per line followed by a tab and its hash if known,
+     * replacing any previous ledger atomically.
+     * 
+     * @param ledgerFile the ledger file
+     * @throws IOException if the ledger cannot be written
+     */
+    public void save(Path ledgerFile) throws IOException {
+        Files.createDirectories(ledgerFile.getParent());
+        Path temporaryFile = ledgerFile.resolveSibling(ledgerFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : hashes.entrySet()) {
+                writer.write(entry.getKey());
+                if (!entry.getValue().isEmpty()) {
+                    writer.write('\t');
+                    writer.write(entry.getValue());
+                }
+                writer.newLine();
+            }
+        }
+        Files.move(temporaryFile, ledgerFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
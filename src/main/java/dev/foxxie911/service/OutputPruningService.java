@@ -0,0 +1,212 @@
+package dev.foxxie911.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.config.PublishMode;
+import dev.foxxie911.exception.FileProcessingException;
+
+/**
+ * Service that removes outputs left behind by renamed or deleted articles.
+ * Compares the ledger of the previous build with the files produced by the current one
+ * and deletes the difference in parallel batches, then removes directories left empty.
+ * A dry run of an in-place build leaves the orphans on disk, so it lists them in a separate
+ * pending file next to the ledger; the saved ledger only ever holds what a build produced.
+ * Orphans that fail to delete are listed there too and tried again by the next build, and
+ * ledger entries that resolve outside the output root are never deleted.
+ */
+@Singleton
+public class OutputPruningService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OutputPruningService.class);
+    private static final int DELETE_BATCH_SIZE = 256;
+    
+    private final BlogConfiguration configuration;
+    private final SiteOutputService outputService;
+    
+    @Inject
+    public OutputPruningService(BlogConfiguration configuration, SiteOutputService outputService) {
+        this.configuration = configuration;
+        this.outputService = outputService;
+    }
+    
+    /**
+     * Deletes outputs that the previous build produced but the current build did not,
+     * and stores the current ledger for the next run. Logs how many files the build
+     * wrote, left unchanged and deleted.
+     * 
+     * @return the number of orphaned files found
+     * @throws FileProcessingException if the ledger cannot be written
+     */
+    public int pruneOrphans() throws FileProcessingException {
+        Path ledgerFile = outputService.getLedgerFile();
+        Path pendingFile = getPendingFile();
+        OutputLedger currentLedger = outputService.getLedger();
+        OutputLedger previousLedger = outputService.getPreviousLedger();
+        OutputLedger pendingOrphans;
+        try {
+            pendingOrphans = OutputLedger.load(pendingFile);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to read pending orphaned outputs", e, pendingFile);
+        }
+        // Orphans an earlier run left on disk are still candidates, with the hashes they were written with
+        for (String path : pendingOrphans.paths()) {
+            if (!previousLedger.paths().contains(path)) {
+                previousLedger.record(path, pendingOrphans.hashOf(path));
+            }
+        }
+        
+        Set<String> produced = currentLedger.paths();
+        Path outputRoot = outputService.getOutputRoot();
+        List<String> orphans = previousLedger.paths().stream()
+            .filter(path -> !produced.contains(path))
+            .filter(path -> isInside(outputRoot, path))
+            .toList();
+        boolean atomic = configuration.getPublishMode() == PublishMode.ATOMIC;
+        OutputLedger stillPending = new OutputLedger();
+        
+        if (orphans.isEmpty()) {
+            logger.info("No orphaned outputs to prune");
+        } else if (atomic) {
+            // A release only ever holds what its build produced, so a dry run changes nothing here
+            logger.info("{} orphaned outputs were left out of the new release", orphans.size());
+            currentLedger.recordDeleted(orphans);
+        } else if (configuration.isPruneDryRun()) {
+            orphans.forEach(path -> logger.info("Would delete orphaned output: {}", path));
+            logger.info("Dry run: {} orphaned outputs would be deleted", orphans.size());
+            orphans.forEach(path -> stillPending.record(path, previousLedger.hashOf(path)));
+        } else {
+            Set<String> deleted = deleteOrphans(outputRoot, orphans);
+            logger.info("Pruned {} orphaned outputs", deleted.size());
+            currentLedger.recordDeleted(deleted);
+            orphans.stream()
+                .filter(path -> !deleted.contains(path))
+                .forEach(path -> stillPending.record(path, previousLedger.hashOf(path)));
+        }
+        logger.info("Output files: {} written, {} unchanged, {} deleted", currentLedger.getWrittenCount(),
+            currentLedger.getSkippedCount(), currentLedger.getDeletedCount());
+        
+        try {
+            currentLedger.save(ledgerFile);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write output ledger", e, ledgerFile);
+        }
+        try {
+            if (stillPending.paths().isEmpty()) {
+                Files.deleteIfExists(pendingFile);
+            } else {
+                stillPending.save(pendingFile);
+            }
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write pending orphaned outputs", e, pendingFile);
+        }
+        return orphans.size();
+    }
+    
+    /**
+     * Gets the file listing orphans that a dry run left in the site, kept apart from the ledger
+     * so the ledger never claims a file the build did not produce.
+     * 
+     * @return the pending orphans file next to the ledger
+     */
+    public Path getPendingFile() {
+        Path ledgerFile = outputService.getLedgerFile();
+        return ledgerFile.resolveSibling(ledgerFile.getFileName().toString().replace(".txt", "-pending.txt"));
+    }
+    
+    /**
+     * Checks that a ledger entry names a file inside the output root, so an edited or corrupt
+     * ledger cannot make pruning delete files elsewhere.
+     * 
+     * @param outputRoot the directory the paths are relative to
+     * @param relativePath the ledger entry
+     * @return true if the entry resolves inside the output root
+     */
+    private static boolean isInside(Path outputRoot, String relativePath) {
+        Path root = outputRoot.normalize();
+        Path resolved = root.resolve(relativePath).normalize();
+        if (resolved.startsWith(root) && !resolved.equals(root)) {
+            return true;
+        }
+        logger.warn("Ignoring ledger entry outside the output root: {}", relativePath);
+        return false;
+    }
+    
+    /**
+     * Deletes orphaned files in parallel batches and removes the directories they leave empty.
+     * 
+     * @param outputRoot the directory the paths are relative to
+     * @param orphans the site-relative paths to delete
+     * @return the paths that are gone, either deleted now or already missing
+     */
+    private Set<String> deleteOrphans(Path outputRoot, List<String> orphans) {
+        Set<String> deleted = ConcurrentHashMap.newKeySet();
+        int batches = (orphans.size() + DELETE_BATCH_SIZE - 1) / DELETE_BATCH_SIZE;
+        
+        WorkerPool.runParallel(configuration.getPerformance().getIoThreads(), () ->
+            IntStream.range(0, batches).parallel().forEach(batch -> {
+                int end = Math.min(orphans.size(), (batch + 1) * DELETE_BATCH_SIZE);
+                for (String orphan : orphans.subList(batch * DELETE_BATCH_SIZE, end)) {
+                    try {
+                        Files.deleteIfExists(outputRoot.resolve(orphan));
+                        deleted.add(orphan);
+                    } catch (IOException e) {
+                        logger.warn("Failed to delete orphaned output: {}", orphan, e);
+                    }
+                }
+            }));
+        
+        removeEmptyDirectories(outputRoot, deleted);
+        return deleted;
+    }
+    
+    /**
+     * Removes the parent directories of deleted files, deepest first, while they are empty.
+     * 
+     * @param outputRoot the directory the paths are relative to
+     * @param orphans the site-relative paths that were deleted
+     */
+    private void removeEmptyDirectories(Path outputRoot, Collection<String> orphans) {
+        Set<Path> directories = new TreeSet<>(Comparator.comparingInt(Path::getNameCount).reversed()
+            .thenComparing(Comparator.naturalOrder()));
+        for (String orphan : orphans) {
+            for (Path parent = outputRoot.resolve(orphan).getParent();
+                    parent != null && parent.startsWith(outputRoot) && !parent.equals(outputRoot);
+                    parent = parent.getParent()) {
+                if (!directories.add(parent)) {
+                    break;
+                }
+            }
+        }
+        
+        int removed = 0;
+        for (Path directory : directories) {
+            try {
+                Files.delete(directory);
+                removed++;
+            } catch (DirectoryNotEmptyException | NoSuchFileException e) {
+                // still in use by current outputs, or already gone
+            } catch (IOException e) {
+                logger.warn("Failed to remove empty directory: {}", directory, e);
+            }
+        }
+        logger.debug("Removed {} empty output directories", removed);
+    }
+}
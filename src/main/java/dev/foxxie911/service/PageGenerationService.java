@@ -1,14 +1,19 @@
 package dev.foxxie911.service;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -20,49 +25,68 @@ import dev.foxxie911.config.BlogConfiguration;
 import dev.foxxie911.exception.FileProcessingException;
 import dev.foxxie911.models.Article;
 import dev.foxxie911.models.ArticleList;
+import dev.foxxie911.models.ArticlePageContext;
+import dev.foxxie911.models.HomePageContext;
+import dev.foxxie911.models.RenderedFile;
+import dev.foxxie911.models.SiteContext;
 
 /**
  * Service for generating HTML pages from templates and article data.
  * Handles both homepage and individual article page generation.
+ * The body of a large article is never rendered to a string: its page template is rendered
+ * around a placeholder, and the body is streamed from the source into the page at that point.
  */
 @Singleton
 public class PageGenerationService {
     
     private static final Logger logger = LoggerFactory.getLogger(PageGenerationService.class);
-    private static final String HOME_TEMPLATE = "mustaches/home.mustache";
-    private static final String ARTICLE_TEMPLATE = "mustaches/article.mustache";
+    static final String HOME_TEMPLATE = "mustaches/home.mustache";
+    static final String ARTICLE_TEMPLATE = "mustaches/article.mustache";
+    /** Stands in for the body of a large article; contains nothing a template would escape. */
+    private static final String BODY_PLACEHOLDER = "markblog-body-" + UUID.randomUUID();
+    private static final byte[] BODY_PLACEHOLDER_BYTES = BODY_PLACEHOLDER.getBytes(StandardCharsets.UTF_8);
     
     private final BlogConfiguration configuration;
     private final TemplateRenderingService templateService;
+    private final SiteOutputService outputService;
+    private final RelatedArticlesService relatedArticlesService;
+    private final ArticleParsingService parsingService;
+    private final SiteContext siteContext;
+    private final Set<String> generatedPaths = ConcurrentHashMap.newKeySet();
     
     @Inject
-    public PageGenerationService(BlogConfiguration configuration, TemplateRenderingService templateService) {
+    public PageGenerationService(
+            BlogConfiguration configuration,
+            TemplateRenderingService templateService,
+            SiteOutputService outputService,
+            RelatedArticlesService relatedArticlesService,
+            ArticleParsingService parsingService) {
+        
         this.configuration = configuration;
         this.templateService = templateService;
+        this.outputService = outputService;
+        this.relatedArticlesService = relatedArticlesService;
+        this.parsingService = parsingService;
+        this.siteContext = new SiteContext(configuration.getBlogName(), configuration.getBlogBio());
     }
     
     /**
-     * Generates the homepage with a list of all articles.
+     * Generates the homepage listing the latest articles.
+     * The input does not need to be sorted. With a home page size the newest articles are picked with
+     * a heap bounded by that size; without one all of them are listed, which sorts every article.
      * 
-     * @param articles the list of articles to display
+     * @param articles the articles to choose from, in any order
      * @throws FileProcessingException if there are issues generating the homepage
      */
     public void generateHomePage(List<Article> articles) throws FileProcessingException {
-        logger.info("Generating homepage with {} articles", articles.size());
-        
-        List<ArticleList> articleListItems = articles.stream()
-            .map(this::createArticleListItem)
-            .collect(Collectors.toList());
+        List<Article> latest = LatestCollector.latest(articles, configuration.getHomePageSize(),
+            ArticleDates.NEWEST_FIRST);
+        logger.info("Generating homepage with {} of {} articles", latest.size(), articles.size());
         
-        Map<String, Object> context = new HashMap<>();
-        context.put("blog_name", configuration.getBlogName());
-        context.put("blog_bio", configuration.getBlogBio());
-        context.put("article_list", articleListItems);
+        RenderedFile renderedHtml = templateService.renderFile(configuration.getThemePath(), HOME_TEMPLATE,
+            siteContext, new HomePageContext(createArticleListItems(latest)));
         
-        String renderedHtml = templateService.renderTemplate(HOME_TEMPLATE, context);
-        
-        Path outputPath = configuration.getSitePath().resolve("index.html");
-        writeHtmlFile(outputPath, renderedHtml);
+        Path outputPath = writeHtmlFile("index.html", renderedHtml);
         
         logger.info("Homepage generated successfully at: {}", outputPath);
     }
@@ -76,10 +100,8 @@ public class PageGenerationService {
     public void generateArticlePages(List<Article> articles) throws FileProcessingException {
         logger.info("Generating {} article pages", articles.size());
         
-        Path articlesBasePath = configuration.getSitePath().resolve("articles");
-        
         for (Article article : articles) {
-            generateSingleArticlePage(article, articlesBasePath);
+            generateSingleArticlePage(article);
         }
         
         logger.info("All article pages generated successfully");
@@ -89,28 +111,112 @@ public class PageGenerationService {
      * Generates a single article page.
      * 
      * @param article the article to generate a page for
-     * @param articlesBasePath the base path for article pages
      * @throws FileProcessingException if there are issues generating the page
      */
-    private void generateSingleArticlePage(Article article, Path articlesBasePath) throws FileProcessingException {
-        String year = String.valueOf(article.createdAt().getYear());
-        String month = article.createdAt().getMonth().toString();
-        
-        Path articlePath = articlesBasePath.resolve(year).resolve(month);
-        
-        Map<String, Object> context = new HashMap<>();
-        context.put("blog_name", configuration.getBlogName());
-        context.put("article", article);
-        
-        String renderedHtml = templateService.renderTemplate(ARTICLE_TEMPLATE, context);
-        
-        String fileName = article.title().replaceAll("[\\p{Punct}\\s]", "") + ".html";
-        Path outputPath = articlePath.resolve(fileName);
-        
-        writeHtmlFile(outputPath, renderedHtml);
+    private void generateSingleArticlePage(Article article) throws FileProcessingException {
+        writeArticlePage(article, renderArticlePage(article));
+    }
+    
+    /**
+     * Renders the page of a single article without writing it.
+     * The site-wide values are shared by every page, so only a small per-article scope is allocated.
+     * The page of a large article is rendered with a placeholder for its body, which is streamed in when written.
+     * 
+     * @param article the article to render
+     * @return the rendered HTML as UTF-8 bytes, with its content hash
+     * @throws FileProcessingException if there are issues rendering the page
+     */
+    public RenderedFile renderArticlePage(Article article) throws FileProcessingException {
+        List<ArticleList> relatedArticles = createArticleListItems(relatedArticlesService.relatedTo(article));
+        Article scope = article.bodySource() == null ? article : new Article(article.title(), article.createdAt(),
+            BODY_PLACEHOLDER, article.links(), article.statistics(), article.bodySource(), article.source());
+        return templateService.renderFile(configuration.getThemePath(), ARTICLE_TEMPLATE, siteContext,
+            new ArticlePageContext(scope, relatedArticles));
+    }
+    
+    /**
+     * Writes the rendered page of a single article to its output location.
+     * 
+     * @param article the article the page belongs to
+     * @param renderedHtml the rendered HTML
+     * @throws FileProcessingException if there are issues writing the page
+     */
+    public void writeArticlePage(Article article, RenderedFile renderedHtml) throws FileProcessingException {
+        Path outputPath;
+        if (article.bodySource() == null) {
+            outputPath = writeHtmlFile(articlePagePath(article), renderedHtml);
+        } else {
+            String relativePath = articlePagePath(article);
+            outputPath = outputService.writeFile(relativePath,
+                out -> streamArticlePage(out, renderedHtml.content(), article.bodySource()));
+            generatedPaths.add(relativePath);
+        }
         logger.debug("Generated article page: {}", outputPath);
     }
     
+    /**
+     * Writes the page of a large article, rendering its body from the source wherever
+     * the page rendered by {@link #renderArticlePage(Article)} holds the placeholder.
+     * 
+     * @param out the stream receiving the page
+     * @param page the rendered page with body placeholders
+     * @param bodySource the Markdown source of the body
+     */
+    private void streamArticlePage(OutputStream out, byte[] page, Path bodySource)
+            throws IOException, FileProcessingException {
+        Writer body = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        int start = 0;
+        for (int at = indexOf(page, BODY_PLACEHOLDER_BYTES, start); at >= 0;
+                at = indexOf(page, BODY_PLACEHOLDER_BYTES, start)) {
+            out.write(page, start, at - start);
+            parsingService.renderBody(bodySource, body);
+            body.flush();
+            start = at + BODY_PLACEHOLDER_BYTES.length;
+        }
+        out.write(page, start, page.length - start);
+    }
+    
+    private static int indexOf(byte[] array, byte[] target, int from) {
+        for (int i = from; i <= array.length - target.length; i++) {
+            if (Arrays.equals(array, i, i + target.length, target, 0, target.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Keeps the existing page of an article whose inputs are unchanged, without rendering it.
+     * 
+     * @param article the article the page belongs to
+     * @return true if the page was kept, false if it does not exist and must be rendered
+     */
+    public boolean retainArticlePage(Article article) {
+        String relativePath = articlePagePath(article);
+        if (!outputService.retainFile(relativePath)) {
+            return false;
+        }
+        generatedPaths.add(relativePath);
+        return true;
+    }
+    
+    /**
+     * Creates the list items of several articles, in the given order.
+     * 
+     * @param articles the articles to convert
+     * @return the ArticleList items
+     */
+    private List<ArticleList> createArticleListItems(List<Article> articles) {
+        if (articles.isEmpty()) {
+            return List.of();
+        }
+        List<ArticleList> items = new ArrayList<>(articles.size());
+        for (Article article : articles) {
+            items.add(createArticleListItem(article));
+        }
+        return items;
+    }
+    
     /**
      * Creates an ArticleList item from an Article for homepage display.
      * 
@@ -118,32 +224,40 @@ public class PageGenerationService {
      * @return the ArticleList item
      */
     private ArticleList createArticleListItem(Article article) {
-        String title = article.title();
-        int year = article.createdAt().getYear();
-        String month = article.createdAt().getMonth().toString();
-        String link = year + "/" + month + "/" + title.replaceAll("[\\p{Punct}\\s]", "") + ".html";
-        return new ArticleList(title, link);
+        return new ArticleList(article.title(), ArticlePaths.articleLink(article), article.statistics());
+    }
+    
+    /**
+     * Gets the site-relative output path of an article page.
+     * 
+     * @param article the article to locate
+     * @return the page path relative to the site root, using forward slashes
+     */
+    public String articlePagePath(Article article) {
+        return ArticlePaths.pagePath(article);
     }
     
     /**
-     * Writes HTML content to a file, creating directories as needed.
+     * Gets the paths of all pages generated so far, relative to the site root.
      * 
-     * @param outputPath the path to write the HTML file to
+     * @return an unmodifiable view of the generated page paths
+     */
+    public Set<String> getGeneratedPaths() {
+        return Collections.unmodifiableSet(generatedPaths);
+    }
+    
+    /**
+     * Writes HTML content to a file in the site output, creating directories as needed.
+     * The file is left untouched if its content did not change.
+     * 
+     * @param relativePath the path of the HTML file relative to the site root
      * @param htmlContent the HTML content to write
+     * @return the absolute path of the file
      * @throws FileProcessingException if there are issues writing the file
      */
-    private void writeHtmlFile(Path outputPath, String htmlContent) throws FileProcessingException {
-        try {
-            Files.createDirectories(outputPath.getParent());
-            Files.writeString(
-                outputPath,
-                htmlContent,
-                StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.TRUNCATE_EXISTING
-            );
-        } catch (IOException e) {
-            throw new FileProcessingException("Failed to write HTML file: " + outputPath, e, outputPath);
-        }
+    private Path writeHtmlFile(String relativePath, RenderedFile htmlContent) throws FileProcessingException {
+        Path outputPath = outputService.writeFile(relativePath, htmlContent);
+        generatedPaths.add(relativePath);
+        return outputPath;
     }
 }
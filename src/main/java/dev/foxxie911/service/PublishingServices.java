@@ -0,0 +1,18 @@
+package dev.foxxie911.service;
+
+/**
+ * Components that check the output of a build and make it live: internal links are validated
+ * against the generated pages, outputs the build no longer produces are pruned, the change set
+ * is exported for the deploy step and the output is published.
+ * 
+ * @param outputService the owner of every write into the site, which publishes the build
+ * @param linkValidationService the check of internal links against the generated output
+ * @param pruningService the removal of outputs the build no longer produces
+ * @param changeSetService the export of the outputs that changed since the previous build
+ */
+public record PublishingServices(
+        SiteOutputService outputService,
+        LinkValidationService linkValidationService,
+        OutputPruningService pruningService,
+        ChangeSetService changeSetService) {
+}
@@ -0,0 +1,205 @@
+package dev.foxxie911.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Related-article state kept between builds, keyed by article path relative to the article directory.
+ * Each entry holds the file size and modification time its MinHash signature was computed from,
+ * so unchanged articles are neither read nor re-ranked on the next build.
+ */
+public class RelatedArticlesCache {
+    
+    private static final int MAGIC = 0x4d42524c;
+    private static final int VERSION = 1;
+    
+    private final int limit;
+    private final Map<String, Entry> entries = new HashMap<>();
+    
+    /**
+     * Constructs a new, empty RelatedArticlesCache.
+     * 
+     * @param limit the number of related articles each cached list was ranked for
+     */
+    public RelatedArticlesCache(int limit) {
+        this.limit = limit;
+    }
+    
+    /**
+     * Gets the number of related articles each cached list was ranked for.
+     * 
+     * @return the limit, or 0 for an empty cache
+     */
+    public int limit() {
+        return limit;
+    }
+    
+    /**
+     * Gets the cached entry of an article.
+     * 
+     * @param relativePath the article path relative to the article directory
+     * @return the entry, or null if the article is not cached
+     */
+    public Entry get(String relativePath) {
+        return entries.get(relativePath);
+    }
+    
+    /**
+     * Caches the entry of an article, replacing any previous one.
+     * 
+     * @param relativePath the article path relative to the article directory
+     * @param entry the entry to cache
+     */
+    public void put(String relativePath, Entry entry) {
+        entries.put(relativePath, entry);
+    }
+    
+    /**
+     * Gets all cached entries.
+     * 
+     * @return the entries by relative article path
+     */
+    public Map<String, Entry> entries() {
+        return entries;
+    }
+    
+    /**
+     * Loads a cache written by {@link #save(Path, long)}.
+     * A cache written by another version is ignored, so every article is recomputed.
+     * 
+     * @param cacheFile the cache file
+     * @return the loaded cache, or an empty cache if the file does not exist or has another version
+     * @throws IOException if the file exists but cannot be read
+     */
+    public static RelatedArticlesCache load(Path cacheFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != MinHash.SIGNATURE_LENGTH) {
+                return new RelatedArticlesCache(0);
+            }
+            
+            RelatedArticlesCache cache = new RelatedArticlesCache(in.readInt());
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String relativePath = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                long[] signature = null;
+                if (in.readBoolean()) {
+                    signature = new long[MinHash.SIGNATURE_LENGTH];
+                    for (int j = 0; j < signature.length; j++) {
+                        signature[j] = in.readLong();
+                    }
+                }
+                int relatedCount = in.readInt();
+                List<String> related = new ArrayList<>(relatedCount);
+                for (int j = 0; j < relatedCount; j++) {
+                    related.add(in.readUTF());
+                }
+                cache.put(relativePath, new Entry(size, lastModified, signature, List.copyOf(related)));
+            }
+            return cache;
+        } catch (NoSuchFileException e) {
+            return new RelatedArticlesCache(0);
+        }
+    }
+    
+    /**
+     * Writes the cache, replacing any previous cache atomically.
+     * A cache that would be larger than the size cap is not written, and the previous cache is
+     * discarded, so the next build starts from scratch rather than from stale entries.
+     * 
+     * @param cacheFile the cache file
+     * @param maxBytes the largest size the cache file may have, or 0 for no cap
+     * @return true if the cache was written, false if it exceeded the size cap
+     * @throws IOException if the cache cannot be written
+     */
+    public boolean save(Path cacheFile, long maxBytes) throws IOException {
+        if (maxBytes > 0 && encodedSize() > maxBytes) {
+            Files.deleteIfExists(cacheFile);
+            return false;
+        }
+        Files.createDirectories(cacheFile.getParent());
+        Path temporaryFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(MinHash.SIGNATURE_LENGTH);
+            out.writeInt(limit);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> cached : entries.entrySet()) {
+                Entry entry = cached.getValue();
+                out.writeUTF(cached.getKey());
+                out.writeLong(entry.size());
+                out.writeLong(entry.lastModified());
+                out.writeBoolean(entry.signature() != null);
+                if (entry.signature() != null) {
+                    for (long value : entry.signature()) {
+                        out.writeLong(value);
+                    }
+                }
+                out.writeInt(entry.related().size());
+                for (String related : entry.related()) {
+                    out.writeUTF(related);
+                }
+            }
+        }
+        Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+    
+    /**
+     * Computes the size of the file {@link #save(Path, long)} writes, without encoding it.
+     * 
+     * @return the cache file size in bytes
+     */
+    long encodedSize() {
+        long bytes = 5 * Integer.BYTES;
+        for (Map.Entry<String, Entry> cached : entries.entrySet()) {
+            Entry entry = cached.getValue();
+            bytes += utfSize(cached.getKey()) + 2 * Long.BYTES + 1 + Integer.BYTES;
+            if (entry.signature() != null) {
+                bytes += (long) entry.signature().length * Long.BYTES;
+            }
+            for (String related : entry.related()) {
+                bytes += utfSize(related);
+            }
+        }
+        return bytes;
+    }
+    
+    /**
+     * Computes the size of a string written by {@link DataOutputStream#writeUTF(String)}: a two byte length
+     * followed by modified UTF-8, which encodes the NUL character in two bytes.
+     */
+    private static long utfSize(String value) {
+        long bytes = 2;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            bytes += c >= 0x0001 && c <= 0x007f ? 1 : c <= 0x07ff ? 2 : 3;
+        }
+        return bytes;
+    }
+    
+    /**
+     * Cached state of a single article.
+     * 
+     * @param size the file size the signature was computed from
+     * @param lastModified the modification time the signature was computed from, in milliseconds
+     * @param signature the MinHash signature, or null if the article contains no words
+     * @param related the relative paths of the related articles, most similar first
+     */
+    public record Entry(long size, long lastModified, long[] signature, List<String> related) {
+    }
+}
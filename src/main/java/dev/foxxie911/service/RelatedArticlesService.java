@@ -0,0 +1,452 @@
+package dev.foxxie911.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.Article;
+import dev.foxxie911.models.ArticleSource;
+import dev.foxxie911.repository.ArticleRepository;
+
+/**
+ * Finds related articles by content similarity before article pages are rendered.
+ * Each article is summarised by a MinHash signature of its Markdown source, and candidates
+ * are only compared when their signatures share a locality-sensitive hashing bucket, so the
+ * work grows with the number of articles rather than the number of pairs. Signatures and
+ * rankings are cached between builds; only changed articles and the articles whose buckets
+ * or rankings they touch are ranked again.
+ */
+@Singleton
+public class RelatedArticlesService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RelatedArticlesService.class);
+    
+    /** Candidates estimated to be less similar than this are never listed. */
+    private static final double MIN_SIMILARITY = 0.1;
+    
+    /** Buckets larger than this hold boilerplate shared by many articles and are not used for candidates. */
+    private static final int MAX_BUCKET_SIZE = 500;
+    
+    private final BlogConfiguration configuration;
+    private final ArticleRepository articleRepository;
+    private final DiagnosticsCollector diagnostics;
+    private final ArticleSourceReader sourceReader = new ArticleSourceReader();
+    private volatile Map<String, List<Article>> relatedArticles = Map.of();
+    private volatile int rankedCount;
+    
+    @Inject
+    public RelatedArticlesService(BlogConfiguration configuration, ArticleRepository articleRepository,
+            DiagnosticsCollector diagnostics) {
+        this.configuration = configuration;
+        this.articleRepository = articleRepository;
+        this.diagnostics = diagnostics;
+    }
+    
+    /**
+     * Computes the related articles of every article, reusing the cache of the previous build.
+     * Does nothing when related articles are disabled. Shards rank against the whole article set,
+     * so their results match those of a full build. An article that cannot be read is recorded in the
+     * build diagnostics and left out, so it has no related articles and is listed by none.
+     * 
+     * @throws FileProcessingException if the articles or the cache cannot be read, the cache cannot be written,
+     *         or an article cannot be read and the error policy aborts the build
+     */
+    public void computeRelated() throws FileProcessingException {
+        int limit = configuration.getRelatedArticles();
+        if (limit == 0) {
+            return;
+        }
+        
+        long startNanos = System.nanoTime();
+        Path cacheFile = configuration.getCachePath().resolve(cacheFileName());
+        RelatedArticlesCache previous;
+        try {
+            previous = RelatedArticlesCache.load(cacheFile);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to read related articles cache", e, cacheFile);
+        }
+        
+        List<IndexedArticle> articles = findArticles();
+        long[][] signatures = new long[articles.size()][];
+        boolean[] changed = new boolean[articles.size()];
+        boolean[] failed = new boolean[articles.size()];
+        int signed = computeSignatures(articles, previous, signatures, changed, failed);
+        
+        Map<Long, Bucket> buckets = buildBuckets(signatures);
+        boolean[] affected = findAffected(articles, previous, limit, signatures, changed, buckets);
+        
+        RelatedArticlesCache current = new RelatedArticlesCache(limit);
+        Map<String, Integer> indexByPath = new HashMap<>();
+        for (int i = 0; i < articles.size(); i++) {
+            indexByPath.put(articles.get(i).relativePath(), i);
+        }
+        
+        int ranked = 0;
+        int[] visited = new int[articles.size()];
+        Map<String, List<Article>> related = new HashMap<>();
+        for (int i = 0; i < articles.size(); i++) {
+            // Unreadable articles stay out of the cache, so the next build reads them again
+            if (failed[i]) {
+                continue;
+            }
+            IndexedArticle article = articles.get(i);
+            List<String> relatedPaths;
+            if (affected[i]) {
+                relatedPaths = rank(articles, i, limit, signatures, buckets, visited);
+                ranked++;
+            } else {
+                relatedPaths = previous.get(article.relativePath()).related();
+            }
+            
+            BasicFileAttributes attributes = article.source().attributes();
+            current.put(article.relativePath(), new RelatedArticlesCache.Entry(attributes.size(),
+                attributes.lastModifiedTime().toMillis(), signatures[i], relatedPaths));
+            related.put(article.relativePath(), relatedPaths.stream()
+                .map(path -> articles.get(indexByPath.get(path)).header())
+                .toList());
+        }
+        
+        try {
+            long maxBytes = configuration.getPerformance().getCacheMaxBytes();
+            if (!current.save(cacheFile, maxBytes)) {
+                logger.warn("Related articles cache exceeds {} bytes and was not kept", maxBytes);
+            }
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write related articles cache", e, cacheFile);
+        }
+        
+        relatedArticles = related;
+        rankedCount = ranked;
+        logger.info("Ranked related articles for {} of {} articles ({} read) in {} ms",
+            ranked, articles.size(), signed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+    
+    /**
+     * Gets the number of articles whose ranking the last call to {@link #computeRelated()} computed
+     * again rather than taking from the cache.
+     * 
+     * @return the number of ranked articles
+     */
+    int getRankedCount() {
+        return rankedCount;
+    }
+    
+    /**
+     * Gets the related articles of an article, as computed by the last call to {@link #computeRelated()}.
+     * 
+     * @param article the article
+     * @return the related articles with empty bodies, most similar first, or none if the article has no source
+     */
+    public List<Article> relatedTo(Article article) {
+        return article.source() == null ? List.of() : relatedTo(article.source());
+    }
+    
+    /**
+     * Gets the related articles of an article source, as computed by the last call to {@link #computeRelated()}.
+     * Articles are told apart by their source path, since two directories may hold articles with the same
+     * title and date.
+     * 
+     * @param source the path of the article source
+     * @return the related articles with empty bodies, most similar first
+     */
+    public List<Article> relatedTo(Path source) {
+        return relatedArticles.getOrDefault(relativePath(source), List.of());
+    }
+    
+    /**
+     * Collects every valid article source together with the header derived from its file name.
+     * 
+     * @return the articles, in walk order
+     * @throws FileProcessingException if the article directory cannot be read
+     */
+    private List<IndexedArticle> findArticles() throws FileProcessingException {
+        List<IndexedArticle> articles = new ArrayList<>();
+        try {
+            articleRepository.walkAllArticleSources(source ->
+                MarkdownParsingService.articleHeader(source.path().getFileName().toString())
+                    .ifPresent(header -> articles.add(new IndexedArticle(relativePath(source.path()), source,
+                        header))));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileProcessingException("Interrupted while reading article directory", e,
+                configuration.getArticlePath());
+        }
+        return articles;
+    }
+    
+    /**
+     * Fills in the signature of every article, reading only those that changed since they were cached.
+     * An article that cannot be read is recorded in the build diagnostics and left without a signature.
+     * 
+     * @param articles the articles
+     * @param previous the cache of the previous build
+     * @param signatures receives the signature of each article
+     * @param changed receives whether each article is new or changed
+     * @param failed receives whether each article could not be read
+     * @return the number of articles that had to be read
+     * @throws FileProcessingException if a changed article cannot be read and the error policy aborts the build
+     */
+    private int computeSignatures(
+            List<IndexedArticle> articles,
+            RelatedArticlesCache previous,
+            long[][] signatures,
+            boolean[] changed,
+            boolean[] failed) throws FileProcessingException {
+        
+        for (int i = 0; i < articles.size(); i++) {
+            BasicFileAttributes attributes = articles.get(i).source().attributes();
+            RelatedArticlesCache.Entry cached = previous.get(articles.get(i).relativePath());
+            if (cached != null && cached.size() == attributes.size()
+                    && cached.lastModified() == attributes.lastModifiedTime().toMillis()) {
+                signatures[i] = cached.signature();
+            } else {
+                changed[i] = true;
+            }
+        }
+        
+        int[] toRead = IntStream.range(0, articles.size()).filter(i -> changed[i]).toArray();
+        AtomicReference<FileProcessingException> abort = new AtomicReference<>();
+        WorkerPool.runParallel(configuration.getPerformance().getCpuThreads(), () ->
+            IntStream.of(toRead).parallel().forEach(i -> {
+                ArticleSource source = articles.get(i).source();
+                long startNanos = System.nanoTime();
+                try {
+                    if (abort.get() == null) {
+                        signatures[i] = sign(source);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failed[i] = true;
+                    if (diagnostics.record("related", source.path(), e, startNanos)) {
+                        abort.compareAndSet(null,
+                            new FileProcessingException("Failed to read article file", e, source.path()));
+                    }
+                }
+            }));
+        if (abort.get() != null) {
+            throw abort.get();
+        }
+        return toRead.length;
+    }
+    
+    /**
+     * Computes the signature of an article source. Large articles are shingled from a buffered
+     * stream, like they are parsed, so signing them holds no more than a read buffer.
+     * 
+     * @param source the article source
+     * @return the signature, or null if the article contains no words
+     * @throws IOException if the source cannot be read or is not valid UTF-8
+     */
+    private long[] sign(ArticleSource source) throws IOException {
+        if (configuration.getPerformance().isLargeArticle(source.attributes().size())) {
+            try (Reader reader = Files.newBufferedReader(source.path(), StandardCharsets.UTF_8)) {
+                return MinHash.signature(reader);
+            }
+        }
+        try {
+            return MinHash.signature(sourceReader.read(source.path(), source.attributes().size()));
+        } finally {
+            sourceReader.trim();
+        }
+    }
+    
+    /**
+     * Places every signed article into one bucket per band.
+     * 
+     * @param signatures the article signatures
+     * @return the buckets by band key
+     */
+    private Map<Long, Bucket> buildBuckets(long[][] signatures) {
+        Map<Long, Bucket> buckets = new HashMap<>();
+        for (int i = 0; i < signatures.length; i++) {
+            if (signatures[i] == null) {
+                continue;
+            }
+            for (int band = 0; band < MinHash.BANDS; band++) {
+                buckets.computeIfAbsent(MinHash.bandKey(signatures[i], band), key -> new Bucket()).add(i);
+            }
+        }
+        return buckets;
+    }
+    
+    /**
+     * Finds the articles whose cached ranking may be out of date. These are the changed articles,
+     * the articles sharing a bucket with a changed one, and the articles whose ranking lists an
+     * article that changed or was removed. Every article is affected when the limit changed.
+     * Buckets too large for {@link #rank} to use are skipped here too, since sharing one never
+     * makes two articles candidates of each other.
+     * 
+     * @param articles the articles
+     * @param previous the cache of the previous build
+     * @param limit the number of related articles to rank
+     * @param signatures the article signatures
+     * @param changed whether each article is new or changed
+     * @param buckets the buckets by band key
+     * @return whether each article must be ranked again
+     */
+    private boolean[] findAffected(
+            List<IndexedArticle> articles,
+            RelatedArticlesCache previous,
+            int limit,
+            long[][] signatures,
+            boolean[] changed,
+            Map<Long, Bucket> buckets) {
+        
+        boolean[] affected = new boolean[articles.size()];
+        if (previous.limit() != limit) {
+            Arrays.fill(affected, true);
+            return affected;
+        }
+        
+        Set<String> changedPaths = new HashSet<>(previous.entries().keySet());
+        for (int i = 0; i < articles.size(); i++) {
+            if (!changed[i]) {
+                changedPaths.remove(articles.get(i).relativePath());
+            } else {
+                changedPaths.add(articles.get(i).relativePath());
+            }
+        }
+        
+        for (int i = 0; i < articles.size(); i++) {
+            if (changed[i]) {
+                affected[i] = true;
+                if (signatures[i] != null) {
+                    for (int band = 0; band < MinHash.BANDS; band++) {
+                        Bucket bucket = buckets.get(MinHash.bandKey(signatures[i], band));
+                        if (bucket.size <= MAX_BUCKET_SIZE) {
+                            bucket.markAll(affected);
+                        }
+                    }
+                }
+            } else if (!Collections.disjoint(previous.get(articles.get(i).relativePath()).related(), changedPaths)) {
+                affected[i] = true;
+            }
+        }
+        return affected;
+    }
+    
+    /**
+     * Ranks the candidates sharing a bucket with an article by estimated similarity.
+     * 
+     * @param articles the articles
+     * @param index the index of the article to rank candidates for
+     * @param limit the number of related articles to keep
+     * @param signatures the article signatures
+     * @param buckets the buckets by band key
+     * @param visited per-article marker reused across calls, so each candidate is compared once
+     * @return the relative paths of the most similar articles, most similar first
+     */
+    private List<String> rank(
+            List<IndexedArticle> articles,
+            int index,
+            int limit,
+            long[][] signatures,
+            Map<Long, Bucket> buckets,
+            int[] visited) {
+        
+        long[] signature = signatures[index];
+        if (signature == null) {
+            return List.of();
+        }
+        
+        int marker = index + 1;
+        visited[index] = marker;
+        List<ScoredArticle> candidates = new ArrayList<>();
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            Bucket bucket = buckets.get(MinHash.bandKey(signature, band));
+            if (bucket.size > MAX_BUCKET_SIZE) {
+                continue;
+            }
+            for (int j = 0; j < bucket.size; j++) {
+                int candidate = bucket.members[j];
+                if (visited[candidate] != marker) {
+                    visited[candidate] = marker;
+                    double similarity = MinHash.similarity(signature, signatures[candidate]);
+                    if (similarity >= MIN_SIMILARITY) {
+                        candidates.add(new ScoredArticle(articles.get(candidate).relativePath(), similarity));
+                    }
+                }
+            }
+        }
+        
+        return candidates.stream()
+            .sorted(Comparator.comparingDouble(ScoredArticle::similarity).reversed()
+                .thenComparing(ScoredArticle::relativePath))
+            .limit(limit)
+            .map(ScoredArticle::relativePath)
+            .toList();
+    }
+    
+    /**
+     * Gets the cache file name for this process. Shards keep separate caches so they can run concurrently.
+     * 
+     * @return the cache file name
+     */
+    private String cacheFileName() {
+        return switch (configuration.getBuildMode()) {
+            case SHARD -> String.format("related-articles-shard-%d-of-%d.bin",
+                configuration.getShardIndex(), configuration.getShardCount());
+            case FULL, MERGE -> "related-articles.bin";
+        };
+    }
+    
+    private String relativePath(Path source) {
+        return configuration.getArticlePath().relativize(source).toString().replace('\\', '/');
+    }
+    
+    /**
+     * An article source with its relative path and the header derived from its file name.
+     */
+    private record IndexedArticle(String relativePath, ArticleSource source, Article header) {
+    }
+    
+    /**
+     * A candidate with its estimated similarity.
+     */
+    private record ScoredArticle(String relativePath, double similarity) {
+    }
+    
+    /**
+     * Growable list of the article indices in one bucket.
+     */
+    private static final class Bucket {
+        
+        private int[] members = new int[2];
+        private int size;
+        
+        void add(int index) {
+            if (size == members.length) {
+                members = Arrays.copyOf(members, size * 2);
+            }
+            members[size++] = index;
+        }
+        
+        void markAll(boolean[] marks) {
+            for (int i = 0; i < size; i++) {
+                marks[members[i]] = true;
+            }
+        }
+    }
+}
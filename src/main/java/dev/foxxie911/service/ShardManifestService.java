@@ -0,0 +1,120 @@
+package dev.foxxie911.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.Article;
+import dev.foxxie911.models.ArticleStatistics;
+import dev.foxxie911.models.ShardArticle;
+import dev.foxxie911.models.ShardManifest;
+
+/**
+ * Service for exchanging article metadata between shard processes and the merge step.
+ * Each shard writes a manifest of the articles it rendered under the cache path; the
+ * merge step reads all of them back, so the filesystem is the only shared state.
+ */
+@Singleton
+public class ShardManifestService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ShardManifestService.class);
+    
+    /** Directory under the cache path that holds the shard manifests. */
+    static final String MANIFEST_DIRECTORY = "shards";
+    
+    private final BlogConfiguration configuration;
+    private final PageGenerationService pageGenerationService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Inject
+    public ShardManifestService(BlogConfiguration configuration, PageGenerationService pageGenerationService) {
+        this.configuration = configuration;
+        this.pageGenerationService = pageGenerationService;
+    }
+    
+    /**
+     * Writes the manifest for the shard built by this process.
+     * 
+     * @param articles the articles rendered by this shard
+     * @throws FileProcessingException if the manifest cannot be written
+     */
+    public void writeManifest(List<Article> articles) throws FileProcessingException {
+        List<ShardArticle> entries = articles.stream()
+            .map(article -> new ShardArticle(
+                article.title(),
+                article.createdAt().toString(),
+                pageGenerationService.articlePagePath(article),
+                article.links(),
+                article.statistics()))
+            .toList();
+        ShardManifest manifest = new ShardManifest(
+            configuration.getShardIndex(), configuration.getShardCount(), entries);
+        
+        Path manifestPath = manifestPath(configuration.getShardIndex());
+        Path temporaryPath = manifestPath.resolveSibling(manifestPath.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(manifestPath.getParent());
+            objectMapper.writeValue(temporaryPath.toFile(), manifest);
+            Files.move(temporaryPath, manifestPath,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write shard manifest", e, manifestPath);
+        }
+        logger.info("Wrote manifest for shard {}/{} with {} articles",
+            configuration.getShardIndex(), configuration.getShardCount(), entries.size());
+    }
+    
+    /**
+     * Reads the manifests of all shards and rebuilds the article list from them.
+     * Article bodies are not part of the manifests and are left empty.
+     * 
+     * @return the articles of all shards, in manifest order
+     * @throws FileProcessingException if any shard's manifest is missing or unreadable
+     */
+    public List<Article> readAllShards() throws FileProcessingException {
+        List<Article> articles = new ArrayList<>();
+        for (int shard = 0; shard < configuration.getShardCount(); shard++) {
+            Path manifestPath = manifestPath(shard);
+            if (!Files.isRegularFile(manifestPath)) {
+                throw new FileProcessingException("Missing manifest for shard " + shard, manifestPath);
+            }
+            
+            try {
+                ShardManifest manifest = objectMapper.readValue(manifestPath.toFile(), ShardManifest.class);
+                for (ShardArticle entry : manifest.articles()) {
+                    // Manifests written before statistics were recorded have none
+                    ArticleStatistics statistics = entry.statistics() != null
+                        ? entry.statistics()
+                        : ArticleStatistics.EMPTY;
+                    articles.add(new Article(entry.title(), LocalDate.parse(entry.createdAt()), "", entry.links(),
+                        statistics));
+                }
+            } catch (IOException | RuntimeException e) {
+                throw new FileProcessingException("Failed to read shard manifest", e, manifestPath);
+            }
+        }
+        
+        logger.info("Merged {} articles from {} shards", articles.size(), configuration.getShardCount());
+        return articles;
+    }
+    
+    private Path manifestPath(int shard) {
+        return configuration.getCachePath()
+            .resolve(MANIFEST_DIRECTORY)
+            .resolve(String.format("shard-%d-of-%d.json", shard, configuration.getShardCount()));
+    }
+}
@@ -0,0 +1,732 @@
+package dev.foxxie911.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.config.PublishMode;
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.RenderedFile;
+
+/**
+ * Service that owns every write into the generated site.
+ * In {@link PublishMode#IN_PLACE} mode files go straight into the site path. In
+ * {@link PublishMode#ATOMIC} mode the build is written into a new release directory,
+ * unchanged files are hard-linked from the live release, and the site path is switched
+ * to the new release with a single symlink rename once the build has succeeded.
+ * <p>
+ * Files whose content is unchanged are never rewritten. Rendered pages are compared by the
+ * content hash computed while rendering against the hash the previous build stored in its ledger,
+ * so in-place builds keep the modification times of unchanged pages and rsync or a CDN only
+ * transfer what actually changed. Pages too large to hold in memory are streamed into a temporary
+ * file and hashed on the way, then moved into place only if they changed. Temporary files live in a
+ * scratch directory under the cache path, never in the served site, and are cleared when a build begins.
+ * Output directories are created once per build and remembered, so writing a file costs no directory calls.
+ */
+@Singleton
+public class SiteOutputService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SiteOutputService.class);
+    private static final DateTimeFormatter RELEASE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final int RETAINED_RELEASES = 2;
+    private static final HexFormat HEX = HexFormat.of();
+    
+    private final BlogConfiguration configuration;
+    private volatile Path outputRoot;
+    private volatile Path liveRoot;
+    private volatile OutputLedger ledger = new OutputLedger();
+    private volatile OutputLedger previousLedger = new OutputLedger();
+    private volatile Set<Path> createdDirectories = ConcurrentHashMap.newKeySet();
+    
+    @Inject
+    public SiteOutputService(BlogConfiguration configuration) {
+        this.configuration = configuration;
+        this.outputRoot = configuration.getSitePath();
+    }
+    
+    /**
+     * Prepares the output location for a new build and loads the ledger of the previous one.
+     * 
+     * @throws FileProcessingException if the previous ledger cannot be read or the release directory
+     *         cannot be created
+     */
+    public void beginBuild() throws FileProcessingException {
+        Path sitePath = configuration.getSitePath();
+        ledger = new OutputLedger();
+        createdDirectories = ConcurrentHashMap.newKeySet();
+        try {
+            previousLedger = OutputLedger.load(getLedgerFile());
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to read output ledger", e, getLedgerFile());
+        }
+        try {
+            deleteRecursively(getScratchDirectory());
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to clear scratch directory", e, getScratchDirectory());
+        }
+        if (configuration.getPublishMode() == PublishMode.IN_PLACE) {
+            outputRoot = sitePath;
+            liveRoot = null;
+            return;
+        }
+        
+        String releaseName = LocalDateTime.now().format(RELEASE_NAME_FORMAT);
+        Path release = releasesDirectory().resolve(releaseName);
+        for (int attempt = 1; Files.exists(release); attempt++) {
+            release = releasesDirectory().resolve(releaseName + "-" + attempt);
+        }
+        try {
+            Files.createDirectories(release);
+            liveRoot = Files.isDirectory(sitePath) ? sitePath.toRealPath() : null;
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to create release directory", e, release);
+        }
+        outputRoot = release;
+        logger.info("Writing site into staging release: {}", release);
+    }
+    
+    /**
+     * Gets the directory the current build writes into.
+     * 
+     * @return the output root
+     */
+    public Path getOutputRoot() {
+        return outputRoot;
+    }
+    
+    /**
+     * Gets the ledger of files produced by the current build.
+     * 
+     * @return the current build's ledger
+     */
+    public OutputLedger getLedger() {
+        return ledger;
+    }
+    
+    /**
+     * Gets the ledger of the last build, as loaded when the current build began.
+     * 
+     * @return the previous build's ledger, empty if there was none
+     */
+    public OutputLedger getPreviousLedger() {
+        return previousLedger;
+    }
+    
+    /**
+     * Gets the ledger file of this process. Shards and the merge step each track
+     * only the outputs they produce, so they keep separate ledgers.
+     * 
+     * @return the ledger file in the cache directory
+     */
+    public Path getLedgerFile() {
+        return configuration.getCachePath().resolve("output-ledger" + processSuffix() + ".txt");
+    }
+    
+    /**
+     * Gets the directory temporary files are written into before they are moved into the site.
+     * Like the ledger it is separate per process, so a shard clearing it never touches another's files.
+     * 
+     * @return the scratch directory in the cache directory
+     */
+    public Path getScratchDirectory() {
+        return configuration.getCachePath().resolve("output-scratch" + processSuffix());
+    }
+    
+    /**
+     * Creates the directories of files about to be written, in parallel on the I/O threads.
+     * Each distinct directory is created once; later writes into it need no directory calls at all.
+     * 
+     * @param relativePaths the paths of the files relative to the site root
+     * @throws FileProcessingException if a directory cannot be created
+     */
+    public void prepareDirectories(Collection<String> relativePaths) throws FileProcessingException {
+        List<Path> directories = relativePaths.stream()
+            .map(relativePath -> outputRoot.resolve(relativePath).getParent())
+            .distinct()
+            .filter(directory -> !createdDirectories.contains(directory))
+            .toList();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        WorkerPool.runParallel(configuration.getPerformance().getIoThreads(), () ->
+            directories.parallelStream().forEach(directory -> {
+                try {
+                    createDirectory(directory);
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        if (failure.get() != null) {
+            throw new FileProcessingException("Failed to create output directories", failure.get(), outputRoot);
+        }
+    }
+    
+    /**
+     * Writes a text file into the site.
+     * 
+     * @param relativePath the path of the file relative to the site root
+     * @param content the content to write
+     * @return the absolute path of the written file
+     * @throws FileProcessingException if there are issues writing the file
+     */
+    public Path writeFile(String relativePath, String content) throws FileProcessingException {
+        return writeFile(relativePath, ContentHashingWriter.hash(content));
+    }
+    
+    /**
+     * Writes a rendered file into the site, unless the same content is already there.
+     * 
+     * @param relativePath the path of the file relative to the site root
+     * @param file the encoded content and its hash
+     * @return the absolute path of the file
+     * @throws FileProcessingException if there are issues writing the file
+     */
+    public Path writeFile(String relativePath, RenderedFile file) throws FileProcessingException {
+        Path outputPath = outputRoot.resolve(relativePath);
+        try {
+            if (keepUnchangedFile(relativePath, outputPath, file)) {
+                ledger.countSkipped();
+            } else {
+                createParentDirectories(outputPath);
+                writeContent(outputPath, file.content());
+                ledger.recordWritten(relativePath);
+            }
+            ledger.record(relativePath, file.hash());
+            return outputPath;
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write file: " + outputPath, e, outputPath);
+        }
+    }
+    
+    /**
+     * Writes content streamed by the caller into the site, unless the same content is already there.
+     * The content is written to a temporary file and hashed on the way, so it is never held in memory.
+     * 
+     * @param relativePath the path of the file relative to the site root
+     * @param content the content to stream
+     * @return the absolute path of the file
+     * @throws FileProcessingException if the content cannot be produced or written
+     */
+    public Path writeFile(String relativePath, StreamedContent content) throws FileProcessingException {
+        Path outputPath = outputRoot.resolve(relativePath);
+        Path temporaryFile = null;
+        try {
+            createParentDirectories(outputPath);
+            temporaryFile = newTemporaryFile();
+            MessageDigest digest = newDigest();
+            try (OutputStream out = new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporaryFile), 64 * 1024), digest)) {
+                content.writeTo(out);
+            }
+            String hash = HEX.formatHex(digest.digest());
+            if (keepUnchangedStream(relativePath, outputPath, temporaryFile, hash)) {
+                Files.delete(temporaryFile);
+                ledger.countSkipped();
+            } else {
+                moveIntoPlace(temporaryFile, outputPath);
+                ledger.recordWritten(relativePath);
+            }
+            ledger.record(relativePath, hash);
+            return outputPath;
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write file: " + outputPath, e, outputPath);
+        } finally {
+            try {
+                if (temporaryFile != null) {
+                    Files.deleteIfExists(temporaryFile);
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to delete temporary file: {}", temporaryFile, e);
+            }
+        }
+    }
+    
+    /**
+     * Keeps a file of the live site that the build would produce unchanged, without producing it again.
+     * In atomic mode the live file is hard-linked into the new release.
+     * 
+     * @param relativePath the path of the file relative to the site root
+     * @return true if the file was kept, false if it does not exist and must be written
+     */
+    public boolean retainFile(String relativePath) {
+        Path outputPath = outputRoot.resolve(relativePath);
+        try {
+            if (liveRoot != null) {
+                // Linking fails if the live file is missing, which saves checking for it first
+                linkIntoRelease(liveRoot.resolve(relativePath), outputPath);
+            } else if (!Files.isRegularFile(outputPath) || configuration.getPublishMode() == PublishMode.ATOMIC) {
+                // Without a live release an atomic build starts from an empty directory
+                return false;
+            }
+            ledger.record(relativePath, previousLedger.hashOf(relativePath));
+            ledger.countSkipped();
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Copies a file into the site, hashing its content on the way.
+     * 
+     * @param sourceFile the file to copy
+     * @param relativePath the target path relative to the site root
+     * @return the absolute path of the copied file
+     * @throws IOException if there are issues copying the file
+     */
+    public Path copyFile(Path sourceFile, String relativePath) throws IOException {
+        Path outputPath = outputRoot.resolve(relativePath);
+        createParentDirectories(outputPath);
+        if (keepUnchangedCopy(relativePath, sourceFile, outputPath)) {
+            ledger.countSkipped();
+            ledger.record(relativePath, previousLedger.hashOf(relativePath));
+        } else {
+            ledger.record(relativePath, copyAndHash(sourceFile, outputPath));
+            ledger.recordWritten(relativePath);
+        }
+        return outputPath;
+    }
+    
+    /**
+     * Converts an absolute output path to a site-relative path with forward slashes.
+     * 
+     * @param outputPath the absolute output path
+     * @return the path relative to the output root
+     */
+    public String toSitePath(Path outputPath) {
+        return outputRoot.relativize(outputPath).toString().replace('\\', '/');
+    }
+    
+    /**
+     * Makes the current build visible. In atomic mode this swaps the site path over to the
+     * new release and removes releases that are no longer needed.
+     * 
+     * @throws FileProcessingException if the new release cannot be published
+     */
+    public void publish() throws FileProcessingException {
+        if (configuration.getPublishMode() == PublishMode.IN_PLACE) {
+            return;
+        }
+        
+        Path sitePath = configuration.getSitePath();
+        Path release = outputRoot;
+        Path temporaryLink = sitePath.resolveSibling(sitePath.getFileName() + ".next");
+        try {
+            if (Files.isDirectory(sitePath, LinkOption.NOFOLLOW_LINKS)) {
+                // First atomic publish over an existing plain directory: keep it as a release
+                Path previous = releasesDirectory().resolve("initial-" + release.getFileName());
+                logger.warn("Converting site directory {} into a release at {}", sitePath, previous);
+                Files.move(sitePath, previous);
+            }
+            
+            Files.deleteIfExists(temporaryLink);
+            Files.createSymbolicLink(temporaryLink, release);
+            Files.move(temporaryLink, sitePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Published release {} to {}", release.getFileName(), sitePath);
+        } catch (IOException | UnsupportedOperationException e) {
+            throw new FileProcessingException("Failed to publish release " + release, e, sitePath);
+        }
+        
+        pruneReleases(release);
+    }
+    
+    /**
+     * Discards the output of a failed build. The live site is left untouched in atomic mode.
+     * In in-place mode the files written so far stay in the site, so the ledger is brought in
+     * line with them instead.
+     */
+    public void abort() {
+        if (configuration.getPublishMode() == PublishMode.IN_PLACE) {
+            saveInterruptedLedger();
+            return;
+        }
+        if (outputRoot.equals(configuration.getSitePath())) {
+            return;
+        }
+        
+        try {
+            deleteRecursively(outputRoot);
+            logger.info("Discarded staging release: {}", outputRoot);
+        } catch (IOException e) {
+            logger.warn("Failed to discard staging release: {}", outputRoot, e);
+        }
+    }
+    
+    /**
+     * Stores the ledger of an in-place build that failed part-way. Files the build produced are
+     * recorded with their new hashes. The other files of the previous build keep their entries, so
+     * they can still be pruned, but lose their hashes: a write that failed may have left them
+     * different from what the previous build stored, so the next build reads them back instead.
+     */
+    private void saveInterruptedLedger() {
+        OutputLedger interrupted = new OutputLedger();
+        previousLedger.paths().forEach(interrupted::record);
+        ledger.paths().forEach(path -> interrupted.record(path, ledger.hashOf(path)));
+        Path ledgerFile = getLedgerFile();
+        try {
+            interrupted.save(ledgerFile);
+        } catch (IOException e) {
+            logger.warn("Failed to write output ledger: {}", ledgerFile, e);
+        }
+    }
+    
+    /**
+     * Writes the content of a file. In place, the content goes into a temporary file that then
+     * replaces the page, so a write that fails leaves the page of the last build as it was.
+     * A release is not served until it is published, so there the file is written directly.
+     * 
+     * @param outputPath the path being written
+     * @param content the content to write
+     * @throws IOException if the file cannot be written
+     */
+    private void writeContent(Path outputPath, byte[] content) throws IOException {
+        if (configuration.getPublishMode() == PublishMode.ATOMIC) {
+            Files.write(outputPath, content, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            return;
+        }
+        Path temporaryFile = newTemporaryFile();
+        try {
+            Files.write(temporaryFile, content);
+            moveIntoPlace(temporaryFile, outputPath);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+    
+    /**
+     * Creates an empty temporary file in the scratch directory.
+     * 
+     * @return the new file
+     * @throws IOException if the file cannot be created
+     */
+    private Path newTemporaryFile() throws IOException {
+        Path scratchDirectory = getScratchDirectory();
+        createDirectory(scratchDirectory);
+        return Files.createTempFile(scratchDirectory, "write-", ".tmp");
+    }
+    
+    /**
+     * Replaces a file with a temporary file in one rename. When the cache path is on another
+     * file system the temporary file is first copied next to its target, which a crash during
+     * the copy can leave behind; the rename itself stays atomic either way.
+     * 
+     * @param temporaryFile the finished content
+     * @param outputPath the file to replace
+     * @throws IOException if the file cannot be moved
+     */
+    private static void moveIntoPlace(Path temporaryFile, Path outputPath) throws IOException {
+        try {
+            Files.move(temporaryFile, outputPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Path siblingFile = outputPath.resolveSibling(outputPath.getFileName() + ".tmp");
+            try {
+                Files.copy(temporaryFile, siblingFile, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(siblingFile, outputPath,
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(siblingFile);
+            }
+        }
+    }
+    
+    /**
+     * Keeps the existing file if its content matches the new content.
+     * The hash stored by the previous build is trusted when the size still matches; files without
+     * a stored hash, such as those left by a failed in-place build, are read back and compared.
+     * In atomic mode a matching live file is hard-linked.
+     * 
+     * @param relativePath the site-relative path of the file
+     * @param outputPath the path being written
+     * @param file the new content and its hash
+     * @return true if the existing file was kept and no write is needed
+     */
+    private boolean keepUnchangedFile(String relativePath, Path outputPath, RenderedFile file) {
+        Path existingFile = existingFile(relativePath, outputPath);
+        if (existingFile == null) {
+            return false;
+        }
+        
+        try {
+            if (Files.size(existingFile) != file.content().length) {
+                return false;
+            }
+            String storedHash = previousLedger.hashOf(relativePath);
+            boolean unchanged = storedHash != null
+                ? storedHash.equals(file.hash())
+                : Arrays.equals(Files.readAllBytes(existingFile), file.content());
+            return unchanged && linkIntoRelease(existingFile, outputPath);
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Keeps the existing file if its content matches a streamed file, comparing hashes like
+     * {@link #keepUnchangedFile} and falling back to a streaming comparison of the two files.
+     * 
+     * @param relativePath the site-relative path of the file
+     * @param outputPath the path being written
+     * @param temporaryFile the streamed content
+     * @param hash the hash of the streamed content
+     * @return true if the existing file was kept and the streamed content can be discarded
+     */
+    private boolean keepUnchangedStream(String relativePath, Path outputPath, Path temporaryFile, String hash) {
+        Path existingFile = existingFile(relativePath, outputPath);
+        if (existingFile == null) {
+            return false;
+        }
+        
+        try {
+            if (!Files.isRegularFile(existingFile) || Files.size(existingFile) != Files.size(temporaryFile)) {
+                return false;
+            }
+            String storedHash = previousLedger.hashOf(relativePath);
+            boolean unchanged = storedHash != null
+                ? storedHash.equals(hash)
+                : Files.mismatch(existingFile, temporaryFile) == -1;
+            return unchanged && linkIntoRelease(existingFile, outputPath);
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Keeps the existing copy of an asset if size and modification time are unchanged.
+     * In atomic mode a matching live file is hard-linked.
+     * 
+     * @param relativePath the site-relative path of the asset
+     * @param sourceFile the asset source
+     * @param outputPath the path being written
+     * @return true if the existing asset was kept and no copy is needed
+     */
+    private boolean keepUnchangedCopy(String relativePath, Path sourceFile, Path outputPath) {
+        Path existingFile = existingFile(relativePath, outputPath);
+        if (existingFile == null) {
+            return false;
+        }
+        
+        try {
+            BasicFileAttributes source = Files.readAttributes(sourceFile, BasicFileAttributes.class);
+            BasicFileAttributes existing = Files.readAttributes(existingFile, BasicFileAttributes.class);
+            if (source.size() != existing.size() || !source.lastModifiedTime().equals(existing.lastModifiedTime())) {
+                return false;
+            }
+            return linkIntoRelease(existingFile, outputPath);
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Copies a file and its modification time, digesting the bytes as they are copied.
+     * 
+     * @param sourceFile the file to copy
+     * @param outputPath the target file
+     * @return the content hash of the file
+     * @throws IOException if there are issues copying the file
+     */
+    private static String copyAndHash(Path sourceFile, Path outputPath) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(sourceFile), digest)) {
+            Files.copy(in, outputPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.setLastModifiedTime(outputPath, Files.getLastModifiedTime(sourceFile));
+        return HEX.formatHex(digest.digest());
+    }
+    
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    /**
+     * Gets the file the previous build left at a path: the live file in atomic mode,
+     * or the output itself when writing in place.
+     * 
+     * @param relativePath the site-relative path of the file
+     * @param outputPath the path being written
+     * @return the existing file to compare against, or null if there is none
+     */
+    private Path existingFile(String relativePath, Path outputPath) {
+        if (liveRoot != null) {
+            return liveRoot.resolve(relativePath);
+        }
+        return configuration.getPublishMode() == PublishMode.IN_PLACE ? outputPath : null;
+    }
+    
+    /**
+     * Hard-links a kept live file into the new release. Nothing needs to happen when writing in place.
+     * 
+     * @param existingFile the file being kept
+     * @param outputPath the path being written
+     * @return true once the file is in place
+     * @throws IOException if the link cannot be created
+     */
+    private boolean linkIntoRelease(Path existingFile, Path outputPath) throws IOException {
+        if (existingFile.equals(outputPath)) {
+            return true;
+        }
+        createParentDirectories(outputPath);
+        try {
+            Files.createLink(outputPath, existingFile);
+        } catch (FileAlreadyExistsException e) {
+            Files.delete(outputPath);
+            Files.createLink(outputPath, existingFile);
+        }
+        return true;
+    }
+    
+    /**
+     * Creates the parent directories of an output file, unless this build already created them.
+     * Each directory below the output root is created with a single call once its parent exists,
+     * so a build issues one directory call per distinct directory rather than several per file.
+     * 
+     * @param outputPath the file about to be written
+     * @throws IOException if a directory cannot be created
+     */
+    private void createParentDirectories(Path outputPath) throws IOException {
+        createDirectory(outputPath.getParent());
+    }
+    
+    private void createDirectory(Path directory) throws IOException {
+        if (createdDirectories.contains(directory)) {
+            return;
+        }
+        if (directory.startsWith(outputRoot) && !directory.equals(outputRoot)) {
+            createDirectory(directory.getParent());
+            try {
+                Files.createDirectory(directory);
+            } catch (FileAlreadyExistsException e) {
+                if (!Files.isDirectory(directory)) {
+                    throw e;
+                }
+            }
+        } else {
+            Files.createDirectories(directory);
+        }
+        createdDirectories.add(directory);
+    }
+    
+    /**
+     * Deletes all releases except the newest ones, never touching the current release.
+     * 
+     * @param currentRelease the release that was just published
+     */
+    private void pruneReleases(Path currentRelease) {
+        try (Stream<Path> releases = Files.list(releasesDirectory())) {
+            List<Path> stale = releases
+                .filter(release -> !release.equals(currentRelease))
+                .sorted(Comparator.comparing(this::lastModified).reversed())
+                .skip(RETAINED_RELEASES - 1)
+                .collect(Collectors.toList());
+            
+            for (Path release : stale) {
+                deleteRecursively(release);
+                logger.debug("Removed old release: {}", release);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to prune old releases in {}", releasesDirectory(), e);
+        }
+    }
+    
+    private long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+    
+    private String processSuffix() {
+        return switch (configuration.getBuildMode()) {
+            case FULL -> "";
+            case SHARD -> String.format("-shard-%d-of-%d",
+                configuration.getShardIndex(), configuration.getShardCount());
+            case MERGE -> "-merge";
+        };
+    }
+    
+    private Path releasesDirectory() {
+        Path sitePath = configuration.getSitePath();
+        return sitePath.resolveSibling(sitePath.getFileName() + ".releases");
+    }
+    
+    /**
+     * Deletes a directory tree without following symbolic links.
+     * 
+     * @param root the directory to delete
+     * @throws IOException if a file cannot be deleted
+     */
+    static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+    
+    /**
+     * Content produced straight into an output stream, for files too large to hold in memory.
+     */
+    @FunctionalInterface
+    public interface StreamedContent {
+        
+        /**
+         * Writes the content.
+         * 
+         * @param out the stream to write to, closed by the caller
+         * @throws IOException if the content cannot be written
+         * @throws FileProcessingException if the content cannot be produced
+         */
+        void writeTo(OutputStream out) throws IOException, FileProcessingException;
+    }
+}
@@ -0,0 +1,187 @@
+package dev.foxxie911.service;
+
+import org.commonmark.node.AbstractVisitor;
+import org.commonmark.node.BlockQuote;
+import org.commonmark.node.Code;
+import org.commonmark.node.FencedCodeBlock;
+import org.commonmark.node.HardLineBreak;
+import org.commonmark.node.Heading;
+import org.commonmark.node.HtmlBlock;
+import org.commonmark.node.HtmlInline;
+import org.commonmark.node.IndentedCodeBlock;
+import org.commonmark.node.ListItem;
+import org.commonmark.node.Paragraph;
+import org.commonmark.node.SoftLineBreak;
+import org.commonmark.node.Text;
+
+import dev.foxxie911.models.ArticleStatistics;
+
+/**
+ * CommonMark visitor that counts words and captures a plain-text excerpt in a single walk.
+ * Counting works on the text nodes of the parsed AST, so the rendered HTML never has to be
+ * scanned again. Code blocks and raw HTML are not prose and are skipped; headings are counted
+ * but kept out of the excerpt. The excerpt is gathered into a fixed-size buffer, so long
+ * articles cost no more than short ones.
+ */
+public class StatisticsCollectingVisitor extends AbstractVisitor {
+    
+    /** Maximum length of an excerpt, in characters, before it is cut at a word boundary. */
+    static final int EXCERPT_LENGTH = 200;
+    
+    private static final int WORDS_PER_MINUTE = 200;
+    
+    private final char[] excerpt = new char[EXCERPT_LENGTH];
+    private int excerptLength;
+    private boolean excerptTruncated;
+    private boolean truncatedInsideWord;
+    private boolean pendingSpace;
+    private int wordCount;
+    private boolean inWord;
+    private int headingDepth;
+    
+    @Override
+    public void visit(Text text) {
+        accept(text.getLiteral());
+    }
+    
+    @Override
+    public void visit(Code code) {
+        accept(code.getLiteral());
+    }
+    
+    @Override
+    public void visit(SoftLineBreak softLineBreak) {
+        boundary();
+    }
+    
+    @Override
+    public void visit(HardLineBreak hardLineBreak) {
+        boundary();
+    }
+    
+    @Override
+    public void visit(Paragraph paragraph) {
+        boundary();
+        visitChildren(paragraph);
+    }
+    
+    @Override
+    public void visit(BlockQuote blockQuote) {
+        boundary();
+        visitChildren(blockQuote);
+    }
+    
+    @Override
+    public void visit(ListItem listItem) {
+        boundary();
+        visitChildren(listItem);
+    }
+    
+    @Override
+    public void visit(Heading heading) {
+        boundary();
+        headingDepth++;
+        visitChildren(heading);
+        headingDepth--;
+        boundary();
+    }
+    
+    @Override
+    public void visit(FencedCodeBlock fencedCodeBlock) {
+        boundary();
+    }
+    
+    @Override
+    public void visit(IndentedCodeBlock indentedCodeBlock) {
+        boundary();
+    }
+    
+    @Override
+    public void visit(HtmlBlock htmlBlock) {
+        boundary();
+    }
+    
+    @Override
+    public void visit(HtmlInline htmlInline) {
+        // Markup only; the text around it is visited as usual
+    }
+    
+    /**
+     * Gets the statistics collected so far.
+     * 
+     * @return the word count, reading time and excerpt
+     */
+    public ArticleStatistics getStatistics() {
+        int readingMinutes = (wordCount + WORDS_PER_MINUTE - 1) / WORDS_PER_MINUTE;
+        return new ArticleStatistics(wordCount, readingMinutes, buildExcerpt());
+    }
+    
+    /**
+     * Counts the words in a piece of text and adds it to the excerpt.
+     * A word continues across adjacent text nodes, such as a word with an emphasised part.
+     * 
+     * @param text the text to accept
+     */
+    private void accept(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                boundary();
+            } else {
+                if (!inWord) {
+                    wordCount++;
+                    inWord = true;
+                }
+                if (headingDepth == 0) {
+                    appendToExcerpt(c);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Ends the current word; the next excerpt character is preceded by a single space.
+     */
+    private void boundary() {
+        inWord = false;
+        pendingSpace = excerptLength > 0;
+    }
+    
+    private void appendToExcerpt(char c) {
+        if (excerptTruncated) {
+            return;
+        }
+        int needed = pendingSpace ? 2 : 1;
+        if (excerptLength + needed > excerpt.length) {
+            excerptTruncated = true;
+            truncatedInsideWord = !pendingSpace;
+            return;
+        }
+        if (pendingSpace) {
+            excerpt[excerptLength++] = ' ';
+            pendingSpace = false;
+        }
+        excerpt[excerptLength++] = c;
+    }
+    
+    /**
+     * Builds the excerpt string, cutting a truncated excerpt back to its last whole word.
+     * 
+     * @return the excerpt, ending with an ellipsis if it was truncated
+     */
+    private String buildExcerpt() {
+        if (!excerptTruncated) {
+            return new String(excerpt, 0, excerptLength);
+        }
+        int end = excerptLength;
+        if (truncatedInsideWord) {
+            while (end > 0 && excerpt[end - 1] != ' ') {
+                end--;
+            }
+        }
+        while (end > 0 && excerpt[end - 1] == ' ') {
+            end--;
+        }
+        return new String(excerpt, 0, end == 0 ? excerptLength : end) + "\u2026";
+    }
+}
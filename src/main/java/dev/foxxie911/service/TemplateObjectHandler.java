@@ -0,0 +1,55 @@
+package dev.foxxie911.service;
+
+import java.lang.reflect.AccessibleObject;
+
+import com.github.mustachejava.reflect.ReflectionObjectHandler;
+
+/**
+ * Resolves template keys against typed render contexts.
+ * Templates use snake_case keys such as {@code blog_name}, which are looked up as the matching
+ * camelCase accessor ({@code blogName()}). Mustache resolves each key once per template position and
+ * receiver class and reuses the accessor it found, so typed contexts avoid a map lookup on every render.
+ */
+final class TemplateObjectHandler extends ReflectionObjectHandler {
+    
+    // The inherited signature takes a raw Class, and a Class<?> parameter would not override it
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected AccessibleObject findMember(Class sClass, String name) {
+        String accessorName = accessorName(name);
+        if (!accessorName.equals(name)) {
+            AccessibleObject member = super.findMember(sClass, accessorName);
+            if (member != null) {
+                return member;
+            }
+        }
+        return super.findMember(sClass, name);
+    }
+    
+    /**
+     * Converts a snake_case template key to the camelCase name of its accessor.
+     * 
+     * @param key the template key
+     * @return the accessor name, or the key itself if it contains no underscore
+     */
+    static String accessorName(String key) {
+        int underscore = key.indexOf('_');
+        if (underscore < 0) {
+            return key;
+        }
+        
+        StringBuilder name = new StringBuilder(key.length());
+        name.append(key, 0, underscore);
+        boolean upperNext = true;
+        for (int i = underscore + 1; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '_') {
+                upperNext = true;
+            } else {
+                name.append(upperNext ? Character.toUpperCase(c) : c);
+                upperNext = false;
+            }
+        }
+        return name.toString();
+    }
+}
@@ -3,30 +3,50 @@ package dev.foxxie911.service;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Singleton;
 
 import com.github.mustachejava.DefaultMustacheFactory;
 import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheException;
 import com.github.mustachejava.MustacheFactory;
+import com.github.mustachejava.ObjectHandler;
 
 import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.RenderedFile;
 
 /**
  * Service for rendering templates using Mustache.
  * Handles template compilation and rendering with context data.
+ * Each rendering thread reuses its own output buffer, so pages of similar size don't regrow one per render.
+ * Templates are compiled once; theme templates are compiled again only when a file they include changes.
  */
 @Singleton
 public class TemplateRenderingService {
     
+    /** Buffers that grew beyond this size are released after use instead of being kept per thread. */
+    private static final int MAX_RETAINED_CHARS = 1024 * 1024;
+    
+    private static final String BUNDLED_TEMPLATE_DIRECTORY = "mustaches/";
+    
     private final MustacheFactory mustacheFactory;
+    private final ObjectHandler objectHandler = new TemplateObjectHandler();
+    private final Map<Path, ThemeTemplates> themes = new ConcurrentHashMap<>();
+    private final ThreadLocal<StringWriter> writers = ThreadLocal.withInitial(() -> new StringWriter(16 * 1024));
+    private final ThreadLocal<ContentHashingWriter> fileWriters =
+        ThreadLocal.withInitial(() -> new ContentHashingWriter(16 * 1024));
     
     /**
      * Constructs a new TemplateRenderingService with default Mustache factory.
+     * Keys are resolved through {@link TemplateObjectHandler}, so typed contexts can be rendered.
      */
     public TemplateRenderingService() {
-        this.mustacheFactory = new DefaultMustacheFactory();
+        DefaultMustacheFactory factory = new DefaultMustacheFactory();
+        factory.setObjectHandler(objectHandler);
+        this.mustacheFactory = factory;
     }
     
     /**
@@ -47,14 +67,131 @@ public class TemplateRenderingService {
      * @throws FileProcessingException if there are issues compiling or rendering the template
      */
     public String renderTemplate(String templatePath, Map<String, Object> context) throws FileProcessingException {
+        return render(templatePath, new Object[] {context});
+    }
+    
+    /**
+     * Renders a template against a stack of typed contexts.
+     * Keys are looked up in the last scope first, so site-wide values can be shared by every page
+     * while each page only supplies its own scope.
+     * 
+     * @param templatePath the path to the template file
+     * @param scopes the contexts, outermost first
+     * @return the rendered template as a string
+     * @throws FileProcessingException if there are issues compiling or rendering the template
+     */
+    public String renderTemplate(String templatePath, Object... scopes) throws FileProcessingException {
+        return render(templatePath, scopes);
+    }
+    
+    /**
+     * Renders a template against a stack of typed contexts into UTF-8 bytes.
+     * The bytes are hashed while the template writes them, so the returned hash costs no extra pass.
+     * 
+     * @param templatePath the path to the template file
+     * @param scopes the contexts, outermost first
+     * @return the encoded output with its content hash
+     * @throws FileProcessingException if there are issues compiling or rendering the template
+     */
+    public RenderedFile renderFile(String templatePath, Object... scopes) throws FileProcessingException {
+        ContentHashingWriter writer = fileWriters.get();
+        writer.reset();
         try {
-            Mustache mustache = mustacheFactory.compile(templatePath);
-            Writer writer = new StringWriter();
-            mustache.execute(writer, context);
-            writer.flush();
-            return writer.toString();
+            execute(templatePath, writer, scopes);
+            return writer.finish();
+        } finally {
+            if (writer.capacity() > MAX_RETAINED_CHARS) {
+                fileWriters.remove();
+            }
+        }
+    }
+    
+    /**
+     * Renders a template of a theme against a stack of typed contexts into UTF-8 bytes.
+     * Templates the theme does not provide are rendered from the bundled ones.
+     * 
+     * @param themePath the theme directory, or null to use the bundled templates
+     * @param templatePath the path of the bundled template, such as {@code mustaches/home.mustache}
+     * @param scopes the contexts, outermost first
+     * @return the encoded output with its content hash
+     * @throws FileProcessingException if there are issues compiling or rendering the template
+     */
+    public RenderedFile renderFile(Path themePath, String templatePath, Object... scopes)
+            throws FileProcessingException {
+        Mustache themeTemplate = themePath == null ? null : themeTemplate(themePath, templatePath, false).mustache();
+        if (themeTemplate == null) {
+            return renderFile(templatePath, scopes);
+        }
+        ContentHashingWriter writer = fileWriters.get();
+        writer.reset();
+        try {
+            themeTemplate.execute(writer, scopes);
+            return writer.finish();
+        } catch (MustacheException e) {
+            throw new FileProcessingException("Failed to render template", e,
+                themePath.resolve(themeFile(templatePath)));
+        } finally {
+            if (writer.capacity() > MAX_RETAINED_CHARS) {
+                fileWriters.remove();
+            }
+        }
+    }
+    
+    /**
+     * Digests a template together with every partial it includes, checking the theme files now,
+     * so a build can tell which templates changed since the last one.
+     * 
+     * @param themePath the theme directory, or null to use the bundled templates
+     * @param templatePath the path of the bundled template
+     * @return the template digest
+     * @throws FileProcessingException if the template cannot be read or compiled
+     */
+    public String templateDigest(Path themePath, String templatePath) throws FileProcessingException {
+        String digest = themePath == null ? null : themeTemplate(themePath, templatePath, true).digest();
+        return digest != null ? digest : BuildFingerprintService.templateDigest(templatePath);
+    }
+    
+    private ThemeTemplates.CompiledTemplate themeTemplate(Path themePath, String templatePath, boolean verify)
+            throws FileProcessingException {
+        ThemeTemplates theme = themes.computeIfAbsent(themePath, path -> new ThemeTemplates(path, objectHandler));
+        String themeFile = themeFile(templatePath);
+        try {
+            return theme.get(themeFile, verify);
         } catch (IOException e) {
-            throw new FileProcessingException("Failed to render template: " + templatePath);
+            throw new FileProcessingException("Failed to read theme template", e, themePath.resolve(themeFile));
+        } catch (MustacheException e) {
+            throw new FileProcessingException("Failed to compile theme template", e, themePath.resolve(themeFile));
+        }
+    }
+    
+    /**
+     * Maps a bundled template to its file in a theme, which mirrors the bundled template directory.
+     */
+    private static String themeFile(String templatePath) {
+        return templatePath.startsWith(BUNDLED_TEMPLATE_DIRECTORY)
+            ? templatePath.substring(BUNDLED_TEMPLATE_DIRECTORY.length())
+            : templatePath;
+    }
+    
+    private String render(String templatePath, Object[] scopes) throws FileProcessingException {
+        StringWriter writer = writers.get();
+        writer.getBuffer().setLength(0);
+        try {
+            execute(templatePath, writer, scopes);
+            return writer.toString();
+        } finally {
+            if (writer.getBuffer().capacity() > MAX_RETAINED_CHARS) {
+                writers.remove();
+            }
+        }
+    }
+    
+    private void execute(String templatePath, Writer writer, Object[] scopes) throws FileProcessingException {
+        try {
+            Mustache mustache = mustacheFactory.compile(templatePath);
+            mustache.execute(writer, scopes);
+        } catch (MustacheException e) {
+            throw new FileProcessingException("Failed to render template", e, Path.of(templatePath));
         }
     }
 }
@@ -0,0 +1,193 @@
+package dev.foxxie911.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheNotFoundException;
+import com.github.mustachejava.ObjectHandler;
+
+/**
+ * Compiled templates of one theme directory, each kept until a file it was compiled from changes.
+ * Every template remembers the modification times of its own file and of all partials it includes,
+ * recursively, so editing a partial recompiles only the templates that use it. Theme files are checked
+ * at most once a second while rendering, so a long-running process picks up edits without a stat call
+ * on every page.
+ */
+final class ThemeTemplates {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ThemeTemplates.class);
+    private static final HexFormat HEX = HexFormat.of();
+    private static final long RECHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /** Modification time recorded for a file that did not exist, so creating it is noticed. */
+    private static final long MISSING = -1;
+    
+    private final Path themeDirectory;
+    private final ObjectHandler objectHandler;
+    private final Map<String, CompiledTemplate> templates = new ConcurrentHashMap<>();
+    
+    /**
+     * Constructs the template cache of a theme.
+     * 
+     * @param themeDirectory the theme directory, partials are resolved relative to it
+     * @param objectHandler the object handler the templates resolve keys with
+     */
+    ThemeTemplates(Path themeDirectory, ObjectHandler objectHandler) {
+        this.themeDirectory = themeDirectory;
+        this.objectHandler = objectHandler;
+    }
+    
+    /**
+     * Gets a compiled template, compiling it again if a file it was compiled from changed.
+     * 
+     * @param themeFile the template file name, relative to the theme directory
+     * @param verify whether to check the theme files now instead of trusting a recent check
+     * @return the compiled template, whose mustache is null if the theme does not provide the file
+     * @throws IOException if a theme file cannot be read
+     */
+    CompiledTemplate get(String themeFile, boolean verify) throws IOException {
+        CompiledTemplate template = templates.get(themeFile);
+        if (template != null && !template.isStale(verify)) {
+            return template;
+        }
+        synchronized (this) {
+            template = templates.get(themeFile);
+            if (template == null || template.isStale(true)) {
+                template = compile(themeFile);
+                templates.put(themeFile, template);
+            }
+            return template;
+        }
+    }
+    
+    /**
+     * Compiles a template with a factory of its own, so no stale partial is reused from an earlier compile.
+     */
+    private CompiledTemplate compile(String themeFile) throws IOException {
+        Map<Path, Long> dependencies = new LinkedHashMap<>();
+        MessageDigest digest = sha256();
+        Path file = resolve(themeFile);
+        if (!Files.isRegularFile(file)) {
+            dependencies.put(file, MISSING);
+            return new CompiledTemplate(null, dependencies, null);
+        }
+        
+        DefaultMustacheFactory factory = new DefaultMustacheFactory() {
+            @Override
+            public Reader getReader(String resourceName) {
+                Path dependency = resolve(resourceName);
+                try {
+                    long modified = Files.getLastModifiedTime(dependency).toMillis();
+                    byte[] content = Files.readAllBytes(dependency);
+                    dependencies.put(dependency, modified);
+                    digest.update(resourceName.getBytes(StandardCharsets.UTF_8));
+                    digest.update(content);
+                    return new StringReader(new String(content, StandardCharsets.UTF_8));
+                } catch (NoSuchFileException e) {
+                    dependencies.put(dependency, MISSING);
+                    throw new MustacheNotFoundException(resourceName);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        factory.setObjectHandler(objectHandler);
+        try {
+            Mustache mustache = factory.compile(themeFile);
+            logger.debug("Compiled theme template {} from {} files", file, dependencies.size());
+            return new CompiledTemplate(mustache, dependencies, HEX.formatHex(digest.digest()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    private Path resolve(String resourceName) {
+        Path path = themeDirectory.resolve(resourceName).normalize();
+        if (!path.startsWith(themeDirectory)) {
+            throw new MustacheNotFoundException(resourceName);
+        }
+        return path;
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    /**
+     * A compiled template with the theme files it was compiled from.
+     */
+    static final class CompiledTemplate {
+        
+        private final Mustache mustache;
+        private final Map<Path, Long> dependencies;
+        private final String digest;
+        private volatile long checkedAt = System.nanoTime();
+        
+        private CompiledTemplate(Mustache mustache, Map<Path, Long> dependencies, String digest) {
+            this.mustache = mustache;
+            this.dependencies = Map.copyOf(dependencies);
+            this.digest = digest;
+        }
+        
+        /**
+         * Gets the compiled template.
+         * 
+         * @return the template, or null if the theme does not provide it
+         */
+        Mustache mustache() {
+            return mustache;
+        }
+        
+        /**
+         * Gets the digest of the template and all partials it includes.
+         * 
+         * @return the content digest, or null if the theme does not provide the template
+         */
+        String digest() {
+            return digest;
+        }
+        
+        private boolean isStale(boolean verify) throws IOException {
+            long now = System.nanoTime();
+            if (!verify && now - checkedAt < RECHECK_INTERVAL_NANOS) {
+                return false;
+            }
+            for (Map.Entry<Path, Long> dependency : dependencies.entrySet()) {
+                if (modifiedTime(dependency.getKey()) != dependency.getValue()) {
+                    return true;
+                }
+            }
+            checkedAt = now;
+            return false;
+        }
+        
+        private static long modifiedTime(Path file) throws IOException {
+            try {
+                return Files.getLastModifiedTime(file).toMillis();
+            } catch (NoSuchFileException e) {
+                return MISSING;
+            }
+        }
+    }
+}
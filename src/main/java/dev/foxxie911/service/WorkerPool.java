@@ -0,0 +1,59 @@
+package dev.foxxie911.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Singleton;
+
+/**
+ * Threads shared by every build running in the process.
+ * Idle threads are kept for a while and reused, so consecutive and concurrent builds in one
+ * JVM run on warm threads instead of starting their own. The pool does not bound the number
+ * of threads: pipeline stages block on each other, and a bounded pool shared by several
+ * builds could leave one build's stages queued behind another's blocked ones. Each build
+ * bounds its own concurrency through its stage thread counts instead.
+ */
+@Singleton
+public class WorkerPool {
+    
+    private final ExecutorService executor;
+    
+    /**
+     * Constructs a new WorkerPool with daemon threads, so an idle pool never keeps the JVM alive.
+     */
+    public WorkerPool() {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "markblog-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Runs a task on a pooled thread.
+     * 
+     * @param task the task to run
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+    
+    /**
+     * Runs a task on a dedicated fork-join pool, so the parallel streams it uses are limited
+     * to the given number of threads instead of sharing the JVM-wide common pool.
+     * 
+     * @param parallelism the number of threads the task may use
+     * @param task the task to run
+     */
+    public static void runParallel(int parallelism, Runnable task) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(task).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package dev.foxxie911;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import dev.foxxie911.config.BlogConfiguration;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * Creates blog configurations for tests by writing a {@code .env} file and loading it,
+ * the same way the application loads its configuration.
+ */
+public final class TestConfigurations {
+    
+    private TestConfigurations() {
+    }
+    
+    /**
+     * Creates a configuration whose site and articles live in the {@code site} and {@code articles}
+     * subdirectories of a directory, with the {@code .env} file written into that directory.
+     * 
+     * @param directory the directory to write the {@code .env} file into and resolve the paths against
+     * @param settings additional {@code KEY=value} lines, replacing any default with the same key
+     * @return the loaded configuration
+     * @throws IOException if the {@code .env} file cannot be written
+     */
+    public static BlogConfiguration create(Path directory, String... settings) throws IOException {
+        return create(directory, directory, settings);
+    }
+    
+    /**
+     * Creates a configuration whose site and articles live in the {@code site} and {@code articles}
+     * subdirectories of a root directory, with the {@code .env} file written into its own directory,
+     * so several configurations can share one site.
+     * 
+     * @param configDirectory the directory to write the {@code .env} file into
+     * @param root the directory the site and articles paths are resolved against
+     * @param settings additional {@code KEY=value} lines, replacing any default with the same key
+     * @return the loaded configuration
+     * @throws IOException if the {@code .env} file cannot be written
+     */
+    public static BlogConfiguration create(Path configDirectory, Path root, String... settings) throws IOException {
+        Map<String, String> lines = new LinkedHashMap<>();
+        lines.put("BLOG_NAME", "BLOG_NAME=Test Blog");
+        lines.put("BLOG_BIO", "BLOG_BIO=Testing");
+        lines.put("SITE_PATH", "SITE_PATH=" + root.resolve("site"));
+        lines.put("ARTICLE_PATH", "ARTICLE_PATH=" + root.resolve("articles"));
+        for (String setting : settings) {
+            lines.put(setting.substring(0, setting.indexOf('=')), setting);
+        }
+        Files.createDirectories(configDirectory);
+        Files.writeString(configDirectory.resolve(".env"), String.join("\n", lines.values()));
+        return new BlogConfiguration(Dotenv.configure().directory(configDirectory.toString()).load());
+    }
+}
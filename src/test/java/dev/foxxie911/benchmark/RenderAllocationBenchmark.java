@@ -0,0 +1,109 @@
+package dev.foxxie911.benchmark;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.management.ThreadMXBean;
+
+import dev.foxxie911.TestConfigurations;
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.Article;
+import dev.foxxie911.models.ArticleStatistics;
+import dev.foxxie911.models.RenderedFile;
+import dev.foxxie911.repository.FileSystemArticleRepository;
+import dev.foxxie911.service.DiagnosticsCollector;
+import dev.foxxie911.service.MarkdownParsingService;
+import dev.foxxie911.service.PageGenerationService;
+import dev.foxxie911.service.RelatedArticlesService;
+import dev.foxxie911.service.SiteOutputService;
+import dev.foxxie911.service.TemplateRenderingService;
+
+/**
+ * Page rendering allocation benchmark, run with {@code mvn test -Pbenchmark}.
+ * Measures the bytes allocated per rendered article page, excluding the page itself.
+ */
+public class RenderAllocationBenchmark {
+    
+    private static final long PAGE_ALLOCATION_BUDGET_BYTES =
+        Long.getLong("markblog.benchmark.pageAllocationBudgetBytes", 2 * 1024);
+    private static final int ARTICLE_COUNT = 400;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 20;
+    private static final String[] TOPICS = {
+        "Knead the dough, let it rest somewhere warm and bake the loaf in a hot oven with steam.",
+        "The borrow checker rejects programs where a mutable reference outlives the value it points to.",
+        "Prune the tomato plants weekly and water the beds early in the morning before the heat."
+    };
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void benchmarkAllocationPerRenderedPage() throws IOException, FileProcessingException {
+        Path articles = Files.createDirectories(tempDir.resolve("articles"));
+        List<Article> pages = new ArrayList<>();
+        for (int i = 1; i <= ARTICLE_COUNT; i++) {
+            LocalDate createdAt = LocalDate.of(2024, 1, 1).plusDays(i);
+            String title = "Article" + i;
+            Path source = articles.resolve(createdAt + "_" + title + ".md");
+            Files.writeString(source, TOPICS[i % TOPICS.length] + " Notes from week " + i / 7 + ".");
+            pages.add(new Article(title, createdAt, "<p>" + "Some rendered content. ".repeat(40) + "</p>", List.of(),
+                ArticleStatistics.EMPTY, null, source));
+        }
+        
+        BlogConfiguration configuration = TestConfigurations.create(tempDir, "CACHE_PATH=" + tempDir.resolve("cache"));
+        DiagnosticsCollector diagnostics = new DiagnosticsCollector(configuration);
+        RelatedArticlesService relatedArticlesService = new RelatedArticlesService(configuration,
+            new FileSystemArticleRepository(configuration, new MarkdownParsingService(), diagnostics), diagnostics);
+        relatedArticlesService.computeRelated();
+        PageGenerationService pageGenerationService = new PageGenerationService(configuration,
+            new TemplateRenderingService(), new SiteOutputService(configuration), relatedArticlesService,
+            new MarkdownParsingService());
+        
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            renderAll(pageGenerationService, pages);
+        }
+        
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long pageBytes = 0;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            pageBytes += renderAll(pageGenerationService, pages);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        
+        long renders = (long) MEASURED_ROUNDS * pages.size();
+        long perPage = (allocated - pageBytes) / renders;
+        System.out.printf("Rendered %d pages: %d bytes allocated per page besides the %d byte page itself%n",
+            renders, perPage, pageBytes / renders);
+        assertTrue(perPage < PAGE_ALLOCATION_BUDGET_BYTES,
+            "Rendering allocated " + perPage + " bytes per page, budget is " + PAGE_ALLOCATION_BUDGET_BYTES);
+    }
+    
+    /**
+     * Renders every page once.
+     * 
+     * @return the approximate size of the rendered pages and their hashes in bytes
+     */
+    private static long renderAll(PageGenerationService pageGenerationService, List<Article> pages)
+            throws FileProcessingException {
+        long bytes = 0;
+        for (Article page : pages) {
+            RenderedFile file = pageGenerationService.renderArticlePage(page);
+            bytes += file.content().length + 16 + file.hash().length() + 24;
+        }
+        return bytes;
+    }
+}
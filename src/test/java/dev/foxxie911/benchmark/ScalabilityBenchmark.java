@@ -0,0 +1,235 @@
+package dev.foxxie911.benchmark;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import dev.foxxie911.ApplicationFactory;
+import dev.foxxie911.TestConfigurations;
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.exception.MarkBlogException;
+
+/**
+ * End-to-end scalability benchmarks, run with {@code mvn test -Pbenchmark}.
+ * Builds synthetic corpora of increasing size with the full application, checks that every page,
+ * link and the homepage order are correct, and records throughput, peak RSS and GC time.
+ * <p>
+ * Each run fails when it exceeds the absolute budgets below, or when a baseline written by an earlier
+ * run with {@code -Dmarkblog.benchmark.scalabilityResults=<file>} is given as
+ * {@code -Dmarkblog.benchmark.scalabilityBaseline=<file>} and a metric regressed by more than the
+ * tolerance. Corpus sizes are set with {@code -Dmarkblog.benchmark.corpusSizes=1000,10000}.
+ */
+public class ScalabilityBenchmark {
+    
+    private static final String CORPUS_SIZES =
+        System.getProperty("markblog.benchmark.corpusSizes", "1000,10000,100000");
+    private static final double MIN_ARTICLES_PER_SECOND =
+        Double.parseDouble(System.getProperty("markblog.benchmark.minArticlesPerSecond", "100"));
+    private static final long MAX_PEAK_RSS_MIB = Long.getLong("markblog.benchmark.maxPeakRssMiB", 2048);
+    private static final double MAX_GC_TIME_RATIO =
+        Double.parseDouble(System.getProperty("markblog.benchmark.maxGcTimeRatio", "0.3"));
+    private static final double REGRESSION_TOLERANCE =
+        Double.parseDouble(System.getProperty("markblog.benchmark.regressionTolerance", "0.25"));
+    private static final String BASELINE_FILE = System.getProperty("markblog.benchmark.scalabilityBaseline");
+    private static final String RESULTS_FILE = System.getProperty("markblog.benchmark.scalabilityResults");
+    private static final Pattern HOME_PAGE_LINK = Pattern.compile("href=\"[^\"]*/Article(\\d+)\\.html\"");
+    private static final long SEED = 20240501L;
+    
+    @TempDir
+    Path tempDir;
+    
+    static IntStream corpusSizes() {
+        return Arrays.stream(CORPUS_SIZES.split(",")).map(String::trim).mapToInt(Integer::parseInt);
+    }
+    
+    @ParameterizedTest(name = "{0} articles")
+    @MethodSource("corpusSizes")
+    void benchmarkFullBuild(int articleCount) throws IOException, MarkBlogException {
+        SyntheticCorpus corpus = SyntheticCorpus.generate(tempDir.resolve("articles"), articleCount, SEED);
+        BlogConfiguration configuration = TestConfigurations.create(tempDir, "FAIL_ON_BROKEN_LINKS=true");
+        System.gc();
+        
+        resetPeakRss();
+        long gcBefore = gcMillis();
+        long start = System.nanoTime();
+        ApplicationFactory.create(configuration).run();
+        long elapsedNanos = System.nanoTime() - start;
+        long gcMillis = gcMillis() - gcBefore;
+        long peakRssMiB = peakRssMiB();
+        
+        assertSiteIsComplete(corpus);
+        
+        double seconds = elapsedNanos / 1e9;
+        double articlesPerSecond = articleCount / seconds;
+        double gcRatio = gcMillis / 1000.0 / seconds;
+        System.out.printf("%d articles (%d MiB of Markdown): %.1f s, %.0f articles/s, peak RSS %s MiB, "
+            + "GC %d ms (%.1f%%)%n", articleCount, corpus.getTotalBytes() >> 20, seconds, articlesPerSecond,
+            peakRssMiB < 0 ? "n/a" : String.valueOf(peakRssMiB), gcMillis, gcRatio * 100);
+        
+        recordResults(articleCount, articlesPerSecond, peakRssMiB, gcMillis);
+        List<String> exceeded = new ArrayList<>();
+        if (articlesPerSecond < MIN_ARTICLES_PER_SECOND) {
+            exceeded.add(String.format("throughput %.0f articles/s is below %.0f", articlesPerSecond,
+                MIN_ARTICLES_PER_SECOND));
+        }
+        if (peakRssMiB > MAX_PEAK_RSS_MIB) {
+            exceeded.add("peak RSS " + peakRssMiB + " MiB is above " + MAX_PEAK_RSS_MIB + " MiB");
+        }
+        if (gcRatio > MAX_GC_TIME_RATIO) {
+            exceeded.add(String.format("GC took %.1f%% of the build, budget is %.1f%%", gcRatio * 100,
+                MAX_GC_TIME_RATIO * 100));
+        }
+        exceeded.addAll(compareWithBaseline(articleCount, articlesPerSecond, peakRssMiB, gcMillis));
+        assertTrue(exceeded.isEmpty(), "Regression budget exceeded for " + articleCount + " articles: " + exceeded);
+    }
+    
+    /**
+     * Checks that every article has a page, that the links between articles were validated and
+     * rendered, and that the homepage lists all articles newest first.
+     */
+    private void assertSiteIsComplete(SyntheticCorpus corpus) throws IOException {
+        Path site = tempDir.resolve("site");
+        long pages;
+        try (Stream<Path> files = Files.walk(site.resolve("articles"))) {
+            pages = files.filter(file -> file.toString().endsWith(".html")).count();
+        }
+        assertEquals(corpus.getArticleCount(), pages, "every article has a page");
+        
+        int newest = corpus.getArticleCount() - 1;
+        String newestPage = Files.readString(site.resolve(SyntheticCorpus.pagePathOf(newest)), StandardCharsets.UTF_8);
+        assertTrue(newestPage.contains("<h1>" + SyntheticCorpus.titleOf(newest) + "</h1>"));
+        
+        String homePage = Files.readString(site.resolve("index.html"), StandardCharsets.UTF_8);
+        Matcher links = HOME_PAGE_LINK.matcher(homePage);
+        int expected = newest;
+        while (links.find()) {
+            assertEquals(expected, Integer.parseInt(links.group(1)), "homepage lists articles newest first");
+            expected--;
+        }
+        assertEquals(-1, expected, "homepage lists every article");
+    }
+    
+    /**
+     * Compares the metrics of a run with the baseline run of the same corpus size, if one was given.
+     * 
+     * @return the metrics that regressed by more than the tolerance
+     */
+    private static List<String> compareWithBaseline(int articleCount, double articlesPerSecond, long peakRssMiB,
+            long gcMillis) throws IOException {
+        List<String> regressions = new ArrayList<>();
+        if (BASELINE_FILE == null) {
+            return regressions;
+        }
+        Properties baseline = load(Path.of(BASELINE_FILE));
+        String prefix = articleCount + ".";
+        double baseThroughput = Double.parseDouble(baseline.getProperty(prefix + "articlesPerSecond", "0"));
+        if (articlesPerSecond < baseThroughput * (1 - REGRESSION_TOLERANCE)) {
+            regressions.add(String.format("throughput %.0f articles/s regressed from %.0f", articlesPerSecond,
+                baseThroughput));
+        }
+        long baseRss = Long.parseLong(baseline.getProperty(prefix + "peakRssMiB", "-1"));
+        if (baseRss > 0 && peakRssMiB > baseRss * (1 + REGRESSION_TOLERANCE)) {
+            regressions.add("peak RSS " + peakRssMiB + " MiB regressed from " + baseRss + " MiB");
+        }
+        long baseGc = Long.parseLong(baseline.getProperty(prefix + "gcMillis", "-1"));
+        // A few milliseconds of GC are noise, so small baselines are not compared
+        if (baseGc >= 100 && gcMillis > baseGc * (1 + REGRESSION_TOLERANCE)) {
+            regressions.add("GC time " + gcMillis + " ms regressed from " + baseGc + " ms");
+        }
+        return regressions;
+    }
+    
+    /**
+     * Adds the metrics of a run to the results file, if one was requested, so it can serve as a later baseline.
+     */
+    private static synchronized void recordResults(int articleCount, double articlesPerSecond, long peakRssMiB,
+            long gcMillis) throws IOException {
+        if (RESULTS_FILE == null) {
+            return;
+        }
+        Path resultsFile = Path.of(RESULTS_FILE);
+        Properties results = Files.exists(resultsFile) ? load(resultsFile) : new Properties();
+        results.setProperty(articleCount + ".articlesPerSecond", String.format("%.1f", articlesPerSecond));
+        results.setProperty(articleCount + ".peakRssMiB", String.valueOf(peakRssMiB));
+        results.setProperty(articleCount + ".gcMillis", String.valueOf(gcMillis));
+        try (OutputStream out = Files.newOutputStream(resultsFile)) {
+            results.store(out, "MarkBlog scalability benchmark results");
+        }
+    }
+    
+    private static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+    
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+    
+    /**
+     * Resets the peak resident set size of the process, so each corpus reports its own peak.
+     * Where the OS offers no reset, the process-wide peak is reported instead.
+     */
+    private static void resetPeakRss() {
+        try {
+            Files.writeString(Path.of("/proc/self/clear_refs"), "5");
+        } catch (IOException | UnsupportedOperationException e) {
+            // not Linux, or not permitted
+        }
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+    }
+    
+    /**
+     * Gets the peak resident set size of the process.
+     * 
+     * @return the peak RSS in MiB, or the peak heap usage where the OS does not report RSS
+     */
+    private static long peakRssMiB() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) >> 10;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // fall back to the heap below
+        }
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peakHeap >> 20;
+    }
+}
@@ -0,0 +1,177 @@
+package dev.foxxie911.benchmark;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.foxxie911.ApplicationFactory;
+import dev.foxxie911.BlogGeneratorApplication;
+import dev.foxxie911.TestConfigurations;
+import dev.foxxie911.config.BlogConfiguration;
+
+/**
+ * Startup benchmarks, run with {@code mvn test -Pbenchmark}.
+ * Measures time-to-first-page for a small site in a fresh {@code java} process, with and without an
+ * AppCDS archive recorded by a training run, and the cost of container wiring once the JIT is warm.
+ */
+public class StartupBenchmark {
+    
+    private static final long FIRST_PAGE_BUDGET_MS = Long.getLong("markblog.benchmark.firstPageBudgetMs", 2000);
+    private static final double WIRING_BUDGET_MS =
+        Double.parseDouble(System.getProperty("markblog.benchmark.wiringBudgetMs", "5"));
+    private static final int ARTICLE_COUNT = 10;
+    private static final int RUNS = 3;
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void benchmarkTimeToFirstPage() throws IOException, InterruptedException, URISyntaxException {
+        Path articles = Files.createDirectories(tempDir.resolve("articles"));
+        for (int i = 1; i <= ARTICLE_COUNT; i++) {
+            Files.writeString(articles.resolve(String.format("2024-01-%02d_Article%d.md", i, i)),
+                "# Article " + i + "\n\nSome *content* for article " + i + ".\n");
+        }
+        // CDS only archives classes loaded from jars, so the application classes are packaged first
+        String classpath = packageClasspath();
+        Path archive = tempDir.resolve("markblog.jsa");
+        
+        runGenerator("training", classpath, "-XX:ArchiveClassesAtExit=" + archive);
+        long coldMillis = Long.MAX_VALUE;
+        long archivedMillis = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            coldMillis = Math.min(coldMillis, runGenerator("cold-" + run, classpath));
+            if (Files.exists(archive)) {
+                archivedMillis = Math.min(archivedMillis,
+                    runGenerator("archived-" + run, classpath, "-XX:SharedArchiveFile=" + archive));
+            }
+        }
+        
+        long firstPageMillis = Math.min(coldMillis, archivedMillis);
+        System.out.printf("First page in a fresh JVM: %d ms without AppCDS, %s with AppCDS%n", coldMillis,
+            archivedMillis == Long.MAX_VALUE ? "n/a (no archive was recorded)" : archivedMillis + " ms");
+        assertTrue(firstPageMillis < FIRST_PAGE_BUDGET_MS,
+            "First page took " + firstPageMillis + " ms, budget is " + FIRST_PAGE_BUDGET_MS + " ms");
+    }
+    
+    @Test
+    void benchmarkContainerWiring() {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            ApplicationFactory.create(new BlogConfiguration());
+            ApplicationFactory.createWithContainer();
+        }
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            ApplicationFactory.create(new BlogConfiguration());
+        }
+        long fast = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            ApplicationFactory.createWithContainer();
+        }
+        long container = System.nanoTime();
+        
+        double fastMillis = (fast - start) / 1e6 / MEASURED_ITERATIONS;
+        double containerMillis = (container - fast) / 1e6 / MEASURED_ITERATIONS;
+        System.out.printf("Explicit wiring: %.3f ms, PicoContainer wiring: %.3f ms%n", fastMillis, containerMillis);
+        assertTrue(fastMillis < WIRING_BUDGET_MS,
+            String.format("Explicit wiring took %.3f ms, budget is %.1f ms", fastMillis, WIRING_BUDGET_MS));
+    }
+    
+    /**
+     * Builds the site in a fresh {@code java} process with fast startup, into a site directory of its own
+     * so every page is written again.
+     * 
+     * @param name the name of the run, used for its directory
+     * @param classpath the classpath of the generator
+     * @param jvmOptions additional JVM options
+     * @return the milliseconds from starting the process until the first page was written
+     */
+    private long runGenerator(String name, String classpath, String... jvmOptions)
+            throws IOException, InterruptedException {
+        Path runDirectory = tempDir.resolve(name);
+        TestConfigurations.create(runDirectory, runDirectory, "ARTICLE_PATH=" + tempDir.resolve("articles"));
+        
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        // Classes compiled with preview features only load with them enabled
+        if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("--enable-preview")) {
+            command.add("--enable-preview");
+        }
+        command.addAll(Arrays.asList(jvmOptions));
+        command.addAll(List.of("-D" + ApplicationFactory.FAST_STARTUP_PROPERTY + "=true",
+            "-cp", classpath, BlogGeneratorApplication.class.getName()));
+        
+        long startMillis = System.currentTimeMillis();
+        Process process = new ProcessBuilder(command)
+            .directory(runDirectory.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(runDirectory.resolve("generator.log").toFile())
+            .start();
+        assertEquals(0, process.waitFor(), () -> name + " run failed: " + readLog(runDirectory));
+        
+        try (Stream<Path> files = Files.walk(runDirectory.resolve("site"))) {
+            return files
+                .filter(file -> file.toString().endsWith(".html"))
+                .mapToLong(StartupBenchmark::lastModifiedMillis)
+                .min()
+                .orElseThrow() - startMillis;
+        }
+    }
+    
+    /**
+     * Packs the application classes into a jar and returns it with the jars of the test classpath.
+     */
+    private String packageClasspath() throws IOException, URISyntaxException {
+        Path classes = Path.of(BlogGeneratorApplication.class.getProtectionDomain().getCodeSource().getLocation()
+            .toURI());
+        Path jar = tempDir.resolve("markblog.jar");
+        try (OutputStream out = Files.newOutputStream(jar);
+                JarOutputStream jarOut = new JarOutputStream(out);
+                Stream<Path> files = Files.walk(classes)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                jarOut.putNextEntry(new JarEntry(classes.relativize(file).toString().replace(File.separatorChar, '/')));
+                Files.copy(file, jarOut);
+                jarOut.closeEntry();
+            }
+        }
+        String dependencies = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+            .filter(entry -> entry.endsWith(".jar"))
+            .collect(Collectors.joining(File.pathSeparator));
+        return jar + File.pathSeparator + dependencies;
+    }
+    
+    private static String readLog(Path runDirectory) {
+        try {
+            return Files.readString(runDirectory.resolve("generator.log"));
+        } catch (IOException e) {
+            return e.getMessage();
+        }
+    }
+    
+    private static long lastModifiedMillis(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
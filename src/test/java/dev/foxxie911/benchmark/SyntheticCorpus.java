@@ -0,0 +1,141 @@
+package dev.foxxie911.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Generates a reproducible corpus of Markdown articles for the scalability benchmarks.
+ * Article lengths follow a log-normal distribution like real blogs: most posts are a few hundred
+ * words, a long tail runs to tens of thousands. Articles have headings, lists, emphasis and links
+ * to earlier articles, and each is published on its own day, so the expected homepage order is
+ * simply the reverse of the generation order.
+ */
+final class SyntheticCorpus {
+    
+    static final LocalDate FIRST_DATE = LocalDate.of(1900, 1, 1);
+    
+    private static final int MEDIAN_WORDS = 600;
+    private static final double WORD_COUNT_SIGMA = 1.0;
+    private static final int MIN_WORDS = 40;
+    private static final int MAX_WORDS = 40_000;
+    private static final String[] SENTENCES = {
+        "The build splits work into stages that are connected by bounded queues.",
+        "A sourdough starter needs regular feeding and a warm place to stay active.",
+        "Garbage collection pauses grow with the number of live objects on the heap.",
+        "The trail climbs steadily through pine forest before reaching the ridge.",
+        "Caching the parsed form of an article avoids repeating the slowest step.",
+        "Tomatoes ripen faster when the nights stay warm and the soil is moist.",
+        "Every page links back to the homepage and to a few related articles.",
+        "Measure before optimising, because intuition about hot paths is often wrong."
+    };
+    
+    private final int articleCount;
+    private final long totalBytes;
+    
+    private SyntheticCorpus(int articleCount, long totalBytes) {
+        this.articleCount = articleCount;
+        this.totalBytes = totalBytes;
+    }
+    
+    /**
+     * Writes a corpus into a directory, one year directory per publication year.
+     * 
+     * @param articleDirectory the directory to write the articles into
+     * @param articleCount the number of articles
+     * @param seed the random seed, so the same corpus can be generated again
+     * @return the generated corpus
+     * @throws IOException if an article cannot be written
+     */
+    static SyntheticCorpus generate(Path articleDirectory, int articleCount, long seed) throws IOException {
+        Random random = new Random(seed);
+        long totalBytes = 0;
+        for (int index = 0; index < articleCount; index++) {
+            LocalDate date = dateOf(index);
+            Path yearDirectory = Files.createDirectories(articleDirectory.resolve(String.valueOf(date.getYear())));
+            Path file = yearDirectory.resolve(date + "_" + titleOf(index) + ".md");
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writeArticle(writer, index, wordCount(random), random);
+            }
+            totalBytes += Files.size(file);
+        }
+        return new SyntheticCorpus(articleCount, totalBytes);
+    }
+    
+    /**
+     * Gets the publication date of an article.
+     * 
+     * @param index the generation index of the article
+     * @return the date, one day after the previous article
+     */
+    static LocalDate dateOf(int index) {
+        return FIRST_DATE.plusDays(index);
+    }
+    
+    /**
+     * Gets the title of an article, which is also its page file name.
+     * 
+     * @param index the generation index of the article
+     * @return the title
+     */
+    static String titleOf(int index) {
+        return "Article" + index;
+    }
+    
+    /**
+     * Gets the site-relative path of an article page.
+     * 
+     * @param index the generation index of the article
+     * @return the page path
+     */
+    static String pagePathOf(int index) {
+        LocalDate date = dateOf(index);
+        return "articles/" + date.getYear() + "/" + date.getMonth() + "/" + titleOf(index) + ".html";
+    }
+    
+    int getArticleCount() {
+        return articleCount;
+    }
+    
+    long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    private static int wordCount(Random random) {
+        double words = MEDIAN_WORDS * Math.exp(WORD_COUNT_SIGMA * random.nextGaussian());
+        return (int) Math.max(MIN_WORDS, Math.min(MAX_WORDS, words));
+    }
+    
+    private static void writeArticle(BufferedWriter writer, int index, int words, Random random) throws IOException {
+        writer.write("# " + titleOf(index) + "\n\n");
+        int written = 0;
+        int section = 1;
+        while (written < words) {
+            if (written > 0 && random.nextInt(4) == 0) {
+                writer.write("## Section " + section++ + "\n\n");
+            }
+            if (random.nextInt(6) == 0) {
+                for (int item = 0; item < 3; item++) {
+                    writer.write("- " + SENTENCES[random.nextInt(SENTENCES.length)] + "\n");
+                }
+                writer.write("\n");
+                written += 36;
+                continue;
+            }
+            for (int sentence = 0; sentence < 6; sentence++) {
+                String text = SENTENCES[random.nextInt(SENTENCES.length)];
+                writer.write(sentence == 2 ? "**" + text + "** " : text + " ");
+                written += 12;
+            }
+            if (index > 0 && random.nextInt(3) == 0) {
+                int target = random.nextInt(index);
+                writer.write("See also [" + titleOf(target) + "](../../" + pagePathOf(target).substring(9) + ").");
+            }
+            writer.write("\n\n");
+        }
+    }
+}
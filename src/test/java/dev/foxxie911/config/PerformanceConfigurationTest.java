@@ -0,0 +1,65 @@
+package dev.foxxie911.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.foxxie911.TestConfigurations;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+public class PerformanceConfigurationTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private PerformanceConfiguration load(String... settings) throws IOException {
+        return TestConfigurations.create(tempDir, settings).getPerformance();
+    }
+    
+    @Test
+    void testStageThreadsDefaultToTheirBudgets() throws IOException {
+        PerformanceConfiguration performance = load("BUILD_CPU_THREADS=3", "BUILD_IO_THREADS=2");
+        
+        assertEquals(3, performance.getParseThreads());
+        assertEquals(3, performance.getRenderThreads());
+        assertEquals(2, performance.getWriteThreads());
+        assertEquals(64L * 1024 * 1024, performance.getMaxInFlightBytes());
+        assertEquals(0, performance.getCacheMaxBytes());
+        assertEquals(ErrorPolicy.COLLECT, performance.getErrorPolicy());
+    }
+    
+    @Test
+    void testCpuBudgetDefaultsToTheProcessorsOfTheBuild() throws IOException {
+        TestConfigurations.create(tempDir);
+        Dotenv dotenv = Dotenv.configure().directory(tempDir.toString()).load();
+        assertEquals(2, new BlogConfiguration(dotenv, 2).getPerformance().getCpuThreads());
+        
+        TestConfigurations.create(tempDir, "BUILD_CPU_THREADS=5");
+        dotenv = Dotenv.configure().directory(tempDir.toString()).load();
+        assertEquals(5, new BlogConfiguration(dotenv, 2).getPerformance().getCpuThreads());
+    }
+    
+    @Test
+    void testSizesAcceptBinaryUnits() throws IOException {
+        PerformanceConfiguration performance = load("BUILD_MAX_IN_FLIGHT_BYTES=256k", "CACHE_MAX_BYTES=2G");
+        
+        assertEquals(256L * 1024, performance.getMaxInFlightBytes());
+        assertEquals(2L * 1024 * 1024 * 1024, performance.getCacheMaxBytes());
+    }
+    
+    @Test
+    void testInvalidSettingsFailAtStartup() {
+        assertThrows(IllegalStateException.class,
+            () -> load("BUILD_CPU_THREADS=2", "PIPELINE_RENDER_THREADS=3"));
+        assertThrows(IllegalStateException.class,
+            () -> load("BUILD_IO_THREADS=1", "PIPELINE_WRITE_THREADS=2"));
+        assertThrows(IllegalStateException.class, () -> load("BUILD_MAX_IN_FLIGHT_BYTES=1K"));
+        assertThrows(IllegalStateException.class, () -> load("CACHE_MAX_BYTES=lots"));
+        assertThrows(IllegalStateException.class, () -> load("BUILD_ERROR_POLICY=ignore"));
+    }
+}
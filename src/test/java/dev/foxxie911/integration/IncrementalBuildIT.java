@@ -0,0 +1,162 @@
+package dev.foxxie911.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.foxxie911.ApplicationFactory;
+import dev.foxxie911.SharedServices;
+import dev.foxxie911.TestConfigurations;
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.exception.MarkBlogException;
+import dev.foxxie911.service.ArticleParsingService;
+import dev.foxxie911.service.AssetCache;
+import dev.foxxie911.service.MarkdownParsingService;
+import dev.foxxie911.service.TemplateRenderingService;
+import dev.foxxie911.service.WorkerPool;
+
+public class IncrementalBuildIT {
+    
+    private static final FileTime OLD = FileTime.fromMillis(0);
+    
+    @TempDir
+    Path tempDir;
+    
+    private Path articles;
+    private ArticleParsingService parsingService;
+    private SharedServices shared;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        articles = Files.createDirectories(tempDir.resolve("articles"));
+        for (int i = 1; i <= 3; i++) {
+            Files.writeString(articles.resolve(String.format("2024-06-%02d_Post%d.md", i, i)), "Body of post " + i);
+        }
+        parsingService = spy(new MarkdownParsingService());
+        shared = new SharedServices(parsingService, new TemplateRenderingService(), new AssetCache(), new WorkerPool());
+    }
+    
+    private void build(String blogName, String... settings) throws IOException, MarkBlogException {
+        String[] all = Arrays.copyOf(settings, settings.length + 2);
+        all[settings.length] = "BLOG_NAME=" + blogName;
+        all[settings.length + 1] = "SKIP_UNCHANGED_BUILDS=false";
+        BlogConfiguration configuration = TestConfigurations.create(tempDir, all);
+        clearInvocations(parsingService);
+        ApplicationFactory.create(configuration, shared).run();
+    }
+    
+    private Path page(int post) {
+        return tempDir.resolve("site/articles/2024/JUNE/Post" + post + ".html");
+    }
+    
+    private void markPagesOld() throws IOException {
+        for (int i = 1; i <= 3; i++) {
+            Files.setLastModifiedTime(page(i), OLD);
+        }
+    }
+    
+    @Test
+    void testUnchangedPagesAreKeptWithoutParsing() throws IOException, MarkBlogException {
+        build("Blog");
+        verify(parsingService, times(3)).parseArticle(any(Path.class), any(BasicFileAttributes.class));
+        markPagesOld();
+        
+        build("Blog");
+        
+        verify(parsingService, never()).parseArticle(any(Path.class), any(BasicFileAttributes.class));
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(OLD, Files.getLastModifiedTime(page(i)), "page " + i + " is kept");
+        }
+        assertTrue(Files.readString(tempDir.resolve("site/index.html")).contains("Post3"));
+        String graph = Files.readString(tempDir.resolve("site.cache/dependency-graph.json"));
+        assertTrue(graph.contains("2024-06-01_Post1.md"));
+    }
+    
+    @Test
+    void testChangedSettingRendersAgainWithoutParsing() throws IOException, MarkBlogException {
+        build("Blog");
+        
+        build("Renamed Blog");
+        
+        verify(parsingService, never()).parseArticle(any(Path.class), any(BasicFileAttributes.class));
+        for (int i = 1; i <= 3; i++) {
+            String html = Files.readString(page(i));
+            assertTrue(html.contains("Renamed Blog"));
+            assertTrue(html.contains("Body of post " + i));
+        }
+    }
+    
+    @Test
+    void testNewArticleOnlyBuildsItsOwnPage() throws IOException, MarkBlogException {
+        build("Blog");
+        markPagesOld();
+        Files.writeString(articles.resolve("2024-06-04_Post4.md"), "Body of post 4");
+        
+        build("Blog");
+        
+        verify(parsingService, times(1)).parseArticle(any(Path.class), any(BasicFileAttributes.class));
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(OLD, Files.getLastModifiedTime(page(i)), "page " + i + " is kept");
+        }
+        assertTrue(Files.readString(tempDir.resolve("site/articles/2024/JUNE/Post4.html")).contains("Body of post 4"));
+        assertTrue(Files.readString(tempDir.resolve("site/index.html")).contains("Post4"));
+    }
+    
+    @Test
+    void testPagesRewrittenByAFailedBuildAreRenderedAgain() throws IOException, MarkBlogException {
+        Files.writeString(articles.resolve("2024-06-01_Post1.md"), "Body of post 1 with a [dead link](Missing.html)");
+        build("Blog");
+        
+        assertThrows(MarkBlogException.class, () -> build("Renamed Blog", "FAIL_ON_BROKEN_LINKS=true"));
+        assertTrue(Files.readString(page(2)).contains("Renamed Blog"), "the failed build rewrote the page in place");
+        
+        build("Blog");
+        
+        for (int i = 1; i <= 3; i++) {
+            assertFalse(Files.readString(page(i)).contains("Renamed Blog"), "page " + i + " is rendered again");
+        }
+    }
+    
+    @Test
+    void testPageOfAFailedArticleIsKept() throws IOException, MarkBlogException {
+        build("Blog");
+        Path source = articles.resolve("2024-06-02_Post2.md");
+        Files.write(source, new byte[] {'B', 'o', 'd', 'y', (byte) 0xc3, '('});
+        
+        build("Blog");
+        
+        assertTrue(Files.readString(page(2)).contains("Body of post 2"), "page of the last build is kept");
+        assertTrue(Files.readString(tempDir.resolve("site/index.html")).contains("Post2"));
+        assertTrue(Files.readString(tempDir.resolve("site.cache/output-ledger.txt"))
+            .contains("articles/2024/JUNE/Post2.html"), "page is not an orphan");
+        assertTrue(Files.readString(tempDir.resolve("site.cache/dependency-graph.json"))
+            .contains("2024-06-02_Post2.md"));
+        
+        Files.writeString(source, "Fixed body of post 2");
+        build("Blog");
+        
+        assertTrue(Files.readString(page(2)).contains("Fixed body of post 2"));
+    }
+    
+    @Test
+    void testDeletedPageIsRenderedAgain() throws IOException, MarkBlogException {
+        build("Blog");
+        Files.delete(page(2));
+        
+        build("Blog");
+        
+        verify(parsingService, never()).parseArticle(any(Path.class), any(BasicFileAttributes.class));
+        assertTrue(Files.readString(page(2)).contains("Body of post 2"));
+    }
+}
@@ -0,0 +1,64 @@
+package dev.foxxie911.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.foxxie911.MultiSiteBuilder;
+import dev.foxxie911.SharedServices;
+import dev.foxxie911.exception.ConfigurationException;
+import dev.foxxie911.models.SiteBuildResult;
+
+public class MultiSiteBuildIT {
+    
+    @TempDir
+    Path tempDir;
+    
+    private void createSite(Path sitesDirectory, String name, int articleCount) throws IOException {
+        Path articles = Files.createDirectories(tempDir.resolve(name + "-articles"));
+        for (int i = 1; i <= articleCount; i++) {
+            Files.writeString(articles.resolve(String.format("2024-05-%02d_%sPost%d.md", i, name, i)), "Post " + i);
+        }
+        Files.writeString(sitesDirectory.resolve(name + ".env"), String.join("\n",
+            "BLOG_NAME=" + name,
+            "BLOG_BIO=One of many",
+            "SITE_PATH=" + tempDir.resolve(name + "-site"),
+            "ARTICLE_PATH=" + articles));
+    }
+    
+    @Test
+    void testBuildsSitesConcurrentlyAndIsolatesFailures() throws IOException, ConfigurationException {
+        Path sitesDirectory = Files.createDirectories(tempDir.resolve("sites"));
+        createSite(sitesDirectory, "alpha", 3);
+        createSite(sitesDirectory, "beta", 5);
+        Files.writeString(sitesDirectory.resolve("broken.env"), "BLOG_BIO=No name or paths");
+        Files.writeString(sitesDirectory.resolve("notes.txt"), "not a site");
+        
+        List<SiteBuildResult> results = new MultiSiteBuilder(SharedServices.create(), 2).build(sitesDirectory);
+        
+        assertEquals(List.of("alpha", "beta", "broken"), results.stream().map(SiteBuildResult::site).toList());
+        assertTrue(results.get(0).succeeded());
+        assertTrue(results.get(1).succeeded());
+        assertFalse(results.get(2).succeeded());
+        assertTrue(results.get(2).error().contains("BLOG_NAME"));
+        
+        assertTrue(Files.readString(tempDir.resolve("alpha-site/index.html")).contains("alphaPost3"));
+        assertFalse(Files.readString(tempDir.resolve("alpha-site/index.html")).contains("betaPost"));
+        assertTrue(Files.exists(tempDir.resolve("beta-site/articles/2024/MAY/betaPost5.html")));
+        assertTrue(Files.exists(tempDir.resolve("beta-site/styles/style.css")));
+    }
+    
+    @Test
+    void testEmptySitesDirectoryIsAConfigurationError() throws IOException {
+        Path sitesDirectory = Files.createDirectories(tempDir.resolve("sites"));
+        
+        assertThrows(ConfigurationException.class,
+            () -> new MultiSiteBuilder(SharedServices.create(), 1).build(sitesDirectory));
+    }
+}
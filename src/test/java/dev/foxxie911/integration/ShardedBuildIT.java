@@ -0,0 +1,90 @@
+package dev.foxxie911.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.foxxie911.ApplicationFactory;
+import dev.foxxie911.TestConfigurations;
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.exception.MarkBlogException;
+
+public class ShardedBuildIT {
+    
+    private static final int SHARD_COUNT = 3;
+    
+    @TempDir
+    Path tempDir;
+    
+    private BlogConfiguration createConfiguration(String buildMode, int shardIndex) throws IOException {
+        return TestConfigurations.create(tempDir.resolve("config-" + buildMode + "-" + shardIndex), tempDir,
+            "FAIL_ON_BROKEN_LINKS=true",
+            "BUILD_MODE=" + buildMode,
+            "SHARD_COUNT=" + SHARD_COUNT,
+            "SHARD_INDEX=" + shardIndex);
+    }
+    
+    private void buildAllShards() throws IOException, MarkBlogException {
+        for (int shard = 0; shard < SHARD_COUNT; shard++) {
+            ApplicationFactory.create(createConfiguration("shard", shard)).run();
+        }
+        ApplicationFactory.create(createConfiguration("merge", 0)).run();
+    }
+    
+    @Test
+    void testShardsAndMergeProduceCompleteSite() throws IOException, MarkBlogException {
+        Path articles = Files.createDirectories(tempDir.resolve("articles"));
+        for (int i = 1; i <= 12; i++) {
+            String link = i > 1 ? "[previous](Post" + (i - 1) + ".html)" : "first post";
+            Files.writeString(articles.resolve(String.format("2024-03-%02d_Post%d.md", i, i)), link);
+        }
+        
+        for (int shard = 0; shard < SHARD_COUNT; shard++) {
+            ApplicationFactory.create(createConfiguration("shard", shard)).run();
+        }
+        assertFalse(Files.exists(tempDir.resolve("site/index.html")), "shards must not render the homepage");
+        
+        ApplicationFactory.create(createConfiguration("merge", 0)).run();
+        
+        String homepage = Files.readString(tempDir.resolve("site/index.html"));
+        for (int i = 1; i <= 12; i++) {
+            assertTrue(Files.exists(tempDir.resolve("site/articles/2024/MARCH/Post" + i + ".html")));
+            assertTrue(homepage.contains("2024/MARCH/Post" + i + ".html"));
+        }
+        assertTrue(homepage.indexOf("Post12.html") < homepage.indexOf("Post1.html"), "newest first");
+    }
+    
+    @Test
+    void testMovingSourcesBetweenDirectoriesKeepsTheirPages() throws IOException, MarkBlogException {
+        Path articles = Files.createDirectories(tempDir.resolve("articles"));
+        for (int i = 1; i <= 12; i++) {
+            Files.writeString(articles.resolve(String.format("2024-03-%02d_Post%d.md", i, i)), "Post " + i);
+        }
+        buildAllShards();
+        
+        Path yearDirectory = Files.createDirectories(articles.resolve("2024"));
+        for (int i = 1; i <= 12; i++) {
+            String fileName = String.format("2024-03-%02d_Post%d.md", i, i);
+            Files.move(articles.resolve(fileName), yearDirectory.resolve(fileName));
+        }
+        buildAllShards();
+        
+        for (int i = 1; i <= 12; i++) {
+            assertTrue(Files.exists(tempDir.resolve("site/articles/2024/MARCH/Post" + i + ".html")),
+                "page of moved Post" + i + " must not be pruned by the shard that built it before");
+        }
+    }
+    
+    @Test
+    void testMergeFailsWhenShardIsMissing() throws IOException, MarkBlogException {
+        Files.createDirectories(tempDir.resolve("articles"));
+        ApplicationFactory.create(createConfiguration("shard", 0)).run();
+        
+        assertThrows(MarkBlogException.class, () -> ApplicationFactory.create(createConfiguration("merge", 0)).run());
+    }
+}
@@ -0,0 +1,128 @@
+package dev.foxxie911.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.foxxie911.TestConfigurations;
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.BuildFingerprint;
+
+public class BuildFingerprintServiceTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private Path articles;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        articles = Files.createDirectories(tempDir.resolve("articles"));
+        Files.writeString(articles.resolve("2024-01-01_First.md"), "First post");
+        Files.createDirectories(tempDir.resolve("site"));
+    }
+    
+    private BuildFingerprintService createService(String... extraSettings) throws IOException {
+        return new BuildFingerprintService(TestConfigurations.create(tempDir, extraSettings));
+    }
+    
+    @Test
+    void testUnchangedInputsMatchRecordedBuild() throws IOException, FileProcessingException {
+        BuildFingerprintService service = createService();
+        BuildFingerprint fingerprint = service.computeFingerprint();
+        assertFalse(service.matchesLastBuild(fingerprint), "nothing recorded yet");
+        
+        service.record(fingerprint);
+        
+        BuildFingerprint recomputed = service.computeFingerprint();
+        assertEquals(fingerprint, recomputed);
+        assertTrue(service.matchesLastBuild(recomputed));
+    }
+    
+    @Test
+    void testChangedInputsDoNotMatch() throws IOException, FileProcessingException {
+        BuildFingerprintService service = createService();
+        service.record(service.computeFingerprint());
+        
+        Path article = articles.resolve("2024-01-01_First.md");
+        Files.setLastModifiedTime(article, FileTime.fromMillis(Files.getLastModifiedTime(article).toMillis() + 1000));
+        assertFalse(service.matchesLastBuild(service.computeFingerprint()), "touched article");
+        service.record(service.computeFingerprint());
+        
+        Files.writeString(articles.resolve("2024-01-02_Second.md"), "Second post");
+        assertFalse(service.matchesLastBuild(service.computeFingerprint()), "new article");
+        service.record(service.computeFingerprint());
+        
+        BuildFingerprintService renamed = createService("BLOG_NAME=Renamed Blog");
+        assertFalse(renamed.matchesLastBuild(renamed.computeFingerprint()), "changed setting");
+    }
+    
+    @Test
+    void testThreadAndQueueSizesDoNotChangeTheFingerprint() throws IOException, FileProcessingException {
+        BuildFingerprintService service = createService("BUILD_CPU_THREADS=2", "BUILD_IO_THREADS=2");
+        service.record(service.computeFingerprint());
+        
+        BuildFingerprintService retuned = createService("BUILD_CPU_THREADS=16", "BUILD_IO_THREADS=8",
+            "PIPELINE_QUEUE_CAPACITY=4", "BUILD_MAX_IN_FLIGHT_BYTES=1M");
+        assertTrue(retuned.matchesLastBuild(retuned.computeFingerprint()));
+    }
+    
+    @Test
+    void testInvalidatedOrMissingOutputIsRebuilt() throws IOException, FileProcessingException {
+        BuildFingerprintService service = createService();
+        BuildFingerprint fingerprint = service.computeFingerprint();
+        service.record(fingerprint);
+        
+        service.invalidate();
+        assertFalse(service.matchesLastBuild(fingerprint), "build started after recording");
+        
+        service.record(fingerprint);
+        Files.delete(tempDir.resolve("site"));
+        assertFalse(service.matchesLastBuild(fingerprint), "site output removed");
+    }
+    
+    @Test
+    void testGeneratorVersionFollowsTheClasses() throws IOException, URISyntaxException, FileProcessingException {
+        Path classes = Path.of(
+            BuildFingerprintService.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path classFile = classes.resolve(BuildFingerprintService.class.getName().replace('.', '/') + ".class");
+        assumeTrue(Files.isRegularFile(classFile), "classes are not in a directory");
+        String version = BuildFingerprintService.generatorVersion();
+        
+        FileTime modified = Files.getLastModifiedTime(classFile);
+        try {
+            Files.setLastModifiedTime(classFile, FileTime.fromMillis(modified.toMillis() + 1000));
+            assertNotEquals(version, BuildFingerprintService.generatorVersion());
+        } finally {
+            Files.setLastModifiedTime(classFile, modified);
+        }
+        assertEquals(version, BuildFingerprintService.generatorVersion());
+    }
+    
+    @Test
+    void testAssetsAreFingerprintedWhereTheyAreCopiedFrom() throws URISyntaxException, FileProcessingException {
+        Path styles = Path.of(getClass().getClassLoader().getResource("styles").toURI());
+        
+        assertTrue(AssetManagementService.sourceDirectories().contains(styles));
+        assertEquals(styles, AssetManagementService.sourceDirectory("styles"));
+        assertNull(AssetManagementService.sourceDirectory("no-such-assets"));
+    }
+    
+    @Test
+    void testSkippingCanBeDisabled() throws IOException, FileProcessingException {
+        BuildFingerprintService service = createService("SKIP_UNCHANGED_BUILDS=false");
+        BuildFingerprint fingerprint = service.computeFingerprint();
+        service.record(fingerprint);
+        
+        assertFalse(service.matchesLastBuild(fingerprint));
+    }
+}
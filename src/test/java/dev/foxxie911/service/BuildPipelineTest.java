@@ -0,0 +1,161 @@
+package dev.foxxie911.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.foxxie911.TestConfigurations;
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.Article;
+import dev.foxxie911.repository.ArticleRepository;
+import dev.foxxie911.repository.FileSystemArticleRepository;
+
+public class BuildPipelineTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private DiagnosticsCollector diagnostics;
+    
+    private BuildPipeline createPipeline(String... extraSettings) throws IOException, FileProcessingException {
+        return createPipeline(new MarkdownParsingService(), extraSettings);
+    }
+    
+    private BuildPipeline createPipeline(ArticleParsingService parsingService, String... extraSettings)
+            throws IOException, FileProcessingException {
+        BlogConfiguration configuration = TestConfigurations.create(tempDir, extraSettings);
+        
+        SiteOutputService outputService = new SiteOutputService(configuration);
+        outputService.beginBuild();
+        diagnostics = new DiagnosticsCollector(configuration);
+        ArticleRepository articleRepository = new FileSystemArticleRepository(configuration, parsingService,
+            diagnostics);
+        RelatedArticlesService relatedArticlesService =
+            new RelatedArticlesService(configuration, articleRepository, diagnostics);
+        TemplateRenderingService templateService = new TemplateRenderingService();
+        PageGenerationService pageGenerationService = new PageGenerationService(configuration,
+            templateService, outputService, relatedArticlesService, parsingService);
+        return new BuildPipeline(configuration, articleRepository, pageGenerationService, new WorkerPool(),
+            new DependencyGraphService(configuration, relatedArticlesService, templateService), diagnostics);
+    }
+    
+    @Test
+    void testBuildsEveryPageThroughSmallQueues() throws IOException, FileProcessingException {
+        Path articles = Files.createDirectories(tempDir.resolve("articles"));
+        for (int i = 1; i <= 28; i++) {
+            Files.writeString(articles.resolve(String.format("2024-02-%02d_Post%d.md", i, i)), "Body of post " + i);
+        }
+        Files.writeString(articles.resolve("notes.txt"), "not an article");
+        
+        BuildPipeline pipeline = createPipeline(
+            "BUILD_CPU_THREADS=3",
+            "BUILD_IO_THREADS=1",
+            "PIPELINE_PARSE_THREADS=3",
+            "PIPELINE_RENDER_THREADS=2",
+            "PIPELINE_WRITE_THREADS=1",
+            "PIPELINE_QUEUE_CAPACITY=1");
+        List<Article> built = pipeline.buildArticlePages();
+        
+        assertEquals(28, built.size());
+        assertTrue(built.stream().allMatch(article -> article.body().isEmpty()), "bodies are dropped once written");
+        for (int i = 1; i <= 28; i++) {
+            String page = Files.readString(tempDir.resolve("site/articles/2024/FEBRUARY/Post" + i + ".html"));
+            assertTrue(page.contains("Body of post " + i));
+        }
+    }
+    
+    @Test
+    void testArticlesLargerThanInFlightBudgetStillBuild() throws IOException, FileProcessingException {
+        Path articles = Files.createDirectories(tempDir.resolve("articles"));
+        String largeBody = "word ".repeat(20_000);
+        for (int i = 1; i <= 6; i++) {
+            Files.writeString(articles.resolve(String.format("2024-03-%02d_Large%d.md", i, i)), largeBody);
+        }
+        
+        BuildPipeline pipeline = createPipeline("BUILD_MAX_IN_FLIGHT_BYTES=64K");
+        
+        assertEquals(6, pipeline.buildArticlePages().size());
+    }
+    
+    @Test
+    void testLargeArticleBodiesAreStreamedIntoTheirPages() throws IOException, FileProcessingException {
+        Path articles = Files.createDirectories(tempDir.resolve("articles"));
+        Files.writeString(articles.resolve("2024-05-01_Small.md"), "Small body");
+        Files.writeString(articles.resolve("2024-05-02_Report.md"), "Report line with **bold** text.\n\n".repeat(500));
+        
+        BuildPipeline pipeline = createPipeline("LARGE_ARTICLE_BYTES=4K");
+        
+        assertEquals(2, pipeline.buildArticlePages().size());
+        String report = Files.readString(tempDir.resolve("site/articles/2024/MAY/Report.html"));
+        assertEquals(500, report.split("<p>Report line with <strong>bold</strong> text.</p>", -1).length - 1);
+        assertFalse(report.contains("markblog-body-"), "placeholder is replaced");
+        assertTrue(report.contains("Test Blog"));
+        assertTrue(Files.readString(tempDir.resolve("site/articles/2024/MAY/Small.html")).contains("Small body"));
+        assertFalse(Files.exists(tempDir.resolve("site/articles/2024/MAY/Report.html.tmp")));
+        
+        createPipeline("LARGE_ARTICLE_BYTES=4K").buildArticlePages();
+        
+        assertEquals(report, Files.readString(tempDir.resolve("site/articles/2024/MAY/Report.html")));
+    }
+    
+    @Test
+    void testErrorPolicyDecidesWhetherParseFailuresAbort() throws Exception {
+        Path articles = Files.createDirectories(tempDir.resolve("articles"));
+        for (int i = 1; i <= 3; i++) {
+            Files.writeString(articles.resolve("2024-04-0" + i + "_Broken" + i + ".md"), "Broken");
+        }
+        ArticleParsingService failingParser = mock(ArticleParsingService.class);
+        when(failingParser.parseArticle(any(Path.class), any(BasicFileAttributes.class)))
+            .thenThrow(new FileProcessingException("Failed to read article file", articles));
+        
+        assertTrue(createPipeline(failingParser).buildArticlePages().isEmpty());
+        assertEquals(3, diagnostics.getFailureCount());
+        assertTrue(diagnostics.getFailures().stream().allMatch(failure -> failure.stage().equals("parse")));
+        assertTrue(diagnostics.getFailures().stream()
+            .anyMatch(failure -> failure.file().equals("2024-04-01_Broken1.md")));
+        
+        assertTrue(createPipeline(failingParser, "BUILD_ERROR_POLICY=threshold", "BUILD_ERROR_THRESHOLD=3")
+            .buildArticlePages().isEmpty());
+        assertThrows(FileProcessingException.class,
+            () -> createPipeline(failingParser, "BUILD_ERROR_POLICY=threshold", "BUILD_ERROR_THRESHOLD=2")
+                .buildArticlePages());
+        assertThrows(FileProcessingException.class,
+            () -> createPipeline(failingParser, "BUILD_ERROR_POLICY=fail-fast").buildArticlePages());
+    }
+    
+    @Test
+    void testWriteFailuresAreRecordedAgainstTheSource() throws IOException, FileProcessingException {
+        Path articles = Files.createDirectories(tempDir.resolve("articles"));
+        Files.writeString(articles.resolve("2024-06-01_Post.md"), "Body");
+        // A non-empty directory where the page belongs cannot be replaced by the page
+        Path page = Files.createDirectories(tempDir.resolve("site/articles/2024/JUNE/Post.html"));
+        Files.writeString(page.resolve("keep.txt"), "in the way");
+        
+        assertTrue(createPipeline().buildArticlePages().isEmpty());
+        assertEquals(1, diagnostics.getFailureCount());
+        assertEquals("write", diagnostics.getFailures().get(0).stage());
+        assertEquals("2024-06-01_Post.md", diagnostics.getFailures().get(0).file());
+    }
+    
+    @Test
+    void testMissingArticleDirectoryBuildsNothing() throws IOException, FileProcessingException {
+        assertTrue(createPipeline().buildArticlePages().isEmpty());
+    }
+    
+    @Test
+    void testStageFailureAbortsPipeline() throws IOException, FileProcessingException {
+        Files.writeString(tempDir.resolve("articles"), "a file where the article directory should be");
+        
+        assertThrows(FileProcessingException.class, () -> createPipeline().buildArticlePages());
+    }
+}
@@ -0,0 +1,94 @@
+package dev.foxxie911.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.foxxie911.TestConfigurations;
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.ChangeSet;
+import dev.foxxie911.models.ChangedFile;
+
+public class ChangeSetServiceTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private BlogConfiguration createConfiguration(String changeSetMode) throws IOException {
+        return TestConfigurations.create(tempDir, "CHANGE_SET_MODE=" + changeSetMode);
+    }
+    
+    @Test
+    void testExportsChangesFromTheLedgers() throws IOException, FileProcessingException {
+        BlogConfiguration configuration = createConfiguration("archive");
+        SiteOutputService outputService = new SiteOutputService(configuration);
+        OutputPruningService pruningService = new OutputPruningService(configuration, outputService);
+        ChangeSetService changeSetService = new ChangeSetService(configuration, outputService);
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "<p>home</p>");
+        outputService.writeFile("articles/Kept.html", "<p>kept</p>");
+        outputService.writeFile("articles/Old.html", "<p>old</p>");
+        pruningService.pruneOrphans();
+        assertEquals(3, changeSetService.export().added().size());
+        String oldHash = outputService.getLedger().hashOf("articles/Old.html");
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "<p>home, edited</p>");
+        outputService.writeFile("articles/Kept.html", "<p>kept</p>");
+        outputService.writeFile("articles/New.html", "<p>new</p>");
+        pruningService.pruneOrphans();
+        changeSetService.export();
+        
+        ChangeSet changeSet = new ObjectMapper().readValue(
+            tempDir.resolve("site.cache/change-set.json").toFile(), ChangeSet.class);
+        assertEquals(List.of(new ChangedFile("articles/New.html", ContentHashingWriter.hash("<p>new</p>").hash())),
+            changeSet.added());
+        assertEquals(List.of("index.html"), changeSet.modified().stream().map(ChangedFile::path).toList());
+        assertEquals(List.of(new ChangedFile("articles/Old.html", oldHash)), changeSet.removed());
+        assertEquals(1, changeSet.unchangedCount());
+        
+        Map<String, String> archived = readArchive(tempDir.resolve("site.cache/change-set.zip"));
+        assertEquals(Map.of("articles/New.html", "<p>new</p>", "index.html", "<p>home, edited</p>"), archived);
+        
+        changeSetService.exportUnchanged();
+        assertTrue(readArchive(tempDir.resolve("site.cache/change-set.zip")).isEmpty());
+    }
+    
+    @Test
+    void testOffExportsNothing() throws IOException, FileProcessingException {
+        BlogConfiguration configuration = createConfiguration("off");
+        SiteOutputService outputService = new SiteOutputService(configuration);
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "<p>home</p>");
+        
+        assertNull(new ChangeSetService(configuration, outputService).export());
+        assertFalse(Files.exists(tempDir.resolve("site.cache/change-set.json")));
+    }
+    
+    private static Map<String, String> readArchive(Path archive) throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        try (InputStream in = Files.newInputStream(archive); ZipInputStream zip = new ZipInputStream(in)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
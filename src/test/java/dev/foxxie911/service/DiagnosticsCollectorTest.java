@@ -0,0 +1,65 @@
+package dev.foxxie911.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.foxxie911.TestConfigurations;
+import dev.foxxie911.models.DiagnosticsReport;
+
+public class DiagnosticsCollectorTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private DiagnosticsCollector createCollector(String... extraSettings) throws IOException {
+        return new DiagnosticsCollector(TestConfigurations.create(tempDir, extraSettings));
+    }
+    
+    @Test
+    void testRecordsFailuresFromManyThreadsAndWritesReport() throws Exception {
+        DiagnosticsCollector collector = createCollector();
+        collector.beginBuild();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) {
+            Path file = tempDir.resolve("articles").resolve("2024-01-01_Post" + i + ".md");
+            executor.execute(() -> assertFalse(
+                collector.record("parse", file, new IOException("unreadable"), System.nanoTime())));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        collector.report();
+        
+        assertEquals(400, collector.getFailureCount());
+        DiagnosticsReport report = new ObjectMapper()
+            .readValue(tempDir.resolve("site.cache/build-diagnostics.json").toFile(), DiagnosticsReport.class);
+        assertEquals("collect", report.errorPolicy());
+        assertFalse(report.aborted());
+        assertEquals(400, report.failures().size());
+        assertTrue(report.failures().stream().anyMatch(failure -> failure.file().equals("2024-01-01_Post7.md")));
+        assertEquals("unreadable", report.failures().get(0).message());
+    }
+    
+    @Test
+    void testThresholdPolicyAbortsAfterTooManyFailures() throws IOException {
+        DiagnosticsCollector collector = createCollector("BUILD_ERROR_POLICY=threshold", "BUILD_ERROR_THRESHOLD=2");
+        collector.beginBuild();
+        
+        assertFalse(collector.record("render", Path.of("a.html"), new IllegalStateException(), System.nanoTime()));
+        assertFalse(collector.record("render", Path.of("b.html"), new IllegalStateException(), System.nanoTime()));
+        assertTrue(collector.record("render", Path.of("c.html"), new IllegalStateException(), System.nanoTime()));
+        
+        collector.beginBuild();
+        assertEquals(0, collector.getFailureCount());
+    }
+}
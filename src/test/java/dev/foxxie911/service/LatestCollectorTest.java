@@ -0,0 +1,53 @@
+package dev.foxxie911.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import dev.foxxie911.models.Article;
+
+public class LatestCollectorTest {
+    
+    private static Article article(String title, LocalDate createdAt) {
+        return new Article(title, createdAt, "");
+    }
+    
+    @Test
+    void testKeepsOnlyNewestWithinLimit() {
+        List<Article> articles = new ArrayList<>();
+        for (int day = 1; day <= 31; day++) {
+            articles.add(article("Day" + day, LocalDate.of(2024, 1, day)));
+        }
+        Collections.shuffle(articles);
+        
+        List<Article> latest = LatestCollector.latest(articles, 3, ArticleDates.NEWEST_FIRST);
+        
+        assertEquals(List.of("Day31", "Day30", "Day29"), latest.stream().map(Article::title).toList());
+    }
+    
+    @Test
+    void testZeroLimitKeepsEverythingSorted() {
+        List<Article> articles = List.of(
+            article("B", LocalDate.of(2023, 5, 1)),
+            article("C", LocalDate.of(2024, 5, 1)),
+            article("A", LocalDate.of(2023, 5, 1)));
+        
+        List<Article> latest = LatestCollector.latest(articles, 0, ArticleDates.NEWEST_FIRST);
+        
+        assertEquals(List.of("C", "A", "B"), latest.stream().map(Article::title).toList());
+    }
+    
+    @Test
+    void testParseFileNameDate() {
+        assertEquals(LocalDate.of(2024, 2, 29), ArticleDates.parseFileNameDate("2024-02-29_Leap.md"));
+        assertNull(ArticleDates.parseFileNameDate("2023-02-29_NotLeap.md"));
+        assertNull(ArticleDates.parseFileNameDate("2023-13-01_Month.md"));
+        assertNull(ArticleDates.parseFileNameDate("2023-1-01_Short.md"));
+        assertNull(ArticleDates.parseFileNameDate("notes.md"));
+    }
+}
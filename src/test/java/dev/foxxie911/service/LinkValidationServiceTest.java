@@ -0,0 +1,66 @@
+package dev.foxxie911.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.models.Article;
+import dev.foxxie911.models.LinkValidationReport;
+
+public class LinkValidationServiceTest {
+    
+    private LinkValidationService validationService;
+    
+    @BeforeEach
+    void setUp() {
+        BlogConfiguration configuration = mock(BlogConfiguration.class);
+        SiteOutputService outputService = new SiteOutputService(configuration);
+        PageGenerationService pageGenerationService =
+            new PageGenerationService(configuration, new TemplateRenderingService(), outputService,
+                mock(RelatedArticlesService.class), new MarkdownParsingService());
+        AssetManagementService assetManagementService =
+            new AssetManagementService(configuration, outputService, new AssetCache(),
+                new DiagnosticsCollector(configuration));
+        validationService = new LinkValidationService(configuration, pageGenerationService, assetManagementService);
+    }
+    
+    @Test
+    void testResolveRelativeLink() {
+        assertEquals("articles/2023/NOVEMBER/Other.html",
+            LinkValidationService.resolveLink("articles/2023/DECEMBER/", "../NOVEMBER/Other.html#intro"));
+        assertEquals("styles/style.css",
+            LinkValidationService.resolveLink("articles/2023/DECEMBER/", "/styles/style.css"));
+        assertEquals("index.html",
+            LinkValidationService.resolveLink("articles/2023/DECEMBER/", "../../../"));
+    }
+    
+    @Test
+    void testExternalLinksAreSkipped() {
+        assertNull(LinkValidationService.resolveLink("articles/", "https://example.com/page"));
+        assertNull(LinkValidationService.resolveLink("articles/", "mailto:me@example.com"));
+        assertNull(LinkValidationService.resolveLink("articles/", "//cdn.example.com/lib.js"));
+        assertNull(LinkValidationService.resolveLink("articles/", "#section"));
+    }
+    
+    @Test
+    void testValidateLinksReportsBrokenLinks() {
+        Article article = new Article("First", LocalDate.of(2023, 12, 1), "",
+            List.of("Second.html", "Missing.html", "https://example.com"));
+        Set<String> knownPaths = Set.of("index.html", "articles/2023/DECEMBER/First.html",
+            "articles/2023/DECEMBER/Second.html");
+        
+        LinkValidationReport report = validationService.checkLinks(List.of(article), knownPaths);
+        
+        assertEquals(2, report.checkedLinks());
+        assertEquals(1, report.brokenLinks().size());
+        assertEquals("articles/2023/DECEMBER/First.html", report.brokenLinks().get(0).sourcePage());
+        assertEquals("Missing.html", report.brokenLinks().get(0).target());
+    }
+}
@@ -3,9 +3,12 @@ package dev.foxxie911.service;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +17,7 @@ import org.junit.jupiter.api.io.TempDir;
 
 import dev.foxxie911.exception.FileProcessingException;
 import dev.foxxie911.models.Article;
+import dev.foxxie911.models.ArticleStatistics;
 
 public class MarkdownParsingServiceTest {
     
@@ -96,4 +100,82 @@ public class MarkdownParsingServiceTest {
         Article article = result.get();
         assertEquals("", article.body());
     }
+    
+    @Test
+    void testParseCollectsLinks() throws IOException, FileProcessingException {
+        Path articleFile = tempDir.resolve("2023-12-01_links.md");
+        Files.writeString(articleFile, "See [other](../NOVEMBER/other.html) and ![logo](/images/logo.png).");
+        
+        Optional<Article> result = parsingService.parseArticle(articleFile);
+        
+        assertTrue(result.isPresent());
+        assertEquals(List.of("../NOVEMBER/other.html", "/images/logo.png"), result.get().links());
+    }
+    
+    @Test
+    void testParseLargeMemoryMappedArticle() throws IOException, FileProcessingException {
+        Path articleFile = tempDir.resolve("2023-12-01_large.md");
+        String paragraph = "Ünïcödé paragraph with **bold** text.\n\n";
+        Files.writeString(articleFile, "# Large\n\n" + paragraph.repeat(4000));
+        assertTrue(Files.size(articleFile) >= ArticleSourceReader.MAP_THRESHOLD_BYTES);
+        
+        Optional<Article> result = parsingService.parseArticle(articleFile);
+        
+        assertTrue(result.isPresent());
+        assertTrue(result.get().body().startsWith("<h1>Large</h1>"));
+        assertTrue(result.get().body().contains("Ünïcödé paragraph with <strong>bold</strong> text."));
+    }
+    
+    @Test
+    void testParseCollectsStatistics() throws IOException, FileProcessingException {
+        Path articleFile = tempDir.resolve("2023-12-01_stats.md");
+        Files.writeString(articleFile, String.join("\n",
+            "# Heading words",
+            "",
+            "First para*graph* with `code`",
+            "and a soft break.",
+            "",
+            "```",
+            "ignored code block",
+            "```",
+            "",
+            "- Last item"));
+        
+        ArticleStatistics statistics = parsingService.parseArticle(articleFile).orElseThrow().statistics();
+        
+        assertEquals(12, statistics.wordCount());
+        assertEquals(1, statistics.readingMinutes());
+        assertEquals("First paragraph with code and a soft break. Last item", statistics.excerpt());
+    }
+    
+    @Test
+    void testExcerptIsCutAtWordBoundary() throws IOException, FileProcessingException {
+        Path articleFile = tempDir.resolve("2023-12-01_long.md");
+        Files.writeString(articleFile, "lorem ipsum ".repeat(200));
+        
+        ArticleStatistics statistics = parsingService.parseArticle(articleFile).orElseThrow().statistics();
+        
+        assertEquals(400, statistics.wordCount());
+        assertEquals(2, statistics.readingMinutes());
+        assertTrue(statistics.excerpt().length() <= StatisticsCollectingVisitor.EXCERPT_LENGTH + 1);
+        assertTrue(statistics.excerpt().endsWith("ipsum\u2026") || statistics.excerpt().endsWith("lorem\u2026"));
+    }
+    
+    @Test
+    void testLargeArticleBodyIsRenderedFromSource() throws IOException, FileProcessingException {
+        Path articleFile = tempDir.resolve("2023-12-01_report.md");
+        Files.writeString(articleFile, "# Report\n\nSee [the data](data.html).\n\n" + "- row\n".repeat(50));
+        Article parsed = parsingService.parseArticle(articleFile).orElseThrow();
+        
+        Article large = parsingService.parseLargeArticle(articleFile,
+            Files.readAttributes(articleFile, BasicFileAttributes.class)).orElseThrow();
+        StringWriter body = new StringWriter();
+        parsingService.renderBody(articleFile, body);
+        
+        assertEquals("", large.body());
+        assertEquals(articleFile, large.bodySource());
+        assertEquals(parsed.links(), large.links());
+        assertEquals(parsed.statistics(), large.statistics());
+        assertEquals(parsed.body(), body.toString());
+    }
 }
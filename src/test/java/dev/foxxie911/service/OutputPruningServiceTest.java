@@ -0,0 +1,148 @@
+package dev.foxxie911.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.foxxie911.TestConfigurations;
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.exception.FileProcessingException;
+
+public class OutputPruningServiceTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private BlogConfiguration createConfiguration(boolean dryRun) throws IOException {
+        return TestConfigurations.create(tempDir, "PRUNE_DRY_RUN=" + dryRun);
+    }
+    
+    @Test
+    void testPrunesOutputsMissingFromCurrentBuild() throws IOException, FileProcessingException {
+        BlogConfiguration configuration = createConfiguration(false);
+        SiteOutputService outputService = new SiteOutputService(configuration);
+        OutputPruningService pruningService = new OutputPruningService(configuration, outputService);
+        Path site = tempDir.resolve("site");
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "home");
+        outputService.writeFile("articles/2022/MAY/Old.html", "old");
+        assertEquals(0, pruningService.pruneOrphans());
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "home");
+        outputService.writeFile("articles/2023/JUNE/New.html", "new");
+        assertEquals(1, pruningService.pruneOrphans());
+        
+        assertFalse(Files.exists(site.resolve("articles/2022/MAY/Old.html")));
+        assertFalse(Files.exists(site.resolve("articles/2022")));
+        assertTrue(Files.exists(site.resolve("articles/2023/JUNE/New.html")));
+    }
+    
+    @Test
+    void testDryRunKeepsFilesAndTracksThem() throws IOException, FileProcessingException {
+        BlogConfiguration configuration = createConfiguration(true);
+        SiteOutputService outputService = new SiteOutputService(configuration);
+        OutputPruningService pruningService = new OutputPruningService(configuration, outputService);
+        
+        outputService.beginBuild();
+        outputService.writeFile("articles/Old.html", "old");
+        pruningService.pruneOrphans();
+        
+        outputService.beginBuild();
+        assertEquals(1, pruningService.pruneOrphans());
+        outputService.beginBuild();
+        assertEquals(1, pruningService.pruneOrphans());
+        
+        assertTrue(Files.exists(tempDir.resolve("site/articles/Old.html")));
+        assertFalse(OutputLedger.load(outputService.getLedgerFile()).paths().contains("articles/Old.html"),
+            "the ledger only lists produced files");
+        
+        BlogConfiguration realConfiguration = createConfiguration(false);
+        SiteOutputService realOutputService = new SiteOutputService(realConfiguration);
+        OutputPruningService realPruningService = new OutputPruningService(realConfiguration, realOutputService);
+        realOutputService.beginBuild();
+        assertEquals(1, realPruningService.pruneOrphans());
+        assertFalse(Files.exists(tempDir.resolve("site/articles/Old.html")));
+        assertFalse(Files.exists(realPruningService.getPendingFile()));
+    }
+    
+    @Test
+    void testOnlyDeletedOrphansAreRecorded() throws IOException, FileProcessingException {
+        BlogConfiguration configuration = createConfiguration(false);
+        SiteOutputService outputService = new SiteOutputService(configuration);
+        OutputPruningService pruningService = new OutputPruningService(configuration, outputService);
+        Path site = tempDir.resolve("site");
+        
+        outputService.beginBuild();
+        outputService.writeFile("articles/Old.html", "old");
+        outputService.writeFile("articles/Locked.html", "locked");
+        pruningService.pruneOrphans();
+        
+        // A non-empty directory in place of the page makes its delete fail
+        Files.delete(site.resolve("articles/Locked.html"));
+        Files.createDirectories(site.resolve("articles/Locked.html"));
+        Files.writeString(site.resolve("articles/Locked.html/index.html"), "locked");
+        outputService.beginBuild();
+        assertEquals(2, pruningService.pruneOrphans());
+        
+        assertEquals(Set.of("articles/Old.html"), outputService.getLedger().deletedPaths());
+        assertEquals(Set.of("articles/Locked.html"), OutputLedger.load(pruningService.getPendingFile()).paths(),
+            "a failed delete is tried again by the next build");
+        
+        Files.delete(site.resolve("articles/Locked.html/index.html"));
+        outputService.beginBuild();
+        assertEquals(1, pruningService.pruneOrphans());
+        assertEquals(Set.of("articles/Locked.html"), outputService.getLedger().deletedPaths());
+        assertFalse(Files.exists(site.resolve("articles/Locked.html")));
+        assertFalse(Files.exists(pruningService.getPendingFile()));
+    }
+    
+    @Test
+    void testLedgerEntriesOutsideTheSiteAreNotDeleted() throws IOException, FileProcessingException {
+        BlogConfiguration configuration = createConfiguration(false);
+        SiteOutputService outputService = new SiteOutputService(configuration);
+        OutputPruningService pruningService = new OutputPruningService(configuration, outputService);
+        Path outside = Files.writeString(tempDir.resolve("outside.txt"), "keep");
+        
+        OutputLedger tampered = new OutputLedger();
+        tampered.record("../outside.txt");
+        tampered.record("articles/../../outside.txt");
+        tampered.record("articles/Old.html");
+        tampered.save(outputService.getLedgerFile());
+        outputService.beginBuild();
+        
+        assertEquals(1, pruningService.pruneOrphans());
+        assertTrue(Files.exists(outside));
+        assertEquals(Set.of("articles/Old.html"), outputService.getLedger().deletedPaths());
+    }
+    
+    @Test
+    void testAtomicDryRunDoesNotCarryOrphansForward() throws IOException, FileProcessingException {
+        BlogConfiguration configuration = TestConfigurations.create(tempDir,
+            "PUBLISH_MODE=atomic", "PRUNE_DRY_RUN=true");
+        SiteOutputService outputService = new SiteOutputService(configuration);
+        OutputPruningService pruningService = new OutputPruningService(configuration, outputService);
+        
+        outputService.beginBuild();
+        outputService.writeFile("articles/Old.html", "old");
+        pruningService.pruneOrphans();
+        outputService.publish();
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "home");
+        assertEquals(1, pruningService.pruneOrphans());
+        outputService.publish();
+        assertFalse(Files.exists(tempDir.resolve("site/articles/Old.html")));
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "home");
+        assertEquals(0, pruningService.pruneOrphans(), "the orphan is gone with the previous release");
+    }
+}
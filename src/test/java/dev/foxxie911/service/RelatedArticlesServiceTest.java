@@ -0,0 +1,232 @@
+package dev.foxxie911.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.foxxie911.TestConfigurations;
+import dev.foxxie911.config.BlogConfiguration;
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.Article;
+import dev.foxxie911.models.ArticleStatistics;
+import dev.foxxie911.repository.FileSystemArticleRepository;
+
+public class RelatedArticlesServiceTest {
+    
+    private static final String BREAD = "Knead the dough for ten minutes, then let it rest in a warm place "
+        + "until it doubles in size. Shape the loaf, score the top and bake it in a hot oven with steam. ";
+    private static final String RUST = "The borrow checker rejects programs where a mutable reference "
+        + "outlives the value it points to, so lifetimes must be annotated when the compiler cannot infer them. ";
+    
+    private static final long LARGE_ARTICLE_SOURCE_BYTES = 48L << 20;
+    private static final String SIGNING_HEAP = "32m";
+    
+    @TempDir
+    Path tempDir;
+    
+    private Path articles;
+    private DiagnosticsCollector diagnostics;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        articles = Files.createDirectories(tempDir.resolve("articles"));
+        Files.writeString(articles.resolve("2024-01-01_Sourdough.md"), BREAD + "Use a sourdough starter.");
+        Files.writeString(articles.resolve("2024-01-02_Rye.md"), BREAD + "Mix in some rye flour.");
+        Files.writeString(articles.resolve("2024-01-03_Baguette.md"), BREAD + "Roll it into long thin baguettes.");
+        Files.writeString(articles.resolve("2024-01-04_Lifetimes.md"), RUST + "Elision covers the simple cases.");
+        Files.writeString(articles.resolve("2024-01-05_Borrowing.md"), RUST + "Clone when in doubt.");
+        Files.writeString(articles.resolve("2024-01-06_Empty.md"), "");
+    }
+    
+    private BlogConfiguration createConfiguration(String... settings) throws IOException {
+        String[] all = Arrays.copyOf(settings, settings.length + 1);
+        all[settings.length] = "RELATED_ARTICLES=2";
+        return TestConfigurations.create(tempDir, all);
+    }
+    
+    private RelatedArticlesService createService(String... settings) throws IOException, FileProcessingException {
+        BlogConfiguration configuration = createConfiguration(settings);
+        diagnostics = new DiagnosticsCollector(configuration);
+        RelatedArticlesService service = new RelatedArticlesService(configuration,
+            new FileSystemArticleRepository(configuration, new MarkdownParsingService(), diagnostics), diagnostics);
+        service.computeRelated();
+        return service;
+    }
+    
+    private List<String> relatedTitles(RelatedArticlesService service, String title, LocalDate createdAt) {
+        return relatedTitles(service, articles.resolve(createdAt + "_" + title + ".md"));
+    }
+    
+    private static List<String> relatedTitles(RelatedArticlesService service, Path source) {
+        return service.relatedTo(source).stream().map(Article::title).toList();
+    }
+    
+    @Test
+    void testRelatesArticlesWithSimilarContent() throws IOException, FileProcessingException {
+        RelatedArticlesService service = createService();
+        
+        List<String> related = relatedTitles(service, "Rye", LocalDate.of(2024, 1, 2));
+        assertEquals(2, related.size());
+        assertTrue(related.containsAll(List.of("Sourdough", "Baguette")));
+        assertEquals(List.of("Borrowing"), relatedTitles(service, "Lifetimes", LocalDate.of(2024, 1, 4)));
+        assertTrue(relatedTitles(service, "Empty", LocalDate.of(2024, 1, 6)).isEmpty());
+    }
+    
+    @Test
+    void testCachedRankingsFollowChangedAndRemovedArticles() throws IOException, FileProcessingException {
+        createService();
+        assertTrue(Files.exists(tempDir.resolve("site.cache/related-articles.bin")));
+        
+        Files.delete(articles.resolve("2024-01-03_Baguette.md"));
+        Files.writeString(articles.resolve("2024-01-05_Borrowing.md"), BREAD + "Borrow a proofing basket.");
+        RelatedArticlesService service = createService();
+        
+        List<String> related = relatedTitles(service, "Sourdough", LocalDate.of(2024, 1, 1));
+        assertTrue(related.containsAll(List.of("Rye", "Borrowing")), related.toString());
+        assertTrue(relatedTitles(service, "Lifetimes", LocalDate.of(2024, 1, 4)).isEmpty());
+    }
+    
+    @Test
+    void testEditInAnOversizedBucketDoesNotRankItsMembersAgain() throws IOException, FileProcessingException {
+        // More articles than a usable bucket holds, all sharing every bucket through the same boilerplate
+        Path boilerplate = Files.createDirectories(articles.resolve("boilerplate"));
+        for (int i = 1; i <= 501; i++) {
+            Files.writeString(boilerplate.resolve(String.format("2023-01-01_Notice%d.md", i)), RUST);
+        }
+        createService();
+        Path edited = boilerplate.resolve("2023-01-01_Notice1.md");
+        Files.setLastModifiedTime(edited, FileTime.fromMillis(Files.getLastModifiedTime(edited).toMillis() + 1000));
+        
+        RelatedArticlesService service = createService();
+        
+        assertEquals(1, service.getRankedCount(), "only the edited article is ranked again");
+    }
+    
+    @Test
+    void testUndecodableArticleIsRecordedAndLeftOut() throws IOException, FileProcessingException {
+        Files.write(articles.resolve("2024-01-07_Garbled.md"), new byte[] {'B', 'r', 'e', 'a', 'd', (byte) 0xc3, '('});
+        RelatedArticlesService service = createService();
+        
+        assertEquals(1, diagnostics.getFailureCount());
+        assertEquals("related", diagnostics.getFailures().get(0).stage());
+        assertEquals("2024-01-07_Garbled.md", diagnostics.getFailures().get(0).file());
+        assertTrue(relatedTitles(service, "Garbled", LocalDate.of(2024, 1, 7)).isEmpty());
+        assertEquals(2, relatedTitles(service, "Rye", LocalDate.of(2024, 1, 2)).size());
+        assertNull(RelatedArticlesCache.load(tempDir.resolve("site.cache/related-articles.bin"))
+            .get("2024-01-07_Garbled.md"), "retried by the next build");
+        
+        assertThrows(FileProcessingException.class, () -> createService("BUILD_ERROR_POLICY=fail-fast"));
+    }
+    
+    @Test
+    void testLargeArticleIsSignedWithinASmallHeap() throws IOException, InterruptedException,
+            FileProcessingException {
+        List<String> buffered = relatedTitles(createService(), "Rye", LocalDate.of(2024, 1, 2));
+        assertEquals(buffered, relatedTitles(createService("LARGE_ARTICLE_BYTES=1"), "Rye", LocalDate.of(2024, 1, 2)),
+            "streamed and buffered signatures agree");
+        
+        // Decoded into characters at once, the article would need three times the heap of the process
+        try (Writer writer = Files.newBufferedWriter(articles.resolve("2024-01-07_Handbook.md"))) {
+            for (long written = 0; written < LARGE_ARTICLE_SOURCE_BYTES; written += BREAD.length()) {
+                writer.write(BREAD);
+            }
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        // Classes compiled with preview features only load with them enabled
+        if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("--enable-preview")) {
+            command.add("--enable-preview");
+        }
+        command.addAll(List.of("-Xmx" + SIGNING_HEAP, "-cp", System.getProperty("java.class.path"),
+            LargeArticleSigner.class.getName(), tempDir.toString()));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        
+        assertEquals(0, process.waitFor(), output);
+        String related = output.lines()
+            .filter(line -> line.startsWith(LargeArticleSigner.RESULT_PREFIX))
+            .map(line -> line.substring(LargeArticleSigner.RESULT_PREFIX.length()))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError(output));
+        List<String> titles = List.of(related.split(","));
+        assertEquals(2, titles.size(), related);
+        assertTrue(List.of("Sourdough", "Rye", "Baguette").containsAll(titles), related);
+    }
+    
+    @Test
+    void testCacheOverTheSizeCapIsNotWritten() throws IOException, FileProcessingException {
+        createService();
+        Path cacheFile = tempDir.resolve("site.cache/related-articles.bin");
+        assertEquals(Files.size(cacheFile), RelatedArticlesCache.load(cacheFile).encodedSize());
+        
+        RelatedArticlesService service = createService("CACHE_MAX_BYTES=1K");
+        
+        assertFalse(Files.exists(cacheFile));
+        assertFalse(Files.exists(cacheFile.resolveSibling("related-articles.bin.tmp")));
+        assertEquals(2, relatedTitles(service, "Rye", LocalDate.of(2024, 1, 2)).size());
+    }
+    
+    @Test
+    void testArticlePageListsRelatedArticles() throws IOException, FileProcessingException {
+        BlogConfiguration configuration = createConfiguration();
+        PageGenerationService pageGenerationService = new PageGenerationService(configuration,
+            new TemplateRenderingService(), new SiteOutputService(configuration), createService(),
+            new MarkdownParsingService());
+        
+        String page = new String(pageGenerationService.renderArticlePage(new Article("Rye", LocalDate.of(2024, 1, 2),
+            "", List.of(), ArticleStatistics.EMPTY, null, articles.resolve("2024-01-02_Rye.md"))).content(),
+            StandardCharsets.UTF_8);
+        
+        assertTrue(page.contains("<a href=\"../../2024/JANUARY/Sourdough.html\">Sourdough</a>"));
+        assertFalse(page.contains("Lifetimes"));
+    }
+    
+    @Test
+    void testArticlesWithTheSameTitleAndDateKeepTheirOwnRankings() throws IOException, FileProcessingException {
+        Path drafts = Files.createDirectories(articles.resolve("drafts"));
+        Files.writeString(drafts.resolve("2024-01-02_Rye.md"), RUST + "Rye is a crate name too.");
+        RelatedArticlesService service = createService();
+        
+        assertTrue(relatedTitles(service, "Rye", LocalDate.of(2024, 1, 2)).contains("Sourdough"));
+        List<String> draftRelated = relatedTitles(service, drafts.resolve("2024-01-02_Rye.md"));
+        assertTrue(draftRelated.containsAll(List.of("Lifetimes", "Borrowing")), draftRelated.toString());
+    }
+    
+    /**
+     * Computes the related articles of a test directory in a process of its own, so the test
+     * can give it a small heap, and prints those of the large article.
+     */
+    public static final class LargeArticleSigner {
+        
+        static final String RESULT_PREFIX = "Related to Handbook: ";
+        
+        private LargeArticleSigner() {
+        }
+        
+        public static void main(String[] args) throws IOException, FileProcessingException {
+            Path directory = Path.of(args[0]);
+            BlogConfiguration configuration = TestConfigurations.create(directory, "RELATED_ARTICLES=2",
+                "LARGE_ARTICLE_BYTES=1M");
+            DiagnosticsCollector diagnostics = new DiagnosticsCollector(configuration);
+            RelatedArticlesService service = new RelatedArticlesService(configuration,
+                new FileSystemArticleRepository(configuration, new MarkdownParsingService(), diagnostics), diagnostics);
+            service.computeRelated();
+            System.out.println(RESULT_PREFIX + String.join(",",
+                relatedTitles(service, directory.resolve("articles/2024-01-07_Handbook.md"))));
+        }
+    }
+}
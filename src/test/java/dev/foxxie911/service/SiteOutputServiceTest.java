@@ -0,0 +1,202 @@
+package dev.foxxie911.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.foxxie911.TestConfigurations;
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.RenderedFile;
+
+public class SiteOutputServiceTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private SiteOutputService createService(String publishMode) throws IOException {
+        return new SiteOutputService(TestConfigurations.create(tempDir, "PUBLISH_MODE=" + publishMode));
+    }
+    
+    @Test
+    void testInPlaceWritesIntoSitePath() throws IOException, FileProcessingException {
+        SiteOutputService outputService = createService("in-place");
+        
+        outputService.beginBuild();
+        outputService.writeFile("articles/2023/DECEMBER/Post.html", "<p>post</p>");
+        outputService.publish();
+        
+        assertEquals("<p>post</p>", Files.readString(tempDir.resolve("site/articles/2023/DECEMBER/Post.html")));
+        assertFalse(Files.isSymbolicLink(tempDir.resolve("site")));
+    }
+    
+    @Test
+    void testAtomicPublishSwapsReleaseAndDropsStaleFiles() throws IOException, FileProcessingException {
+        SiteOutputService outputService = createService("atomic");
+        Path site = tempDir.resolve("site");
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "<p>home</p>");
+        outputService.writeFile("articles/Old.html", "<p>old</p>");
+        outputService.publish();
+        Object firstIndex = Files.getAttribute(site.resolve("index.html"), "unix:ino");
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "<p>home</p>");
+        outputService.writeFile("articles/New.html", "<p>new</p>");
+        assertTrue(Files.exists(site.resolve("articles/Old.html")), "live site must not change before publish");
+        outputService.publish();
+        
+        assertTrue(Files.isSymbolicLink(site));
+        assertEquals("<p>new</p>", Files.readString(site.resolve("articles/New.html")));
+        assertFalse(Files.exists(site.resolve("articles/Old.html")));
+        assertEquals(firstIndex, Files.getAttribute(site.resolve("index.html"), "unix:ino"));
+    }
+    
+    @Test
+    void testUnchangedFilesAreNotRewritten() throws IOException, FileProcessingException {
+        SiteOutputService outputService = createService("in-place");
+        OutputPruningService pruningService = new OutputPruningService(
+            TestConfigurations.create(tempDir, "PUBLISH_MODE=in-place"), outputService);
+        Path page = tempDir.resolve("site/articles/Post.html");
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "<p>home</p>");
+        outputService.writeFile("articles/Post.html", "<p>post</p>");
+        outputService.writeFile("articles/Old.html", "<p>old</p>");
+        pruningService.pruneOrphans();
+        FileTime written = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(page, written);
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "<p>home, edited</p>");
+        outputService.writeFile("articles/Post.html", "<p>post</p>");
+        pruningService.pruneOrphans();
+        
+        OutputLedger ledger = outputService.getLedger();
+        assertEquals(1, ledger.getWrittenCount());
+        assertEquals(1, ledger.getSkippedCount());
+        assertEquals(1, ledger.getDeletedCount());
+        assertEquals(written, Files.getLastModifiedTime(page));
+        assertEquals("<p>home, edited</p>", Files.readString(tempDir.resolve("site/index.html")));
+        assertEquals(ContentHashingWriter.hash("<p>post</p>").hash(), ledger.hashOf("articles/Post.html"));
+    }
+    
+    @Test
+    void testFailedInPlaceBuildDoesNotLeaveStaleHashes() throws IOException, FileProcessingException {
+        SiteOutputService outputService = createService("in-place");
+        OutputPruningService pruningService = new OutputPruningService(
+            TestConfigurations.create(tempDir, "PUBLISH_MODE=in-place"), outputService);
+        Path site = tempDir.resolve("site");
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "<p>v1</p>");
+        outputService.writeFile("articles/Post.html", "<p>v1</p>");
+        pruningService.pruneOrphans();
+        
+        // The second build writes the homepage and fails while writing the post, leaving it torn
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "<p>v2</p>");
+        Files.writeString(site.resolve("articles/Post.html"), "<p>v2</p>");
+        outputService.abort();
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "<p>v1</p>");
+        outputService.writeFile("articles/Post.html", "<p>v1</p>");
+        pruningService.pruneOrphans();
+        
+        assertEquals("<p>v1</p>", Files.readString(site.resolve("index.html")));
+        assertEquals("<p>v1</p>", Files.readString(site.resolve("articles/Post.html")));
+        assertEquals(2, outputService.getLedger().getWrittenCount());
+    }
+    
+    @Test
+    void testTemporaryFilesStayOutOfTheSite() throws IOException, FileProcessingException {
+        SiteOutputService outputService = createService("in-place");
+        Path site = tempDir.resolve("site");
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "<p>v1</p>");
+        outputService.writeFile("feed.xml", out -> {
+            try (Stream<Path> files = Files.list(site)) {
+                assertEquals(List.of(site.resolve("index.html")), files.toList());
+            }
+            out.write("<feed/>".getBytes(StandardCharsets.UTF_8));
+        });
+        
+        // A crash mid-write leaves its temporary file behind, and the next build clears it
+        Path leftover = outputService.getScratchDirectory().resolve("write-1.tmp");
+        Files.writeString(leftover, "<p>torn</p>");
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "<p>v2</p>");
+        
+        assertFalse(Files.exists(leftover));
+        assertEquals("<p>v2</p>", Files.readString(site.resolve("index.html")));
+        assertEquals("<feed/>", Files.readString(site.resolve("feed.xml")));
+    }
+    
+    @Test
+    void testContentHashMatchesEncodedBytes() throws NoSuchAlgorithmException {
+        String text = "caf\u00e9 \ud83d\ude00 \u20ac \ud83d";
+        ContentHashingWriter writer = new ContentHashingWriter(4);
+        for (int i = 0; i < text.length(); i++) {
+            writer.write(text, i, 1);
+        }
+        RenderedFile file = writer.finish();
+        
+        byte[] expected = text.getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expected, file.content());
+        assertEquals(ContentHashingWriter.hash(text).hash(), file.hash());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(expected)), file.hash());
+    }
+    
+    @Test
+    void testAbortLeavesLiveSiteUntouched() throws IOException, FileProcessingException {
+        SiteOutputService outputService = createService("atomic");
+        Path site = tempDir.resolve("site");
+        
+        outputService.beginBuild();
+        outputService.writeFile("index.html", "<p>v1</p>");
+        outputService.publish();
+        
+        outputService.beginBuild();
+        Path staging = outputService.getOutputRoot();
+        outputService.writeFile("index.html", "<p>v2</p>");
+        outputService.abort();
+        
+        assertEquals("<p>v1</p>", Files.readString(site.resolve("index.html")));
+        assertFalse(Files.exists(staging));
+    }
+    
+    @Test
+    void testDirectoriesAreCreatedOncePerBuild() throws IOException, FileProcessingException {
+        SiteOutputService outputService = createService("in-place");
+        Path site = tempDir.resolve("site");
+        
+        outputService.beginBuild();
+        outputService.prepareDirectories(List.of("styles/style.css", "fonts/sans/Sans.woff2", "fonts/sans/Bold.woff2"));
+        
+        assertTrue(Files.isDirectory(site.resolve("styles")));
+        assertTrue(Files.isDirectory(site.resolve("fonts/sans")));
+        outputService.writeFile("fonts/sans/Sans.woff2", "font");
+        outputService.writeFile("articles/2024/MAY/Post.html", "<p>post</p>");
+        
+        Files.delete(site.resolve("articles/2024/MAY/Post.html"));
+        Files.delete(site.resolve("articles/2024/MAY"));
+        outputService.beginBuild();
+        outputService.writeFile("articles/2024/MAY/Post.html", "<p>post</p>");
+        
+        assertEquals("<p>post</p>", Files.readString(site.resolve("articles/2024/MAY/Post.html")));
+    }
+}
@@ -0,0 +1,109 @@
+package dev.foxxie911.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+
+import dev.foxxie911.exception.FileProcessingException;
+import dev.foxxie911.models.Article;
+import dev.foxxie911.models.ArticleList;
+import dev.foxxie911.models.ArticlePageContext;
+import dev.foxxie911.models.ArticleStatistics;
+import dev.foxxie911.models.SiteContext;
+
+public class TemplateRenderingServiceTest {
+    
+    private static final String TEMPLATE = "{{#article}}{{title}} | {{blog_name}}{{/article}}"
+        + "{{#has_related_articles}}:{{#related_articles}} {{title}}{{/related_articles}}{{/has_related_articles}}";
+    
+    private final TemplateRenderingService service = new TemplateRenderingService(new DefaultMustacheFactory() {
+        {
+            setObjectHandler(new TemplateObjectHandler());
+        }
+        
+        @Override
+        public Reader getReader(String resourceName) {
+            return new StringReader(TEMPLATE);
+        }
+    });
+    
+    @Test
+    void testTypedScopesResolveSnakeCaseKeys() throws FileProcessingException {
+        SiteContext site = new SiteContext("Test Blog", "Testing");
+        Article article = new Article("Rye", LocalDate.of(2024, 1, 2), "");
+        List<ArticleList> related = List.of(new ArticleList("Sourdough", "2024/JANUARY/Sourdough.html",
+            ArticleStatistics.EMPTY));
+        
+        assertEquals("Rye | Test Blog: Sourdough",
+            service.renderTemplate("page", site, new ArticlePageContext(article, related)));
+        assertEquals("Rye | Test Blog",
+            service.renderTemplate("page", site, new ArticlePageContext(article, List.of())));
+    }
+    
+    @Test
+    void testMapContextsStillRender() throws FileProcessingException {
+        Map<String, Object> context = Map.of(
+            "blog_name", "Test Blog",
+            "article", new Article("Rye", LocalDate.of(2024, 1, 2), ""),
+            "has_related_articles", false);
+        
+        assertEquals("Rye | Test Blog", service.renderTemplate("page", context));
+    }
+    
+    @Test
+    void testThemeTemplateIsRecompiledWhenItsPartialChanges(@TempDir Path theme)
+            throws IOException, FileProcessingException {
+        Files.writeString(theme.resolve("article.mustache"), "{{> header}}{{#article}}{{title}}{{/article}}");
+        Path header = Files.writeString(theme.resolve("header.mustache"), "[{{blog_name}}] ");
+        TemplateRenderingService themed = new TemplateRenderingService();
+        SiteContext site = new SiteContext("Test Blog", "Testing");
+        ArticlePageContext page = new ArticlePageContext(new Article("Rye", LocalDate.of(2024, 1, 2), ""), List.of());
+        
+        assertEquals("[Test Blog] Rye", render(themed, theme, site, page));
+        String digest = themed.templateDigest(theme, PageGenerationService.ARTICLE_TEMPLATE);
+        assertEquals(digest, themed.templateDigest(theme, PageGenerationService.ARTICLE_TEMPLATE));
+        
+        Files.writeString(header, "<{{blog_name}}> ");
+        Files.setLastModifiedTime(header, FileTime.fromMillis(Files.getLastModifiedTime(header).toMillis() + 2000));
+        
+        assertNotEquals(digest, themed.templateDigest(theme, PageGenerationService.ARTICLE_TEMPLATE));
+        assertEquals("<Test Blog> Rye", render(themed, theme, site, page));
+    }
+    
+    @Test
+    void testTemplatesMissingFromThemeAreBundled(@TempDir Path theme) throws FileProcessingException {
+        TemplateRenderingService themed = new TemplateRenderingService();
+        
+        assertEquals(BuildFingerprintService.templateDigest(PageGenerationService.HOME_TEMPLATE),
+            themed.templateDigest(theme, PageGenerationService.HOME_TEMPLATE));
+        assertTrue(new String(themed.renderFile(theme, PageGenerationService.HOME_TEMPLATE,
+            new SiteContext("Test Blog", "Testing")).content(), StandardCharsets.UTF_8).contains("Test Blog"));
+    }
+    
+    private static String render(TemplateRenderingService themed, Path theme, Object... scopes)
+            throws FileProcessingException {
+        return new String(themed.renderFile(theme, PageGenerationService.ARTICLE_TEMPLATE, scopes).content(),
+            StandardCharsets.UTF_8);
+    }
+    
+    @Test
+    void testAccessorNames() {
+        assertEquals("blogName", TemplateObjectHandler.accessorName("blog_name"));
+        assertEquals("hasRelatedArticles", TemplateObjectHandler.accessorName("has_related_articles"));
+        assertEquals("title", TemplateObjectHandler.accessorName("title"));
+    }
+}